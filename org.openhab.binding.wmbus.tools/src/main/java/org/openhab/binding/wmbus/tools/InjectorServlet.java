@@ -28,6 +28,7 @@ import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingRegistry;
 import org.openhab.core.util.HexUtils;
 import org.openmuc.jmbus.DecodingException;
+import org.openmuc.jmbus.wireless.LinkLayerCrc;
 import org.openmuc.jmbus.wireless.VirtualWMBusMessageHelper;
 import org.openmuc.jmbus.wireless.WMBusMessage;
 import org.osgi.service.component.annotations.Activate;
@@ -108,6 +109,7 @@ public class InjectorServlet extends HttpServlet {
 
         int skipBytes = Optional.ofNullable(req.getParameter("skipBytes")).map(Integer::parseInt).orElse(0);
         boolean stripCRC = Optional.ofNullable(req.getParameter("stripCRC")).map(value -> Boolean.TRUE).orElse(false);
+        boolean checkCRC = Optional.ofNullable(req.getParameter("checkCRC")).map(value -> Boolean.TRUE).orElse(false);
         boolean calculateLength = Optional.ofNullable(req.getParameter("calculateLength")).map(value -> Boolean.TRUE)
                 .orElse(false);
         boolean recalculateLength = Optional.ofNullable(req.getParameter("recalculateLength"))
@@ -138,6 +140,9 @@ public class InjectorServlet extends HttpServlet {
                 int rssi = (int) context.getOrDefault(Processor.RSSI, rssiValue);
 
                 byte[] bytes = HexUtils.hexToBytes(frame);
+                if (checkCRC) {
+                    bytes = Arrays.copyOf(bytes, LinkLayerCrc.strip(bytes, 0, bytes.length));
+                }
                 WMBusMessage message = VirtualWMBusMessageHelper.decode(bytes, rssi, Collections.emptyMap());
                 if (aesKey != null && !aesKey.trim().isEmpty()) {
                     byte[] key = HexUtils.hexToBytes(aesKey);
@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.wmbus;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.openmuc.jmbus.DataRecord;
+import org.openmuc.jmbus.DecodeStatus;
+import org.openmuc.jmbus.DecodingException;
+import org.openmuc.jmbus.VariableDataStructure;
+
+/**
+ * The {@link DecodedFrame} class holds outcome of single decoding of received frame. It is created once per telegram
+ * (see {@link WMBusDevice#getDecodedFrame()}) and then shared by bridge, thing handlers and other message listeners so
+ * none of them needs to decode (and decrypt) same payload again.
+ * <p>
+ * Frames which can not be decoded in normal operation are reported by {@link #getStatus()}, error describing them is
+ * created only when it is requested.
+ *
+ * @author Łukasz Dywicki - Initial contribution
+ */
+public final class DecodedFrame {
+
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
+    private final byte[] payload;
+    private final List<DataRecord> records;
+    private final DecodeStatus status;
+    private final long layoutFingerprint;
+    // structure which failed to decode, kept to create error on demand
+    private final @Nullable VariableDataStructure failed;
+    private final long decodeTime;
+
+    private @Nullable DecodingException error;
+
+    private DecodedFrame(byte[] payload, List<DataRecord> records, DecodeStatus status, long layoutFingerprint,
+            @Nullable VariableDataStructure failed, long decodeTime) {
+        this.payload = payload;
+        this.records = records;
+        this.status = status;
+        this.layoutFingerprint = layoutFingerprint;
+        this.failed = failed;
+        this.decodeTime = decodeTime;
+    }
+
+    static DecodedFrame decode(VariableDataStructure structure) {
+        long start = System.nanoTime();
+        DecodeStatus status = structure.tryDecode();
+        if (status.isDecoded()) {
+            return new DecodedFrame(structure.getDecryptedPayload(),
+                    Collections.unmodifiableList(structure.getDataRecords()), status,
+                    structure.getLayoutFingerprint(), null, System.nanoTime() - start);
+        }
+        return new DecodedFrame(EMPTY_PAYLOAD, Collections.emptyList(), status, structure.getLayoutFingerprint(),
+                structure, System.nanoTime() - start);
+    }
+
+    /**
+     * Tells if frame was decoded successfully.
+     *
+     * @return True if decoding went fine, false otherwise.
+     */
+    public boolean isDecoded() {
+        return status.isDecoded();
+    }
+
+    /**
+     * Outcome of decoding.
+     *
+     * @return Decoding status.
+     */
+    public DecodeStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Variable data part of frame after decryption. Might be empty if frame was not encrypted and its records were
+     * read directly from received message.
+     *
+     * @return Decrypted payload.
+     */
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    /**
+     * Data records found in frame.
+     *
+     * @return Read only list of records, empty if decoding failed.
+     */
+    public List<DataRecord> getRecords() {
+        return records;
+    }
+
+    /**
+     * Fingerprint of DIBs and VIBs of records found in frame. Frames which carry same records have same fingerprint.
+     *
+     * @return Layout fingerprint.
+     */
+    public long getLayoutFingerprint() {
+        return layoutFingerprint;
+    }
+
+    /**
+     * Error reported during decoding.
+     *
+     * @return Decoding error or empty value if frame was decoded successfully.
+     */
+    public Optional<DecodingException> getError() {
+        return Optional.ofNullable(error());
+    }
+
+    /**
+     * Time spent on decoding of frame.
+     *
+     * @return Decoding time in nanoseconds.
+     */
+    public long getDecodeTime() {
+        return decodeTime;
+    }
+
+    void rethrow() throws DecodingException {
+        DecodingException error = error();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private synchronized @Nullable DecodingException error() {
+        VariableDataStructure failed = this.failed;
+        if (error == null && failed != null) {
+            error = failed.getDecodeError();
+        }
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "DecodedFrame [records=" + records.size() + ", status=" + status + ", decodeTime=" + decodeTime + "ns]";
+    }
+}
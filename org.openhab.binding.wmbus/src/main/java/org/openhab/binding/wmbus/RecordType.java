@@ -38,6 +38,7 @@ public class RecordType {
 
     private final byte[] dib;
     private final byte[] vib;
+    private final int recordKey;
 
     public RecordType(byte[] dib, int vib) {
         this(dib, new byte[] { (byte) vib });
@@ -50,6 +51,7 @@ public class RecordType {
     public RecordType(byte[] dib, byte[] vib) {
         this.dib = dib;
         this.vib = vib;
+        this.recordKey = DataRecord.recordKey(dib, vib);
     }
 
     public RecordType(int dib, int vib) {
@@ -64,6 +66,15 @@ public class RecordType {
         return vib;
     }
 
+    /**
+     * Key of record computed from DIB and VIB, used to find record in index of received frame.
+     *
+     * @return Key of record.
+     */
+    public int getRecordKey() {
+        return recordKey;
+    }
+
     public boolean matches(DataRecord record) {
         return Arrays.equals(record.getDib(), getDib()) && Arrays.equals(record.getVib(), getVib());
     }
@@ -75,11 +86,7 @@ public class RecordType {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + Arrays.hashCode(dib);
-        result = prime * result + Arrays.hashCode(vib);
-        return result;
+        return recordKey;
     }
 
     @Override
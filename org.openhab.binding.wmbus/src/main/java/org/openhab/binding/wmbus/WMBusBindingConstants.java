@@ -35,6 +35,7 @@ public class WMBusBindingConstants {
     public static final String BINDING_ID = "wmbus";
     public static final String THING_TYPE_NAME_BRIDGE = "wmbusbridge";
     public static final String THING_TYPE_NAME_VIRTUAL_BRIDGE = "wmbusvirtualbridge";
+    public static final String THING_TYPE_NAME_TCP_BRIDGE = "wmbustcpbridge";
     public static final String THING_TYPE_NAME_METER = "meter";
     public static final String THING_TYPE_NAME_ENCRYPTED_METER = "encrypted_meter";
 
@@ -47,6 +48,7 @@ public class WMBusBindingConstants {
     public final static ThingTypeUID THING_TYPE_BRIDGE = new ThingTypeUID(BINDING_ID, THING_TYPE_NAME_BRIDGE);
     public final static ThingTypeUID THING_TYPE_VIRTUAL_BRIDGE = new ThingTypeUID(BINDING_ID,
             THING_TYPE_NAME_VIRTUAL_BRIDGE);
+    public final static ThingTypeUID THING_TYPE_TCP_BRIDGE = new ThingTypeUID(BINDING_ID, THING_TYPE_NAME_TCP_BRIDGE);
 
     public final static ThingTypeUID THING_TYPE_METER = new ThingTypeUID(BINDING_ID, THING_TYPE_NAME_METER);
     public final static ThingTypeUID THING_TYPE_ENCRYPTED_METER = new ThingTypeUID(BINDING_ID,
@@ -71,20 +73,28 @@ public class WMBusBindingConstants {
 
     // add new devices here
     public final static Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = ImmutableSet.of(THING_TYPE_BRIDGE,
-            THING_TYPE_VIRTUAL_BRIDGE, THING_TYPE_METER, THING_TYPE_ENCRYPTED_METER);
+            THING_TYPE_VIRTUAL_BRIDGE, THING_TYPE_TCP_BRIDGE, THING_TYPE_METER, THING_TYPE_ENCRYPTED_METER);
 
     // Bridge config properties
     public static final String CONFKEY_STICK_MODEL = "stickModel";
     public static final String CONFKEY_INTERFACE_NAME = "serialDevice";
+    public static final String CONFKEY_HOST = "host";
+    public static final String CONFKEY_PORT = "port";
     public static final String CONFKEY_RADIO_MODE = "radioMode";
     public static final String CONFKEY_DATEFIELD_MODE = "dateFieldMode";
     public static final String CONFKEY_ENCRYPTION_KEYS = "encryptionKeys";
     public static final String CONFKEY_DEVICEID_FILTER = "deviceIDFilter";
+    public static final String CONFKEY_QUEUE_CAPACITY = "queueCapacity";
+    public static final String CONFKEY_OVERFLOW_POLICY = "overflowPolicy";
+    public static final String CONFKEY_PROCESSING_LANES = "processingLanes";
 
     // device config properties
     public static final String PROPERTY_DEVICE_ADDRESS = "deviceAddress";
     public static final String PROPERTY_DEVICE_FREQUENCY_OF_UPDATES = "frequencyOfUpdates";
     public static final String PROPERTY_DEVICE_ENCRYPTION_KEY = "encryptionKey";
+    public static final String PROPERTY_DEVICE_SUPPRESS_UNCHANGED = "suppressUnchangedStates";
+    public static final String PROPERTY_DEVICE_MIN_UPDATE_INTERVAL = "minUpdateInterval";
+    public static final String PROPERTY_DEVICE_UPDATE_AGGREGATION = "updateAggregation";
     // device property which says if we expected secure communication
     public static final String PROPERTY_DEVICE_ENCRYPTED = "encrypted";
 
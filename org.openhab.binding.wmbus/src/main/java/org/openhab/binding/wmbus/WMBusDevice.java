@@ -31,6 +31,10 @@ public class WMBusDevice {
     private final WMBusMessage originalMessage;
     private final WMBusAdapter adapter;
 
+    // lazily computed, hex form of address is requested by every listener receiving frame
+    private String deviceAddress;
+    private DecodedFrame decodedFrame;
+
     public WMBusDevice(WMBusMessage originalMessage, WMBusAdapter adapter) {
         this.originalMessage = originalMessage;
         this.adapter = adapter;
@@ -44,8 +48,25 @@ public class WMBusDevice {
         return adapter;
     }
 
+    /**
+     * Decodes frame. Decoding happens only once, subsequent calls report same outcome as first one.
+     *
+     * @throws DecodingException When frame could not be decoded.
+     */
     public void decode() throws DecodingException {
-        originalMessage.getVariableDataResponse().decode();
+        getDecodedFrame().rethrow();
+    }
+
+    /**
+     * Returns result of frame decoding, decoding frame if it was not done yet.
+     *
+     * @return Decoded frame.
+     */
+    public synchronized DecodedFrame getDecodedFrame() {
+        if (decodedFrame == null) {
+            decodedFrame = DecodedFrame.decode(originalMessage.getVariableDataResponse());
+        }
+        return decodedFrame;
     }
 
     public String getDeviceId() {
@@ -57,12 +78,8 @@ public class WMBusDevice {
             return new ManufacturerData(originalMessage.getVariableDataResponse().getManufacturerData());
         }
 
-        for (DataRecord record : originalMessage.getVariableDataResponse().getDataRecords()) {
-            if (recordType.matches(record)) {
-                return record;
-            }
-        }
-        return null;
+        return originalMessage.getVariableDataResponse().findDataRecord(recordType.getDib(), recordType.getVib(),
+                recordType.getRecordKey());
     }
 
     public DataRecord findRecord(byte[] dib, byte[] vib) {
@@ -74,7 +91,19 @@ public class WMBusDevice {
     }
 
     public String getDeviceAddress() {
-        return HexUtils.bytesToHex(originalMessage.getSecondaryAddress().asByteArray());
+        if (deviceAddress == null) {
+            deviceAddress = HexUtils.bytesToHex(originalMessage.getSecondaryAddress().asByteArray());
+        }
+        return deviceAddress;
+    }
+
+    /**
+     * Binary form of device address which is cheap to compare and hash.
+     *
+     * @return Secondary address of device packed into long.
+     */
+    public long getDeviceAddressKey() {
+        return originalMessage.getSecondaryAddress().asLong();
     }
 
     public String getDeviceType() {
@@ -0,0 +1,28 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.wmbus.config;
+
+/**
+ * Setting describing how numeric channel states received within minimum update interval of a thing are combined into
+ * state sent when interval is over.
+ *
+ * @author Łukasz Dywicki - Initial contribution
+ */
+public enum UpdateAggregation {
+
+    LAST,
+    MIN,
+    MAX,
+    MEAN
+
+}
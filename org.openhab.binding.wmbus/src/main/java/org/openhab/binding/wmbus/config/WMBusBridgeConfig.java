@@ -22,6 +22,7 @@ public class WMBusBridgeConfig {
     public String encryptionKeys;
     public String deviceIDFilter;
     public DateFieldMode dateFieldMode = DateFieldMode.DATE_TIME;
+    public int processingLanes = 1;
 
     public int[] getDeviceIDFilter() {
         String[] ids = deviceIDFilter.split(";");
@@ -12,16 +12,12 @@
  */
 package org.openhab.binding.wmbus.config;
 
-import org.openmuc.jmbus.wireless.WMBusMode;
-
 /**
  * A specialized version of configuration of serial devices - USB sticks.
  *
  * @author Łukasz Dywicki - Initial contribution
  */
-public class WMBusSerialBridgeConfig extends WMBusBridgeConfig {
+public class WMBusSerialBridgeConfig extends WMBusStickBridgeConfig {
 
-    public StickModel stickModel;
     public String serialDevice;
-    public WMBusMode radioMode;
 }
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.wmbus.config;
+
+import org.openmuc.jmbus.wireless.WMBusConnection;
+import org.openmuc.jmbus.wireless.WMBusConnection.OverflowPolicy;
+import org.openmuc.jmbus.wireless.WMBusMode;
+
+/**
+ * Configuration of radio module, regardless of the way it is attached.
+ *
+ * @author Łukasz Dywicki - Initial contribution
+ */
+public class WMBusStickBridgeConfig extends WMBusBridgeConfig {
+
+    public StickModel stickModel;
+    public WMBusMode radioMode;
+    public int queueCapacity = WMBusConnection.DEFAULT_QUEUE_CAPACITY;
+    public OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+}
@@ -18,6 +18,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.wmbus.RecordType;
 import org.openhab.binding.wmbus.UnitRegistry;
 import org.openhab.binding.wmbus.WMBusDevice;
@@ -39,7 +40,6 @@ import org.openhab.core.types.State;
 import org.openhab.core.util.HexUtils;
 import org.openhab.io.transport.mbus.wireless.KeyStorage;
 import org.openmuc.jmbus.DataRecord;
-import org.openmuc.jmbus.VariableDataStructure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,10 +71,8 @@ public class DynamicWMBusThingHandler<T extends WMBusDevice> extends WMBusDevice
     @Override
     public void onChangedWMBusDevice(WMBusAdapter adapter, WMBusDevice receivedDevice) {
         if (receivedDevice.getDeviceAddress().equals(deviceAddress)) {
-            VariableDataStructure response = receivedDevice.getOriginalMessage().getVariableDataResponse();
-
             List<Channel> channels = new ArrayList<>();
-            for (DataRecord record : response.getDataRecords()) {
+            for (DataRecord record : receivedDevice.getDecodedFrame().getRecords()) {
                 Optional<ChannelTypeUID> typeId = WMBusChannelTypeProvider.getChannelType(record);
                 Optional<Channel> channel = typeId.map(type -> thing.getChannel(type.getId()));
 
@@ -122,29 +120,27 @@ public class DynamicWMBusThingHandler<T extends WMBusDevice> extends WMBusDevice
     public void handleCommand(@NonNull ChannelUID channelUID, @NonNull Command command) {
         logger.trace("Received command {} for channel {}", command, channelUID);
         if (wmbusDevice != null && command == RefreshType.REFRESH) {
-            Optional<Map<String, String>> properties = Optional.ofNullable(thing.getChannel(channelUID.getId()))
-                    .map(ch -> ch.getProperties());
-
-            Optional<byte[]> dib = properties.map(map -> map.get(CHANNEL_PROPERTY_DIB)).map(HexUtils::hexToBytes);
-            Optional<byte[]> vib = properties.map(map -> map.get(CHANNEL_PROPERTY_VIB)).map(HexUtils::hexToBytes);
-
-            if (dib.isPresent() && vib.isPresent()) {
-                RecordType recordType = new RecordType(dib.get(), vib.get());
-                DataRecord record = wmbusDevice.findRecord(recordType);
-
-                if (record != null) {
-                    State newState = unitRegistry.lookup(record.getUnit())
-                            .map(unit -> new QuantityType<>(record.getScaledDataValue(), unit)).map(State.class::cast)
-                            .orElseGet(() -> convertRecordData(record));
-
-                    logger.trace("Assigning new state {} to channel {}", newState, channelUID.getId());
-                    updateState(channelUID.getId(), newState);
-                } else {
-                    logger.warn("Could not read value of record {} in received frame", recordType);
-                }
-            } else {
+            if (!refreshRecordChannel(channelUID)) {
                 logger.warn("Unknown channel {}, not supported by {}", channelUID, thing);
             }
         }
     }
+
+    @Override
+    protected @Nullable RecordType getRecordType(Channel channel) {
+        Map<String, String> properties = channel.getProperties();
+        String dib = properties.get(CHANNEL_PROPERTY_DIB);
+        String vib = properties.get(CHANNEL_PROPERTY_VIB);
+
+        if (dib == null || vib == null) {
+            return null;
+        }
+        return new RecordType(HexUtils.hexToBytes(dib), HexUtils.hexToBytes(vib));
+    }
+
+    @Override
+    protected State convertRecord(DataRecord record) {
+        return unitRegistry.lookup(record.getUnit()).map(unit -> new QuantityType<>(record.getScaledDataValue(), unit))
+                .map(State.class::cast).orElseGet(() -> convertRecordData(record));
+    }
 }
@@ -15,11 +15,13 @@ package org.openhab.binding.wmbus.device.generic;
 import java.util.Map;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.wmbus.RecordType;
 import org.openhab.binding.wmbus.UnitRegistry;
 import org.openhab.binding.wmbus.WMBusDevice;
 import org.openhab.binding.wmbus.handler.WMBusDeviceHandler;
 import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.thing.Channel;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.types.Command;
@@ -52,26 +54,21 @@ public class GenericWMBusThingHandler<T extends WMBusDevice> extends WMBusDevice
     @Override
     public void handleCommand(@NonNull ChannelUID channelUID, @NonNull Command command) {
         logger.trace("Received command {} for channel {}", command, channelUID);
-        if (command == RefreshType.REFRESH) {
-            if (wmbusDevice != null) {
-                RecordType recordType = channelMapping.get(channelUID.getId());
-                if (recordType != null) {
-                    DataRecord record = wmbusDevice.findRecord(recordType);
-
-                    if (record != null) {
-                        State newState = unitRegistry.lookup(record.getUnit())
-                                .map(unit -> new QuantityType<>(record.getScaledDataValue(), unit))
-                                .map(State.class::cast).orElseGet(() -> convertRecordData(record));
-
-                        logger.trace("Assigning new state {} to channel {}", newState, channelUID.getId());
-                        updateState(channelUID.getId(), newState);
-                    } else {
-                        logger.warn("Could not read value of record {} in received frame", recordType);
-                    }
-                } else {
-                    logger.warn("Unown channel {}, not supported by {}", channelUID, thing);
-                }
+        if (command == RefreshType.REFRESH && wmbusDevice != null) {
+            if (!refreshRecordChannel(channelUID)) {
+                logger.warn("Unown channel {}, not supported by {}", channelUID, thing);
             }
         }
     }
+
+    @Override
+    protected @Nullable RecordType getRecordType(Channel channel) {
+        return channelMapping.get(channel.getUID().getId());
+    }
+
+    @Override
+    protected State convertRecord(DataRecord record) {
+        return unitRegistry.lookup(record.getUnit()).map(unit -> new QuantityType<>(record.getScaledDataValue(), unit))
+                .map(State.class::cast).orElseGet(() -> convertRecordData(record));
+    }
 }
@@ -13,10 +13,12 @@
 package org.openhab.binding.wmbus.device.techem.decoder;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.openhab.binding.wmbus.WMBusDevice;
 import org.openhab.binding.wmbus.device.techem.TechemBindingConstants;
 import org.openhab.binding.wmbus.device.techem.TechemDevice;
+import org.openmuc.jmbus.wireless.WMBusMessage;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +40,9 @@ public class CompositeTechemFrameDecoder implements TechemFrameDecoder<TechemDev
             new TechemWaterMeterFrameDecoder(TechemBindingConstants._68TCH116114_16, -1),
             new TechemWaterMeterFrameDecoder(TechemBindingConstants._68TCH149114_16, -1));
 
+    // same frame is passed to discovery participant and thing handler, we keep outcome of last decoding for them
+    private final AtomicReference<DecodingResult> lastResult = new AtomicReference<>();
+
     @Override
     public boolean supports(String deviceVariant) {
         for (TechemFrameDecoder<?> decoder : decoders) {
@@ -54,6 +59,18 @@ public class CompositeTechemFrameDecoder implements TechemFrameDecoder<TechemDev
         if (device instanceof TechemDevice) {
             return (TechemDevice) device;
         }
+
+        DecodingResult last = lastResult.get();
+        if (last != null && last.message == device.getOriginalMessage()) {
+            return last.device;
+        }
+
+        TechemDevice result = doDecode(device);
+        lastResult.set(new DecodingResult(device.getOriginalMessage(), result));
+        return result;
+    }
+
+    private TechemDevice doDecode(WMBusDevice device) {
         TechemDevice result = null;
         // TODO failing test: wrong water meter returned?
         for (TechemFrameDecoder<?> decoder : decoders) {
@@ -79,4 +96,14 @@ public class CompositeTechemFrameDecoder implements TechemFrameDecoder<TechemDev
 
         return null;
     }
+
+    private static class DecodingResult {
+        final WMBusMessage message;
+        final TechemDevice device;
+
+        DecodingResult(WMBusMessage message, TechemDevice device) {
+            this.message = message;
+            this.device = device;
+        }
+    }
 }
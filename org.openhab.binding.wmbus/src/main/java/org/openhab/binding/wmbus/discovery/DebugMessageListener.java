@@ -49,7 +49,7 @@ public class DebugMessageListener implements WMBusMessageListener {
                 VariableDataStructure vdr = device.getOriginalMessage().getVariableDataResponse();
 
                 if (vdr.getEncryptionMode() == EncryptionMode.NONE) {
-                    vdr.decode();
+                    device.decode();
 
                     logger.debug(
                             "Received telegram ({}): access number: {}, status: {}, encryption mode: {}, number of encrypted blocks: {}",
@@ -57,7 +57,7 @@ public class DebugMessageListener implements WMBusMessageListener {
                             vdr.getNumberOfEncryptedBlocks());
                     logger.debug("Message in hex: {}", HexUtils.bytesToHex(device.getOriginalMessage().asBlob()));
 
-                    for (DataRecord record : vdr.getDataRecords()) {
+                    for (DataRecord record : device.getDecodedFrame().getRecords()) {
                         logger.debug("> record: {}", record.toString());
                     }
                 } else {
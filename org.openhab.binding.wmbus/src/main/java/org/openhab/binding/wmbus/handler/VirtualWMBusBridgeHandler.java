@@ -57,9 +57,11 @@ public class VirtualWMBusBridgeHandler extends WMBusBridgeHandlerBase {
         logger.debug("WMBusBridgeHandler: initialize()");
 
         updateStatus(ThingStatus.UNKNOWN);
+        startHousekeeping();
         wmbusReceiver = new WMBusReceiver(this);
 
         WMBusBridgeConfig config = getConfigAs(WMBusBridgeConfig.class);
+        configureProcessingLanes(config.processingLanes);
         if (config.deviceIDFilter == null || config.deviceIDFilter.trim().isEmpty()) {
             logger.debug("Device ID filter is empty.");
         } else {
@@ -24,16 +24,18 @@ import java.util.concurrent.TimeUnit;
 
 import org.openhab.binding.wmbus.config.StickModel;
 import org.openhab.binding.wmbus.config.WMBusSerialBridgeConfig;
+import org.openhab.binding.wmbus.config.WMBusStickBridgeConfig;
 import org.openhab.binding.wmbus.internal.WMBusReceiver;
 import org.openhab.core.config.core.status.ConfigStatusMessage;
 import org.openhab.core.thing.Bridge;
 import org.openhab.core.thing.ThingStatus;
 import org.openhab.core.thing.ThingStatusDetail;
 import org.openhab.io.transport.mbus.wireless.KeyStorage;
+import org.openmuc.jmbus.wireless.ReceiverStatistics;
 import org.openmuc.jmbus.wireless.WMBusConnection;
 import org.openmuc.jmbus.wireless.WMBusConnection.WMBusManufacturer;
 import org.openmuc.jmbus.wireless.WMBusConnection.WMBusSerialBuilder;
-import org.openmuc.jmbus.wireless.WMBusMode;
+import org.openmuc.jmbus.wireless.WMBusListener;
 
 /**
  * The {@link WMBusBridgeHandler} class defines This class represents the WMBus bridge and handles general events for
@@ -45,6 +47,8 @@ import org.openmuc.jmbus.wireless.WMBusMode;
 public class WMBusBridgeHandler extends WMBusBridgeHandlerBase {
 
     private ScheduledFuture<?> initFuture;
+    private ScheduledFuture<?> statisticsFuture;
+    private long droppedFrames;
     private WMBusConnection wmbusConnection;
 
     public WMBusBridgeHandler(Bridge bridge, KeyStorage keyStorage) {
@@ -54,27 +58,85 @@ public class WMBusBridgeHandler extends WMBusBridgeHandlerBase {
     @Override
     public Collection<ConfigStatusMessage> getConfigStatus() {
         List<ConfigStatusMessage> messages = new ArrayList<>();
-        WMBusSerialBridgeConfig config = getConfigAs(WMBusSerialBridgeConfig.class);
+        WMBusStickBridgeConfig config = getStickConfig();
 
         // check stick model
         if (config.stickModel == null) {
             messages.add(ConfigStatusMessage.Builder.error(CONFKEY_STICK_MODEL)
                     .withMessageKeySuffix(CONFKEY_STICK_MODEL).build());
         }
-        // check serial device name
-        if (config.serialDevice == null) {
-            messages.add(ConfigStatusMessage.Builder.error(CONFKEY_INTERFACE_NAME)
-                    .withMessageKeySuffix(CONFKEY_INTERFACE_NAME).build());
-        }
+        validateConnectionConfig(config, messages);
         // check radio mode
         if (config.radioMode == null) {
             messages.add(ConfigStatusMessage.Builder.error(CONFKEY_RADIO_MODE).withMessageKeySuffix(CONFKEY_RADIO_MODE)
                     .build());
         }
+        // check receive queue
+        if (config.queueCapacity < 1) {
+            messages.add(ConfigStatusMessage.Builder.error(CONFKEY_QUEUE_CAPACITY)
+                    .withMessageKeySuffix(CONFKEY_QUEUE_CAPACITY).build());
+        }
 
         return messages;
     }
 
+    /**
+     * Returns configuration of this bridge.
+     *
+     * @return bridge configuration.
+     */
+    protected WMBusStickBridgeConfig getStickConfig() {
+        return getConfigAs(WMBusSerialBridgeConfig.class);
+    }
+
+    /**
+     * Checks settings specific to the way radio module is attached.
+     *
+     * @param config Bridge configuration returned by {@link #getStickConfig()}.
+     * @param messages Messages to add validation errors to.
+     */
+    protected void validateConnectionConfig(WMBusStickBridgeConfig config, List<ConfigStatusMessage> messages) {
+        // check serial device name
+        if (((WMBusSerialBridgeConfig) config).serialDevice == null) {
+            messages.add(ConfigStatusMessage.Builder.error(CONFKEY_INTERFACE_NAME)
+                    .withMessageKeySuffix(CONFKEY_INTERFACE_NAME).build());
+        }
+    }
+
+    /**
+     * Builds and opens connection to the radio module.
+     *
+     * @param manufacturer Manufacturer of radio module.
+     * @param listener Listener of received messages.
+     * @param config Bridge configuration returned by {@link #getStickConfig()}.
+     * @return Opened connection.
+     * @throws IOException When connection could not be opened.
+     */
+    protected WMBusConnection openConnection(WMBusManufacturer manufacturer, WMBusListener listener,
+            WMBusStickBridgeConfig config) throws IOException {
+        String interfaceName = ((WMBusSerialBridgeConfig) config).serialDevice;
+        logger.debug("Opening wmbus stick {} serial port {} in mode {}", config.stickModel, interfaceName,
+                config.radioMode);
+
+        WMBusSerialBuilder connectionBuilder = new WMBusSerialBuilder(manufacturer, listener, interfaceName);
+
+        logger.debug("Setting WMBus radio mode to {}", config.radioMode.toString());
+        connectionBuilder.setMode(config.radioMode);
+        connectionBuilder.setTimeout(1000); // infinite
+        logger.debug("Setting receive queue capacity to {} with overflow policy {}", config.queueCapacity,
+                config.overflowPolicy);
+        connectionBuilder.setQueueCapacity(Math.max(1, config.queueCapacity));
+        if (config.overflowPolicy != null) {
+            connectionBuilder.setOverflowPolicy(config.overflowPolicy);
+        }
+        // connectionBuilder.setTimeout(0); // infinite
+
+        logger.debug("Building/opening connection");
+        logger.debug(
+                "NOTE: if initialization does not progress from here, check systemd journal for Execptions -- probably native lib still loaded by another ClassLoader = previous version or instance of WMBus binding -> restart OpenHAB");
+        return connectionBuilder.build();
+    }
+
     /**
      * Connects to the WMBus radio module and updates bridge status.
      *
@@ -84,17 +146,14 @@ public class WMBusBridgeHandler extends WMBusBridgeHandlerBase {
     public void initialize() {
         logger.debug("WMBusBridgeHandler: initialize()");
 
-        WMBusSerialBridgeConfig config = getConfigAs(WMBusSerialBridgeConfig.class);
+        WMBusStickBridgeConfig config = getStickConfig();
         updateStatus(ThingStatus.UNKNOWN);
+        startHousekeeping();
+        configureProcessingLanes(config.processingLanes);
         initFuture = scheduler.schedule(() -> {
             // set up WMBus receiver = handler for radio telegrams
             if (wmbusReceiver == null) {
                 StickModel stickModel = config.stickModel;
-                String interfaceName = config.serialDevice;
-                WMBusMode radioMode = config.radioMode;
-
-                // connect to the radio module / open WMBus connection
-                logger.debug("Opening wmbus stick {} serial port {} in mode {}", stickModel, interfaceName, radioMode);
 
                 WMBusManufacturer wmBusManufacturer = parseManufacturer(stickModel.name().toUpperCase());
                 if (wmBusManufacturer == null) {
@@ -115,24 +174,14 @@ public class WMBusBridgeHandler extends WMBusBridgeHandlerBase {
                     wmbusReceiver.setFilterIDs(config.getDeviceIDFilter());
                 }
 
-                WMBusSerialBuilder connectionBuilder = new WMBusSerialBuilder(wmBusManufacturer, wmbusReceiver,
-                        interfaceName);
-
-                logger.debug("Setting WMBus radio mode to {}", radioMode.toString());
-                connectionBuilder.setMode(radioMode);
-                connectionBuilder.setTimeout(1000); // infinite
-                // connectionBuilder.setTimeout(0); // infinite
-
                 try {
-                    logger.debug("Building/opening connection");
-                    logger.debug(
-                            "NOTE: if initialization does not progress from here, check systemd journal for Execptions -- probably native lib still loaded by another ClassLoader = previous version or instance of WMBus binding -> restart OpenHAB");
                     if (wmbusConnection != null) {
                         logger.debug("Connection already set, closing old");
                         wmbusConnection.close();
                         wmbusConnection = null;
                     }
-                    wmbusConnection = connectionBuilder.build();
+                    // connect to the radio module / open WMBus connection
+                    wmbusConnection = openConnection(wmBusManufacturer, wmbusReceiver, config);
                 } catch (IOException e) {
                     logger.error("Cannot open WMBus device. Connection builder returned: " + e.getMessage());
                     updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.CONFIGURATION_ERROR,
@@ -140,7 +189,7 @@ public class WMBusBridgeHandler extends WMBusBridgeHandlerBase {
                     return;
                 }
 
-                logger.debug("Connected to WMBus serial port");
+                logger.debug("Connected to WMBus radio module");
 
                 // close WMBus connection on shutdown
                 logger.trace("Setting shutdown hook");
@@ -161,6 +210,11 @@ public class WMBusBridgeHandler extends WMBusBridgeHandlerBase {
                     }
                 });
 
+                if (statisticsFuture == null) {
+                    statisticsFuture = scheduler.scheduleWithFixedDelay(this::logReceiverStatistics, 60, 60,
+                            TimeUnit.SECONDS);
+                }
+
                 // success
                 logger.debug("WMBusBridgeHandler: Initialization done! Setting bridge online");
                 updateStatus(ThingStatus.ONLINE);
@@ -168,6 +222,21 @@ public class WMBusBridgeHandler extends WMBusBridgeHandlerBase {
         }, 0, TimeUnit.SECONDS);
     }
 
+    private void logReceiverStatistics() {
+        WMBusConnection connection = wmbusConnection;
+        if (connection == null) {
+            return;
+        }
+
+        ReceiverStatistics statistics = connection.getReceiverStatistics();
+        logger.debug("Receiver of bridge {}: {}", getThing().getUID(), statistics);
+        if (statistics.getDroppedNotifications() > droppedFrames) {
+            logger.warn("Bridge {} dropped {} frames since last check, frames are received faster than processed",
+                    getThing().getUID(), statistics.getDroppedNotifications() - droppedFrames);
+        }
+        droppedFrames = statistics.getDroppedNotifications();
+    }
+
     private static WMBusManufacturer parseManufacturer(String manufacturer) {
         switch (manufacturer.toLowerCase()) {
             case MANUFACTURER_AMBER:
@@ -204,5 +273,10 @@ public class WMBusBridgeHandler extends WMBusBridgeHandlerBase {
             initFuture.cancel(true);
             initFuture = null;
         }
+
+        if (statisticsFuture != null) {
+            statisticsFuture.cancel(true);
+            statisticsFuture = null;
+        }
     }
 }
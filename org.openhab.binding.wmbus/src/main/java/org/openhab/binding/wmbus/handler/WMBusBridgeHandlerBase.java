@@ -14,9 +14,6 @@ package org.openhab.binding.wmbus.handler;
 
 import static org.openhab.binding.wmbus.WMBusBindingConstants.*;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -27,13 +24,18 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.openhab.binding.wmbus.DecodedFrame;
 import org.openhab.binding.wmbus.WMBusBindingConstants;
 import org.openhab.binding.wmbus.WMBusDevice;
 import org.openhab.binding.wmbus.config.DateFieldMode;
 import org.openhab.binding.wmbus.config.WMBusBridgeConfig;
+import org.openhab.binding.wmbus.internal.DeadlineQueue;
+import org.openhab.binding.wmbus.internal.DecodeOutcomeCache;
+import org.openhab.binding.wmbus.internal.DecodeOutcomeCache.Outcome;
+import org.openhab.binding.wmbus.internal.DeviceTable;
+import org.openhab.binding.wmbus.internal.ProcessingLanes;
 import org.openhab.binding.wmbus.internal.WMBusReceiver;
 import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.library.types.StringType;
@@ -46,6 +48,7 @@ import org.openhab.core.thing.binding.ThingHandler;
 import org.openhab.core.types.Command;
 import org.openhab.core.util.HexUtils;
 import org.openhab.io.transport.mbus.wireless.KeyStorage;
+import org.openhab.io.transport.mbus.wireless.KeyStorageListener;
 import org.openmuc.jmbus.DecodingException;
 import org.openmuc.jmbus.wireless.VirtualWMBusMessageHelper;
 import org.openmuc.jmbus.wireless.WMBusMessage;
@@ -61,24 +64,73 @@ import org.slf4j.LoggerFactory;
 public abstract class WMBusBridgeHandlerBase extends ConfigStatusBridgeHandler implements WMBusAdapter {
 
     private static final ScheduledExecutorService SCHEDULER = ThreadPoolManager.getScheduledPool("wmbus");
+    // devices of all bridges which are expected to send frame, marked offline when they miss their deadline
+    private static final DeadlineQueue<WMBusDeviceHandler<?>> OFFLINE_DEADLINES = new DeadlineQueue<>(SCHEDULER,
+            WMBusDeviceHandler::getOfflineDeadline, WMBusDeviceHandler::checkStatus);
 
     private static final String DEVICE_STATE_ADDED = "added";
     private static final String DEVICE_STATE_CHANGED = "changed";
 
+    /**
+     * Number of devices not claimed by things which are remembered by bridge.
+     */
+    public static final int KNOWN_DEVICES_CAPACITY = 10000;
+
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final KeyStorage keyStorage;
-    private final Map<String, WMBusDevice> knownDevices = new ConcurrentHashMap<>();
-    private final Set<WMBusDeviceHandler<WMBusDevice>> handlers = Collections.synchronizedSet(new HashSet<>());
+    // outcome of decoding frames which bridge could not decode, forgotten when key of device changes
+    private final DecodeOutcomeCache decodeOutcomes = new DecodeOutcomeCache();
+    private final KeyStorageListener keyStorageListener = address -> decodeOutcomes.invalidate(address.asLong());
+    private final long[] loggedOutcomes = new long[Outcome.values().length];
+    private final Set<WMBusDeviceHandler<WMBusDevice>> handlers = ConcurrentHashMap.newKeySet();
+    // handlers indexed by binary form of device address, lets us skip walking over all handlers for each frame
+    private final Map<Long, Set<WMBusDeviceHandler<WMBusDevice>>> handlerIndex = new ConcurrentHashMap<>();
+    // last frame of each device, devices without thing are forgotten together with their discovery results
+    private final DeviceTable<WMBusDevice> knownDevices = new DeviceTable<>(KNOWN_DEVICES_CAPACITY,
+            DEFAULT_TIME_TO_LIVE, TimeUnit.SECONDS, addressKey -> handlerIndex.containsKey(addressKey));
     private final List<WMBusMessageListener> wmBusMessageListeners = new CopyOnWriteArrayList<>();
     protected WMBusReceiver wmbusReceiver;
+    private volatile ProcessingLanes lanes;
     private ScheduledFuture<?> statusFuture;
     private AtomicBoolean updateFrames = new AtomicBoolean(false);
 
     public WMBusBridgeHandlerBase(Bridge bridge, KeyStorage keyStorage) {
         super(bridge);
         this.keyStorage = keyStorage;
-        this.statusFuture = SCHEDULER.scheduleAtFixedRate(new StatusRunnable(handlers), 60, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts housekeeping of bridge: forgetting devices which were not seen for too long and forgetting outcome of
+     * decoding when key of device changes. Must be called by {@link #initialize()} of bridge handlers, housekeeping
+     * stops in {@link #dispose()}, so it survives reconfiguration of bridge.
+     */
+    protected synchronized void startHousekeeping() {
+        if (keyStorage != null) {
+            // initialize might be called again without dispose, see reset()
+            keyStorage.removeListener(keyStorageListener);
+            keyStorage.addListener(keyStorageListener);
+        }
+        if (statusFuture == null) {
+            statusFuture = SCHEDULER.scheduleAtFixedRate(() -> {
+                int expired = knownDevices.expire();
+                if (expired > 0) {
+                    logger.debug("Forgot {} devices which were not seen for {} seconds", expired,
+                            DEFAULT_TIME_TO_LIVE);
+                }
+                logDecodeStatistics();
+            }, 60, 60, TimeUnit.SECONDS);
+        }
+    }
+
+    private synchronized void stopHousekeeping() {
+        if (statusFuture != null) {
+            statusFuture.cancel(true);
+            statusFuture = null;
+        }
+        if (keyStorage != null) {
+            keyStorage.removeListener(keyStorageListener);
+        }
     }
 
     @Override
@@ -89,9 +141,30 @@ public abstract class WMBusBridgeHandlerBase extends ConfigStatusBridgeHandler i
 
     @Override
     public void dispose() {
-        if (statusFuture != null) {
-            statusFuture.cancel(true);
-            statusFuture = null;
+        stopHousekeeping();
+        handlers.forEach(OFFLINE_DEADLINES::cancel);
+
+        configureProcessingLanes(1);
+    }
+
+    /**
+     * Sets number of lanes used to process received frames. Frames of one device are always processed by the same lane,
+     * so they are handled in order in which they were received, while frames of different devices can be processed in
+     * parallel. With single lane frames are processed by thread which received them.
+     *
+     * @param count Number of processing lanes.
+     */
+    protected void configureProcessingLanes(int count) {
+        ProcessingLanes previous = lanes;
+        if (count > 1) {
+            logger.debug("Processing frames received by bridge {} in {} lanes", getThing().getUID(), count);
+            lanes = new ProcessingLanes("wmbus-" + getThing().getUID().getId(), count);
+        } else {
+            lanes = null;
+        }
+
+        if (previous != null) {
+            previous.shutdown();
         }
     }
 
@@ -105,15 +178,14 @@ public abstract class WMBusBridgeHandlerBase extends ConfigStatusBridgeHandler i
         logger.trace("register listener: Success");
         if (result) {
             // inform the listener initially about all devices and their states
-            for (WMBusDevice device : knownDevices.values()) {
-                wmBusMessageListener.onNewWMBusDevice(this, device);
-            }
+            knownDevices.forEachValue(device -> wmBusMessageListener.onNewWMBusDevice(this, device));
         }
         return result;
     }
 
     /**
-     * Iterate through wmBusMessageListeners and notify them about a newly received message.
+     * Iterate through wmBusMessageListeners and notify them about a newly received message. Thing handlers configured
+     * for given device address are notified afterwards.
      *
      * @param device
      */
@@ -121,103 +193,188 @@ public abstract class WMBusBridgeHandlerBase extends ConfigStatusBridgeHandler i
         logger.trace("bridge: notify message listeners: sending to all");
         WMBusDevice decrypt = decrypt(device);
 
-        // below we append thing handlers which are configured for given device address
-        ArrayList<WMBusMessageListener> listeners = new ArrayList<>(this.wmBusMessageListeners);
-        handlers.stream().filter(h -> device.getDeviceAddress().equals(h.getDeviceAddress()))
-                .collect(Collectors.toCollection(() -> listeners));
-
-        for (WMBusMessageListener wmBusMessageListener : listeners) {
-            try {
-                switch (type) {
-                    case DEVICE_STATE_ADDED: {
-                        wmBusMessageListener.onNewWMBusDevice(this, decrypt);
-                        break;
-                    }
-                    case DEVICE_STATE_CHANGED: {
-                        wmBusMessageListener.onChangedWMBusDevice(this, decrypt);
-                        break;
-                    }
-                    default: {
-                        throw new IllegalArgumentException(
-                                "Could not notify wmBusMessageListeners for unknown event type " + type);
-                    }
-                }
-            } catch (Exception e) {
-                logger.error("An exception occurred while notifying the WMBusMessageListener", e);
+        for (WMBusMessageListener wmBusMessageListener : wmBusMessageListeners) {
+            notifyWMBusMessageListener(wmBusMessageListener, decrypt, type);
+        }
+
+        Set<WMBusDeviceHandler<WMBusDevice>> deviceHandlers = handlerIndex.get(device.getDeviceAddressKey());
+        if (deviceHandlers != null) {
+            for (WMBusDeviceHandler<WMBusDevice> deviceHandler : deviceHandlers) {
+                notifyWMBusMessageListener(deviceHandler, decrypt, type);
+                // handler which went offline is watched again once it receives frame
+                OFFLINE_DEADLINES.schedule(deviceHandler);
             }
         }
 
         logger.trace("bridge: notify message listeners: return");
     }
 
+    private void notifyWMBusMessageListener(WMBusMessageListener wmBusMessageListener, WMBusDevice device,
+            String type) {
+        try {
+            switch (type) {
+                case DEVICE_STATE_ADDED: {
+                    wmBusMessageListener.onNewWMBusDevice(this, device);
+                    break;
+                }
+                case DEVICE_STATE_CHANGED: {
+                    wmBusMessageListener.onChangedWMBusDevice(this, device);
+                    break;
+                }
+                default: {
+                    throw new IllegalArgumentException(
+                            "Could not notify wmBusMessageListeners for unknown event type " + type);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("An exception occurred while notifying the WMBusMessageListener", e);
+        }
+    }
+
     /**
      * Because we do not add encryption keys to connection and they are propagated from connection down to received
      * frame and its parsing logic we need to inject encryption keys after message is received and before its first use
      * to avoid troubles.
      * Yes, we do it manually because jmbus does not offer any API/SPI for that.
      *
+     * Frame is decoded only once, outcome of decoding is kept in {@link WMBusDevice#getDecodedFrame()} so further
+     * receivers do not need to repeat this work. Devices which frames could not be decrypted are remembered, so their
+     * further frames are forwarded without another attempt until key of device changes.
+     *
      * @param device Incoming frame.
      * @return Decrypted frame or original (unencrypted) frame when parsing fails.
      */
     protected WMBusDevice decrypt(WMBusDevice device) {
-        try {
-            device.decode();
-        } catch (DecodingException parseException) {
-            if (parseException.getMessage().startsWith("Unable to decode encrypted payload")) {
-                try {
-                    WMBusMessage message = VirtualWMBusMessageHelper.decode(device.getOriginalMessage().asBlob(),
-                            device.getOriginalMessage().getRssi(), keyStorage.toMap());
-                    message.getVariableDataResponse().decode();
-                    logger.info("Message from {} successfully decrypted, forwarding it to receivers",
-                            device.getDeviceAddress());
-                    return new WMBusDevice(message, this);
-                } catch (DecodingException decodingException) {
-                    logger.info(
-                            "Could not decode frame, probably we still miss encryption key, forwarding frame in original form. {}, {}, {}",
-                            decodingException.getMessage(), device.getOriginalMessage().toString(),
-                            keyStorage.toMap().toString());
-                } catch (NoClassDefFoundError decodingException) {
-                    logger.info(
-                            "Could not decode frame, probably we still miss encryption key, forwarding frame in original form. {}",
-                            decodingException.getMessage());
-                }
-            } else if (parseException.getMessage().startsWith("Manufacturer specific CI:")
-                    || parseException.getMessage().startsWith("Unable to decode message with this CI Field")) {
+        DecodedFrame frame = device.getDecodedFrame();
+        switch (frame.getStatus()) {
+            case OK:
+                return device;
+            case NEEDS_KEY:
+                return decryptWithKeys(device);
+            case MANUFACTURER_CI:
+                decodeOutcomes.skipped(Outcome.MANUFACTURER_CI);
                 logger.debug("Found frame with manufacturer specific encoding, forwarding for futher processing.");
+                return device;
+            case UNSUPPORTED_CI:
+                decodeOutcomes.skipped(Outcome.UNSUPPORTED_CI);
+                logger.debug("Found frame with unsupported CI field, forwarding for futher processing.");
+                return device;
+            default:
+                logger.debug("Unexpected error while parsing frame, forwarding frame in original form",
+                        frame.getError().orElse(null));
+                return device;
+        }
+    }
+
+    private WMBusDevice decryptWithKeys(WMBusDevice device) {
+        long addressKey = device.getDeviceAddressKey();
+        Outcome knownOutcome = decodeOutcomes.lookup(addressKey);
+        if (knownOutcome != null) {
+            decodeOutcomes.skipped(knownOutcome);
+            logger.trace("Forwarding frame from {} in original form, earlier frames were not decrypted: {}",
+                    device.getDeviceAddress(), knownOutcome);
+            return device;
+        }
+
+        try {
+            WMBusMessage message = VirtualWMBusMessageHelper.decode(device.getOriginalMessage().asBlob(),
+                    device.getOriginalMessage().getRssi(), keyStorage.toMap());
+            WMBusDevice decrypted = new WMBusDevice(message, this);
+            DecodedFrame frame = decrypted.getDecodedFrame();
+            if (frame.isDecoded()) {
+                logger.debug("Message from {} successfully decrypted, forwarding it to receivers",
+                        device.getDeviceAddress());
+                return decrypted;
+            }
+
+            Outcome outcome = Outcome.of(frame.getStatus());
+            if (outcome == Outcome.NO_KEY || outcome == Outcome.WRONG_KEY) {
+                decodeOutcomes.put(addressKey, outcome);
+                logger.info(
+                        "Could not decrypt frame from {} ({}), forwarding this and further frames from it in original form until its key changes.",
+                        device.getDeviceAddress(), outcome);
             } else {
-                logger.debug("Unexpected error while parsing frame, forwarding frame in original form", parseException);
+                logger.debug("Could not decode frame from {}, forwarding frame in original form. {}",
+                        device.getDeviceAddress(), frame.getError().map(Throwable::getMessage).orElse(null));
             }
+        } catch (DecodingException decodingException) {
+            logger.debug("Could not decode frame from {}, forwarding frame in original form. {}",
+                    device.getDeviceAddress(), decodingException.getMessage());
+        } catch (NoClassDefFoundError decodingException) {
+            logger.info(
+                    "Could not decode frame, probably we still miss encryption key, forwarding frame in original form. {}",
+                    decodingException.getMessage());
         }
         return device;
     }
 
+    /**
+     * Returns number of received frames which were forwarded without decoding. Encrypted frames are counted when
+     * earlier frames of the same device could not be decrypted.
+     *
+     * @param outcome Outcome of decoding earlier frames.
+     * @return Number of frames.
+     */
+    public long getSkippedFrames(Outcome outcome) {
+        return decodeOutcomes.getSkipped(outcome);
+    }
+
+    private void logDecodeStatistics() {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+
+        boolean changed = false;
+        for (Outcome outcome : Outcome.values()) {
+            long skipped = decodeOutcomes.getSkipped(outcome);
+            changed |= loggedOutcomes[outcome.ordinal()] != skipped;
+            loggedOutcomes[outcome.ordinal()] = skipped;
+        }
+        if (changed) {
+            logger.debug(
+                    "Bridge {} forwarded frames without decoding: {} without key, {} with wrong key, {} with manufacturer CI, {} with unsupported CI",
+                    getThing().getUID(), loggedOutcomes[Outcome.NO_KEY.ordinal()],
+                    loggedOutcomes[Outcome.WRONG_KEY.ordinal()], loggedOutcomes[Outcome.MANUFACTURER_CI.ordinal()],
+                    loggedOutcomes[Outcome.UNSUPPORTED_CI.ordinal()]);
+        }
+    }
+
     @Override
     public void processMessage(WMBusDevice device) {
+        ProcessingLanes lanes = this.lanes;
+        if (lanes == null) {
+            handleMessage(device);
+        } else {
+            lanes.execute(device.getDeviceAddressKey(), () -> handleMessage(device));
+        }
+    }
+
+    private void handleMessage(WMBusDevice device) {
         if (updateFrames.get()) {
             StringType frame = StringType.valueOf(HexUtils.bytesToHex(device.getOriginalMessage().asBlob()));
             getCallback().stateUpdated(new ChannelUID(getUID(), WMBusBindingConstants.CHANNEL_LAST_FRAME), frame);
         }
         logger.trace("bridge: processMessage begin");
 
-        String deviceAddress = device.getDeviceAddress();
         String deviceState = DEVICE_STATE_ADDED;
-        if (knownDevices.containsKey(deviceAddress)) {
+        if (knownDevices.put(device.getDeviceAddressKey(), device) != null) {
             deviceState = DEVICE_STATE_CHANGED;
         }
-        knownDevices.put(deviceAddress, device);
         logger.trace("bridge processMessage: notifying listeners");
         notifyWMBusMessageListeners(device, deviceState);
         logger.trace("bridge: processMessage end");
     }
 
     public WMBusDevice getDeviceByAddress(String deviceAddress) {
-        logger.trace("bridge: get device by address: " + deviceAddress);
-        if (knownDevices.containsKey(deviceAddress)) {
+        logger.trace("bridge: get device by address: {}", deviceAddress);
+        Long addressKey = addressKey(deviceAddress);
+        WMBusDevice device = addressKey == null ? null : knownDevices.get(addressKey);
+        if (device != null) {
             logger.trace("bridge: found device");
         } else {
             logger.trace("bridge: device not found");
         }
-        return knownDevices.get(deviceAddress);
+        return device;
     }
 
     @Override
@@ -242,7 +399,19 @@ public abstract class WMBusBridgeHandlerBase extends ConfigStatusBridgeHandler i
     @Override
     public void childHandlerInitialized(@NonNull ThingHandler childHandler, @NonNull Thing childThing) {
         if (childHandler instanceof WMBusDeviceHandler) {
-            handlers.add((WMBusDeviceHandler<WMBusDevice>) childHandler);
+            WMBusDeviceHandler<WMBusDevice> deviceHandler = (WMBusDeviceHandler<WMBusDevice>) childHandler;
+            handlers.add(deviceHandler);
+            // frequency of updates might have been shortened, so deadline is taken again
+            OFFLINE_DEADLINES.cancel(deviceHandler);
+            OFFLINE_DEADLINES.schedule(deviceHandler);
+
+            Long addressKey = addressKey(deviceHandler.getDeviceAddress());
+            if (addressKey != null) {
+                handlerIndex.computeIfAbsent(addressKey, key -> ConcurrentHashMap.newKeySet()).add(deviceHandler);
+            } else {
+                logger.debug("Handler of thing {} has invalid device address {}, it will not receive frames",
+                        childThing.getUID(), deviceHandler.getDeviceAddress());
+            }
         }
     }
 
@@ -250,6 +419,32 @@ public abstract class WMBusBridgeHandlerBase extends ConfigStatusBridgeHandler i
     public void childHandlerDisposed(@NonNull ThingHandler childHandler, @NonNull Thing childThing) {
         if (childHandler instanceof WMBusDeviceHandler) {
             handlers.remove(childHandler);
+            OFFLINE_DEADLINES.cancel((WMBusDeviceHandler<?>) childHandler);
+
+            // handler already forgot its address at this point, so we need to find it in index
+            for (Long addressKey : handlerIndex.keySet()) {
+                handlerIndex.computeIfPresent(addressKey, (key, deviceHandlers) -> {
+                    deviceHandlers.remove(childHandler);
+                    return deviceHandlers.isEmpty() ? null : deviceHandlers;
+                });
+            }
+        }
+    }
+
+    /**
+     * Converts hex representation of device address into same form as {@link WMBusDevice#getDeviceAddressKey()}.
+     *
+     * @param deviceAddress Device address in hex form.
+     * @return Address packed into long or null if address is not valid.
+     */
+    private static Long addressKey(String deviceAddress) {
+        if (deviceAddress == null || deviceAddress.length() != 16) {
+            return null;
+        }
+        try {
+            return Long.parseUnsignedLong(deviceAddress, 16);
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 
@@ -263,18 +458,4 @@ public abstract class WMBusBridgeHandlerBase extends ConfigStatusBridgeHandler i
         return Optional.ofNullable(getConfigAs(WMBusBridgeConfig.class)).map(cfg -> cfg.dateFieldMode)
                 .orElse(DateFieldMode.DATE_TIME);
     }
-
-    static class StatusRunnable implements Runnable {
-
-        private final Set<WMBusDeviceHandler<WMBusDevice>> handlers;
-
-        public StatusRunnable(Set<WMBusDeviceHandler<WMBusDevice>> handlers) {
-            this.handlers = handlers;
-        }
-
-        @Override
-        public void run() {
-            handlers.stream().forEach(WMBusDeviceHandler::checkStatus);
-        }
-    }
 }
@@ -16,18 +16,28 @@ package org.openhab.binding.wmbus.handler;
 import static org.openhab.binding.wmbus.WMBusBindingConstants.*;
 
 import java.math.BigDecimal;
-import java.time.ZoneId;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.wmbus.RecordType;
 import org.openhab.binding.wmbus.WMBusBindingConstants;
 import org.openhab.binding.wmbus.WMBusDevice;
 import org.openhab.binding.wmbus.config.DateFieldMode;
+import org.openhab.binding.wmbus.config.UpdateAggregation;
+import org.openhab.binding.wmbus.internal.ChannelUpdateFilter;
 import org.openhab.binding.wmbus.internal.WMBusException;
 import org.openhab.core.config.core.Configuration;
 import org.openhab.core.library.types.DateTimeType;
@@ -35,6 +45,7 @@ import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.thing.Bridge;
 import org.openhab.core.thing.Channel;
+import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingStatus;
 import org.openhab.core.thing.ThingStatusDetail;
@@ -60,6 +71,9 @@ import org.slf4j.LoggerFactory;
 public abstract class WMBusDeviceHandler<T extends WMBusDevice> extends BaseThingHandler
         implements WMBusMessageListener {
 
+    // minimum time between log entries with update filter statistics
+    private static final long STATISTICS_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
     private final Logger logger = LoggerFactory.getLogger(WMBusDeviceHandler.class);
     private final KeyStorage keyStorage;
 
@@ -67,9 +81,20 @@ public abstract class WMBusDeviceHandler<T extends WMBusDevice> extends BaseThin
     private WMBusBridgeHandlerBase bridgeHandler;
     protected T wmbusDevice;
     protected Long lastUpdate;
-    private Long frequencyOfUpdates = WMBusBindingConstants.DEFAULT_DEVICE_FREQUENCY_OF_UPDATES;
+    // time of last frame or of initialization, in terms of System.nanoTime()
+    private volatile long lastSeen = System.nanoTime();
+    private volatile long frequencyOfUpdates = TimeUnit.MINUTES
+            .toNanos(WMBusBindingConstants.DEFAULT_DEVICE_FREQUENCY_OF_UPDATES);
     private ThingStatus status;
 
+    // channels mapped to data records and remaining ones, resolved when handler is initialized or thing is changed
+    private volatile Map<ChannelUID, RecordType> recordChannels = Collections.emptyMap();
+    private volatile List<ChannelUID> otherChannels = Collections.emptyList();
+
+    private volatile ChannelUpdateFilter updateFilter = new ChannelUpdateFilter(true, 0, TimeUnit.SECONDS,
+            UpdateAggregation.LAST);
+    private long statisticsLogged = System.nanoTime() - STATISTICS_INTERVAL;
+
     protected WMBusDeviceHandler(Thing thing) {
         this(thing, new MapKeyStorage());
     }
@@ -130,14 +155,149 @@ public abstract class WMBusDeviceHandler<T extends WMBusDevice> extends BaseThin
         this.status = status;
     }
 
+    /**
+     * Updates linked channels with values of received frame. Channels mapped to data records are updated in one pass,
+     * remaining ones receive {@link RefreshType#REFRESH} command.
+     */
     protected void triggerRefresh() {
         lastUpdate = System.currentTimeMillis();
+        lastSeen = System.nanoTime();
+
+        T device = wmbusDevice;
+        if (device != null) {
+            for (Entry<ChannelUID, RecordType> channel : recordChannels.entrySet()) {
+                if (isLinked(channel.getKey())) {
+                    updateRecordChannel(device, channel.getKey(), channel.getValue());
+                }
+            }
+        }
+        for (ChannelUID channelUID : otherChannels) {
+            if (isLinked(channelUID)) {
+                handleCommand(channelUID, RefreshType.REFRESH);
+            }
+        }
+
+        if (logger.isDebugEnabled() && lastSeen - statisticsLogged >= STATISTICS_INTERVAL) {
+            statisticsLogged = lastSeen;
+            logger.debug("Thing {} sent {} channel updates and suppressed {} since initialization",
+                    getThing().getUID(), getEmittedUpdates(), getSuppressedUpdates());
+        }
+    }
+
+    /**
+     * Updates channel mapped to data record with value of last received frame.
+     *
+     * @param channelUID Channel to update.
+     * @return True if channel is mapped to data record, false otherwise.
+     */
+    protected boolean refreshRecordChannel(ChannelUID channelUID) {
+        RecordType recordType = recordChannels.get(channelUID);
+        if (recordType == null) {
+            return false;
+        }
 
-        for (Channel curChan : getThing().getChannels()) {
-            handleCommand(curChan.getUID(), RefreshType.REFRESH);
+        T device = wmbusDevice;
+        if (device != null) {
+            updateRecordChannel(device, channelUID, recordType);
+        }
+        return true;
+    }
+
+    private void updateRecordChannel(T device, ChannelUID channelUID, RecordType recordType) {
+        DataRecord record = device.findRecord(recordType);
+        if (record != null) {
+            State newState = convertRecord(record);
+            logger.trace("Assigning new state {} to channel {}", newState, channelUID.getId());
+            updateState(channelUID, newState);
+        } else {
+            logger.warn("Could not read value of record {} in received frame", recordType);
         }
     }
 
+    /**
+     * Returns data record read by given channel. Channels with record are updated without going through
+     * {@link #handleCommand(ChannelUID, org.openhab.core.types.Command)}.
+     *
+     * @param channel Channel of thing.
+     * @return Type of record or null if channel is not mapped to data record.
+     */
+    protected @Nullable RecordType getRecordType(Channel channel) {
+        return null;
+    }
+
+    /**
+     * Creates state of channel mapped to data record.
+     *
+     * @param record Data record found in received frame.
+     * @return Channel state.
+     */
+    protected State convertRecord(DataRecord record) {
+        return convertRecordData(record);
+    }
+
+    private void resolveChannels() {
+        Map<ChannelUID, RecordType> recordChannels = new LinkedHashMap<>();
+        List<ChannelUID> otherChannels = new ArrayList<>();
+        for (Channel channel : getThing().getChannels()) {
+            RecordType recordType = getRecordType(channel);
+            if (recordType != null) {
+                recordChannels.put(channel.getUID(), recordType);
+            } else {
+                otherChannels.add(channel.getUID());
+            }
+        }
+        this.recordChannels = recordChannels;
+        this.otherChannels = otherChannels;
+    }
+
+    /**
+     * Sends channel state unless it is suppressed by update filter of thing.
+     */
+    @Override
+    protected void updateState(ChannelUID channelUID, State state) {
+        if (state == null) {
+            super.updateState(channelUID, state);
+            return;
+        }
+
+        State filtered = updateFilter.filter(channelUID.getId(), state, System.nanoTime());
+        if (filtered != null) {
+            super.updateState(channelUID, filtered);
+        }
+    }
+
+    @Override
+    public void channelLinked(ChannelUID channelUID) {
+        // new item must receive current state even if it did not change
+        updateFilter.forget(channelUID.getId());
+        super.channelLinked(channelUID);
+    }
+
+    /**
+     * Number of channel updates sent since handler was initialized.
+     *
+     * @return Number of updates.
+     */
+    public long getEmittedUpdates() {
+        return updateFilter.getEmitted();
+    }
+
+    /**
+     * Number of channel updates dropped since handler was initialized, because state did not change or minimum update
+     * interval did not pass.
+     *
+     * @return Number of updates.
+     */
+    public long getSuppressedUpdates() {
+        return updateFilter.getSuppressed();
+    }
+
+    @Override
+    protected void updateThing(Thing thing) {
+        super.updateThing(thing);
+        resolveChannels();
+    }
+
     protected State convertRecordData(DataRecord record) {
 
         switch (record.getDataValueType()) {
@@ -146,7 +306,8 @@ public abstract class WMBusDeviceHandler<T extends WMBusDevice> extends BaseThin
             case BCD:
                 return new DecimalType(record.getScaledDataValue());
             case DATE:
-                return convertDate(record.getDataValue());
+                return convertDate(new DateTimeType(
+                        ZonedDateTime.ofInstant(Instant.ofEpochSecond(record.getEpochSecond()), DataRecord.getZone())));
             case STRING:
             case NONE:
                 return new StringType(record.getDataValue().toString());
@@ -162,10 +323,10 @@ public abstract class WMBusDeviceHandler<T extends WMBusDevice> extends BaseThin
         DateTimeType value = null;
         if (input instanceof Date) {
             Date date = (Date) input;
-            ZonedDateTime zonedDateTime = ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
-            zonedDateTime.truncatedTo(ChronoUnit.SECONDS); // throw away millisecond value to avoid, eg. _previous_date
-                                                           // changed from 2018-02-28T00:00:00.353+0100 to
-                                                           // 2018-02-28T00:00:00.159+0100
+            // throw away millisecond value to avoid, eg. _previous_date changed from 2018-02-28T00:00:00.353+0100 to
+            // 2018-02-28T00:00:00.159+0100
+            ZonedDateTime zonedDateTime = ZonedDateTime.ofInstant(date.toInstant(), DataRecord.getZone())
+                    .truncatedTo(ChronoUnit.SECONDS);
             value = new DateTimeType(zonedDateTime);
         }
         if (input instanceof DateTimeType) {
@@ -190,6 +351,7 @@ public abstract class WMBusDeviceHandler<T extends WMBusDevice> extends BaseThin
     public void initialize() {
         logger.debug("Initializing handler.");
         updateStatus(ThingStatus.UNKNOWN);
+        resolveChannels();
 
         Configuration config = getConfig();
         deviceAddress = (String) config.getProperties().get(PROPERTY_DEVICE_ADDRESS);
@@ -215,7 +377,28 @@ public abstract class WMBusDeviceHandler<T extends WMBusDevice> extends BaseThin
                 .map(BigDecimal.class::cast) //
                 .map(BigDecimal::longValue) //
                 .orElse(DEFAULT_DEVICE_FREQUENCY_OF_UPDATES);
-        this.frequencyOfUpdates = TimeUnit.MINUTES.toMillis(updateFrequency);
+        this.frequencyOfUpdates = TimeUnit.MINUTES.toNanos(updateFrequency);
+        this.lastSeen = System.nanoTime();
+
+        boolean suppressUnchanged = Optional.of(config.getProperties())
+                .map(cfg -> cfg.get(PROPERTY_DEVICE_SUPPRESS_UNCHANGED)) //
+                .filter(Boolean.class::isInstance) //
+                .map(Boolean.class::cast) //
+                .orElse(false);
+        long minUpdateInterval = Optional.of(config.getProperties())
+                .map(cfg -> cfg.get(PROPERTY_DEVICE_MIN_UPDATE_INTERVAL)) //
+                .filter(BigDecimal.class::isInstance) //
+                .map(BigDecimal.class::cast) //
+                .map(BigDecimal::longValue) //
+                .orElse(0L);
+        UpdateAggregation aggregation = Optional.of(config.getProperties())
+                .map(cfg -> cfg.get(PROPERTY_DEVICE_UPDATE_AGGREGATION)) //
+                .filter(String.class::isInstance) //
+                .map(String.class::cast) //
+                .map(this::parseUpdateAggregation) //
+                .orElse(UpdateAggregation.LAST);
+        this.updateFilter = new ChannelUpdateFilter(suppressUnchanged, minUpdateInterval, TimeUnit.SECONDS,
+                aggregation);
 
         if (Boolean.valueOf(thing.getProperties().get(PROPERTY_DEVICE_ENCRYPTED))) {
             Optional<byte[]> encryptionKey = Optional.of(config.getProperties()) //
@@ -235,6 +418,16 @@ public abstract class WMBusDeviceHandler<T extends WMBusDevice> extends BaseThin
         updateStatus(ThingStatus.ONLINE);
     }
 
+    private UpdateAggregation parseUpdateAggregation(String value) {
+        try {
+            return UpdateAggregation.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown update aggregation '{}' configured for thing {}, last state will be sent", value,
+                    getThing().getUID());
+            return UpdateAggregation.LAST;
+        }
+    }
+
     @Override
     public void dispose() {
         logger.debug("Disposing handler.");
@@ -288,6 +481,19 @@ public abstract class WMBusDeviceHandler<T extends WMBusDevice> extends BaseThin
         return true;
     }
 
+    /**
+     * Returns time by which device should send next frame, counted from last frame or from initialization of handler if
+     * no frame was received since.
+     *
+     * @return Deadline in terms of {@link System#nanoTime()}.
+     */
+    long getOfflineDeadline() {
+        return lastSeen + frequencyOfUpdates;
+    }
+
+    /**
+     * Marks device as offline if it did not send frame in time, called once its deadline passes.
+     */
     public void checkStatus() {
         // status check is relevant only if device is considered to be online - we determine if it should be marked
         // offline
@@ -295,9 +501,13 @@ public abstract class WMBusDeviceHandler<T extends WMBusDevice> extends BaseThin
             return;
         }
 
-        long currentTime = System.currentTimeMillis();
-        if (lastUpdate == null || lastUpdate + frequencyOfUpdates <= currentTime) {
-            logger.info("WMBus device was not seen since {}, marking it as offline", new Date(lastUpdate));
+        if (getOfflineDeadline() - System.nanoTime() <= 0) {
+            Long lastUpdate = this.lastUpdate;
+            if (lastUpdate == null) {
+                logger.info("WMBus device was not seen since handler was initialized, marking it as offline");
+            } else {
+                logger.info("WMBus device was not seen since {}, marking it as offline", new Date(lastUpdate));
+            }
             updateStatus(ThingStatus.OFFLINE);
         }
     }
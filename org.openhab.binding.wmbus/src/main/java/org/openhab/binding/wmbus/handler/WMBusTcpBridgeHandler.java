@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package org.openhab.binding.wmbus.handler;
+
+import static org.openhab.binding.wmbus.WMBusBindingConstants.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.openhab.binding.wmbus.config.WMBusStickBridgeConfig;
+import org.openhab.binding.wmbus.config.WMBusTcpBridgeConfig;
+import org.openhab.core.config.core.status.ConfigStatusMessage;
+import org.openhab.core.thing.Bridge;
+import org.openhab.io.transport.mbus.wireless.KeyStorage;
+import org.openmuc.jmbus.wireless.WMBusConnection;
+import org.openmuc.jmbus.wireless.WMBusConnection.WMBusManufacturer;
+import org.openmuc.jmbus.wireless.WMBusConnection.WMBusTcpBuilder;
+import org.openmuc.jmbus.wireless.WMBusListener;
+
+/**
+ * Bridge handler for radio module attached over TCP, for example by ser2net. Received data of all TCP bridges is read
+ * by single shared selector thread instead of thread per bridge.
+ *
+ * @author Łukasz Dywicki - Initial contribution
+ */
+public class WMBusTcpBridgeHandler extends WMBusBridgeHandler {
+
+    public WMBusTcpBridgeHandler(Bridge bridge, KeyStorage keyStorage) {
+        super(bridge, keyStorage);
+    }
+
+    @Override
+    protected WMBusStickBridgeConfig getStickConfig() {
+        return getConfigAs(WMBusTcpBridgeConfig.class);
+    }
+
+    @Override
+    protected void validateConnectionConfig(WMBusStickBridgeConfig config, List<ConfigStatusMessage> messages) {
+        WMBusTcpBridgeConfig tcpConfig = (WMBusTcpBridgeConfig) config;
+
+        // check host
+        if (tcpConfig.host == null || tcpConfig.host.trim().isEmpty()) {
+            messages.add(ConfigStatusMessage.Builder.error(CONFKEY_HOST).withMessageKeySuffix(CONFKEY_HOST).build());
+        }
+        // check port
+        if (tcpConfig.port < 1 || tcpConfig.port > 65535) {
+            messages.add(ConfigStatusMessage.Builder.error(CONFKEY_PORT).withMessageKeySuffix(CONFKEY_PORT).build());
+        }
+    }
+
+    @Override
+    protected WMBusConnection openConnection(WMBusManufacturer manufacturer, WMBusListener listener,
+            WMBusStickBridgeConfig config) throws IOException {
+        WMBusTcpBridgeConfig tcpConfig = (WMBusTcpBridgeConfig) config;
+        logger.debug("Opening wmbus stick {} at {}:{} in mode {}", config.stickModel, tcpConfig.host, tcpConfig.port,
+                config.radioMode);
+
+        WMBusTcpBuilder connectionBuilder = new WMBusTcpBuilder(manufacturer, listener, tcpConfig.host,
+                tcpConfig.port);
+        connectionBuilder.setMode(config.radioMode);
+        connectionBuilder.setTimeout(1000);
+        connectionBuilder.setQueueCapacity(Math.max(1, config.queueCapacity));
+        if (config.overflowPolicy != null) {
+            connectionBuilder.setOverflowPolicy(config.overflowPolicy);
+        }
+
+        return connectionBuilder.build();
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.wmbus.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.measure.Unit;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.wmbus.config.UpdateAggregation;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.types.State;
+
+/**
+ * The {@link ChannelUpdateFilter} limits channel updates sent by thing of a meter which transmits every few seconds.
+ * States equal to last sent one are suppressed. When minimum update interval is set, at most one update per channel is
+ * sent within the interval, numeric states received meanwhile are combined according to {@link UpdateAggregation}.
+ * <p>
+ * Filter has no timer, combined state is sent with first update received after interval is over.
+ *
+ * @author Łukasz Dywicki - Initial contribution
+ */
+public class ChannelUpdateFilter {
+
+    private final boolean suppressUnchanged;
+    private final long minInterval;
+    private final UpdateAggregation aggregation;
+
+    private final Map<String, ChannelWindow> channels = new HashMap<>();
+    private final AtomicLong emitted = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * Creates filter.
+     *
+     * @param suppressUnchanged True if states equal to last sent one should be dropped.
+     * @param minInterval Minimum time between updates of a channel, zero to send every changed state.
+     * @param unit Unit of interval.
+     * @param aggregation Method of combining numeric states received within interval.
+     */
+    public ChannelUpdateFilter(boolean suppressUnchanged, long minInterval, TimeUnit unit,
+            UpdateAggregation aggregation) {
+        this.suppressUnchanged = suppressUnchanged;
+        this.minInterval = unit.toNanos(minInterval);
+        this.aggregation = aggregation;
+    }
+
+    /**
+     * Decides if channel should be updated.
+     *
+     * @param channelId Channel identifier.
+     * @param state New state of channel.
+     * @param now Current time as returned by {@link System#nanoTime()}.
+     * @return State to send, combined from states received within interval, or null if update is suppressed.
+     */
+    public synchronized @Nullable State filter(String channelId, State state, long now) {
+        ChannelWindow window = channels.get(channelId);
+        if (window == null) {
+            window = new ChannelWindow();
+            channels.put(channelId, window);
+            return emit(window, state, now);
+        }
+
+        State result = state;
+        if (minInterval > 0) {
+            window.add(state);
+            if (now - window.emitted < minInterval) {
+                suppressed.incrementAndGet();
+                return null;
+            }
+            result = window.aggregate(aggregation, state);
+            window.reset();
+        }
+
+        if (suppressUnchanged && result.equals(window.last)) {
+            suppressed.incrementAndGet();
+            return null;
+        }
+        return emit(window, result, now);
+    }
+
+    /**
+     * Forgets state sent to channel, so next update is sent whatever it is. Used when channel gets linked to new
+     * item.
+     *
+     * @param channelId Channel identifier.
+     */
+    public synchronized void forget(String channelId) {
+        channels.remove(channelId);
+    }
+
+    public long getEmitted() {
+        return emitted.get();
+    }
+
+    public long getSuppressed() {
+        return suppressed.get();
+    }
+
+    private State emit(ChannelWindow window, State state, long now) {
+        window.last = state;
+        window.emitted = now;
+        emitted.incrementAndGet();
+        return state;
+    }
+
+    private static class ChannelWindow {
+        private @Nullable State last;
+        private long emitted;
+
+        // numeric states received since last update, unit is null for decimal states
+        private int count;
+        private boolean numeric = true;
+        private @Nullable Unit<?> unit;
+        private double min;
+        private double max;
+        private double sum;
+
+        void add(State state) {
+            double value;
+            if (state instanceof QuantityType) {
+                QuantityType<?> quantity = (QuantityType<?>) state;
+                Unit<?> unit = this.unit;
+                if (count == 0) {
+                    this.unit = quantity.getUnit();
+                } else if (unit == null) {
+                    quantity = null;
+                } else if (!unit.equals(quantity.getUnit())) {
+                    quantity = quantity.toUnit(unit);
+                }
+                if (quantity == null) {
+                    numeric = false;
+                    return;
+                }
+                value = quantity.doubleValue();
+            } else if (state instanceof DecimalType && (count == 0 || unit == null)) {
+                unit = null;
+                value = ((DecimalType) state).doubleValue();
+            } else {
+                numeric = false;
+                return;
+            }
+
+            if (count == 0) {
+                min = value;
+                max = value;
+                sum = 0;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            sum += value;
+            count++;
+        }
+
+        State aggregate(UpdateAggregation aggregation, State last) {
+            if (!numeric || count == 0) {
+                return last;
+            }
+
+            double value;
+            switch (aggregation) {
+                case MIN:
+                    value = min;
+                    break;
+                case MAX:
+                    value = max;
+                    break;
+                case MEAN:
+                    value = sum / count;
+                    break;
+                case LAST:
+                default:
+                    return last;
+            }
+
+            Unit<?> unit = this.unit;
+            if (unit == null) {
+                return new DecimalType(value);
+            }
+            return new QuantityType<>(value, unit);
+        }
+
+        void reset() {
+            count = 0;
+            numeric = true;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.wmbus.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link DeadlineQueue} calls back items once their deadline passes, ie. marks devices which were not seen for
+ * too long as offline.
+ * <p>
+ * Deadline of item is read through function and may move forward at any time without telling the queue, so receiving
+ * a frame costs nothing but update of time it was seen. When queued deadline passes, current deadline is read again
+ * and item is queued once more if it moved, otherwise item leaves the queue and is passed to callback. Item which
+ * left the queue, or which deadline moved back, must be scheduled again.
+ * <p>
+ * Single timer is armed for the earliest deadline, so items are touched only when their deadline passes and idle
+ * queue costs nothing regardless of number of items.
+ *
+ * @author Łukasz Dywicki - Initial contribution
+ */
+public class DeadlineQueue<T> {
+
+    private final Logger logger = LoggerFactory.getLogger(DeadlineQueue.class);
+
+    private final PriorityQueue<Entry<T>> queue = new PriorityQueue<>(
+            (left, right) -> Long.compare(left.deadline - right.deadline, 0));
+    // entry which is valid for each queued item, entries replaced or cancelled are dropped when they come up
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+    private final @Nullable ScheduledExecutorService scheduler;
+    private final ToLongFunction<T> deadline;
+    private final Consumer<T> expired;
+    private final LongSupplier clock;
+
+    private @Nullable ScheduledFuture<?> timer;
+    private long timerDeadline;
+
+    /**
+     * Creates new queue.
+     *
+     * @param scheduler Scheduler running expiry of items.
+     * @param deadline Current deadline of item, in terms of {@link System#nanoTime()}.
+     * @param expired Callback receiving items which deadline passed.
+     */
+    public DeadlineQueue(ScheduledExecutorService scheduler, ToLongFunction<T> deadline, Consumer<T> expired) {
+        this(scheduler, deadline, expired, System::nanoTime);
+    }
+
+    /**
+     * Creates queue which items expire only when {@link #expire()} is called.
+     */
+    DeadlineQueue(ToLongFunction<T> deadline, Consumer<T> expired, LongSupplier clock) {
+        this(null, deadline, expired, clock);
+    }
+
+    private DeadlineQueue(@Nullable ScheduledExecutorService scheduler, ToLongFunction<T> deadline,
+            Consumer<T> expired, LongSupplier clock) {
+        this.scheduler = scheduler;
+        this.deadline = deadline;
+        this.expired = expired;
+        this.clock = clock;
+    }
+
+    /**
+     * Queues item with its current deadline. Call is cheap when item is queued already with same or earlier deadline,
+     * so it can be made for each frame.
+     *
+     * @param item Item to schedule.
+     */
+    public synchronized void schedule(T item) {
+        long itemDeadline = deadline.applyAsLong(item);
+        Entry<T> entry = entries.get(item);
+        if (entry != null && entry.deadline - itemDeadline <= 0) {
+            // deadline moved forward, it will be noticed once queued one passes
+            return;
+        }
+
+        enqueue(item, itemDeadline);
+        arm(itemDeadline);
+    }
+
+    /**
+     * Removes item from queue, it will not be passed to callback unless it is scheduled again.
+     *
+     * @param item Item to remove.
+     */
+    public synchronized void cancel(T item) {
+        entries.remove(item);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Passes items which deadline passed to callback.
+     *
+     * @return Number of expired items.
+     */
+    public int expire() {
+        List<T> expiredItems = new ArrayList<>();
+        synchronized (this) {
+            timer = null;
+            long now = clock.getAsLong();
+            Entry<T> entry;
+            while ((entry = queue.peek()) != null && entry.deadline - now <= 0) {
+                queue.poll();
+                if (entries.get(entry.item) != entry) {
+                    continue;
+                }
+
+                long itemDeadline = deadline.applyAsLong(entry.item);
+                if (itemDeadline - now > 0) {
+                    enqueue(entry.item, itemDeadline);
+                } else {
+                    entries.remove(entry.item);
+                    expiredItems.add(entry.item);
+                }
+            }
+
+            // drop cancelled entries, so they do not wake up timer
+            while ((entry = queue.peek()) != null && entries.get(entry.item) != entry) {
+                queue.poll();
+            }
+            if (entry != null) {
+                arm(entry.deadline);
+            }
+        }
+
+        for (T item : expiredItems) {
+            try {
+                expired.accept(item);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to handle expiry of {}", item, e);
+            }
+        }
+        return expiredItems.size();
+    }
+
+    /**
+     * Stops timer, queued items are kept.
+     */
+    public synchronized void shutdown() {
+        ScheduledFuture<?> timer = this.timer;
+        if (timer != null) {
+            timer.cancel(false);
+            this.timer = null;
+        }
+    }
+
+    private void enqueue(T item, long itemDeadline) {
+        Entry<T> entry = new Entry<>(item, itemDeadline);
+        entries.put(item, entry);
+        queue.add(entry);
+    }
+
+    private void arm(long deadline) {
+        ScheduledExecutorService scheduler = this.scheduler;
+        ScheduledFuture<?> timer = this.timer;
+        if (scheduler == null || (timer != null && timerDeadline - deadline <= 0)) {
+            return;
+        }
+
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        this.timerDeadline = deadline;
+        this.timer = scheduler.schedule(this::expire, Math.max(0, deadline - clock.getAsLong()),
+                TimeUnit.NANOSECONDS);
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long deadline;
+
+        Entry(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.wmbus.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.openmuc.jmbus.DecodeStatus;
+
+/**
+ * The {@link DecodeOutcomeCache} remembers devices which encrypted frames can not be decrypted by bridge, so repeated
+ * frames from them are not decoded again, and counts frames forwarded without decoding. Devices are identified by
+ * address packed into long, entries are kept in open addressing table of primitives, so lookup does not allocate.
+ * <p>
+ * Table has fixed capacity. When it fills up all entries are forgotten and learned again from following frames.
+ *
+ * @author Łukasz Dywicki - Initial contribution
+ */
+public class DecodeOutcomeCache {
+
+    public enum Outcome {
+        /**
+         * Frame is encrypted and there is no key registered for device.
+         */
+        NO_KEY,
+        /**
+         * Frame is encrypted and decryption with registered key failed.
+         */
+        WRONG_KEY,
+        /**
+         * Frame uses manufacturer specific CI field which is not decoded by bridge. Only counted, devices might send
+         * frames of different kinds.
+         */
+        MANUFACTURER_CI,
+        /**
+         * Frame uses standard CI field which is not supported by decoder. Only counted, like manufacturer specific
+         * ones.
+         */
+        UNSUPPORTED_CI;
+
+        /**
+         * Returns outcome remembered or counted for frame decoded with given status.
+         *
+         * @param status Status of decoding.
+         * @return Outcome or null if frames of such status are not remembered.
+         */
+        public static Outcome of(DecodeStatus status) {
+            switch (status) {
+                case NEEDS_KEY:
+                    return NO_KEY;
+                case WRONG_KEY:
+                    return WRONG_KEY;
+                case MANUFACTURER_CI:
+                    return MANUFACTURER_CI;
+                case UNSUPPORTED_CI:
+                    return UNSUPPORTED_CI;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Time after which failed decryption is attempted again. Corrupted frame might look like encrypted with wrong key.
+     */
+    public static final long WRONG_KEY_RETRY = TimeUnit.MINUTES.toNanos(10);
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    // must be power of two
+    private static final int CAPACITY = 4096;
+    private static final int MAX_SIZE = CAPACITY / 4 * 3;
+
+    private final long[] addresses = new long[CAPACITY];
+    // outcome ordinal + 1, zero marks free slot
+    private final byte[] outcomes = new byte[CAPACITY];
+    // nano time after which entry is not valid anymore, zero if it never expires
+    private final long[] expiries = new long[CAPACITY];
+    private final AtomicLongArray skipped = new AtomicLongArray(OUTCOMES.length);
+    private int size;
+
+    /**
+     * Returns remembered outcome for device.
+     *
+     * @param address Device address.
+     * @return Outcome or null if device is not known.
+     */
+    public synchronized Outcome lookup(long address) {
+        int slot = find(address);
+        if (slot < 0) {
+            return null;
+        }
+        if (expiries[slot] != 0 && System.nanoTime() - expiries[slot] > 0) {
+            remove(slot);
+            return null;
+        }
+        return OUTCOMES[outcomes[slot] - 1];
+    }
+
+    public synchronized void put(long address, Outcome outcome) {
+        int slot = find(address);
+        if (slot < 0) {
+            if (size >= MAX_SIZE) {
+                clear();
+                // probe sequence of address starts over in empty table
+                slot = find(address);
+            }
+            slot = ~slot;
+            size++;
+        }
+        addresses[slot] = address;
+        outcomes[slot] = (byte) (outcome.ordinal() + 1);
+        expiries[slot] = outcome == Outcome.WRONG_KEY ? expiry(WRONG_KEY_RETRY) : 0;
+    }
+
+    public synchronized void invalidate(long address) {
+        int slot = find(address);
+        if (slot >= 0) {
+            remove(slot);
+        }
+    }
+
+    public synchronized void clear() {
+        for (int index = 0; index < CAPACITY; index++) {
+            outcomes[index] = 0;
+        }
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Counts frame which was forwarded without decoding.
+     *
+     * @param outcome Reason of skipping.
+     */
+    public void skipped(Outcome outcome) {
+        skipped.incrementAndGet(outcome.ordinal());
+    }
+
+    /**
+     * Returns number of frames which were forwarded without decoding.
+     *
+     * @param outcome Reason of skipping.
+     * @return Number of skipped frames.
+     */
+    public long getSkipped(Outcome outcome) {
+        return skipped.get(outcome.ordinal());
+    }
+
+    /**
+     * Finds slot of address.
+     *
+     * @return Slot index or negated index of free slot where address should be placed.
+     */
+    private int find(long address) {
+        int slot = hash(address);
+        while (outcomes[slot] != 0) {
+            if (addresses[slot] == address) {
+                return slot;
+            }
+            slot = (slot + 1) & (CAPACITY - 1);
+        }
+        return ~slot;
+    }
+
+    private void remove(int slot) {
+        outcomes[slot] = 0;
+        size--;
+
+        // move following entries of the same probe sequence, so they can still be found
+        int free = slot;
+        int index = (slot + 1) & (CAPACITY - 1);
+        while (outcomes[index] != 0) {
+            int home = hash(addresses[index]);
+            // entry can be moved if free slot lies between its home slot and its current position
+            if (((index - home) & (CAPACITY - 1)) >= ((index - free) & (CAPACITY - 1))) {
+                addresses[free] = addresses[index];
+                outcomes[free] = outcomes[index];
+                expiries[free] = expiries[index];
+                outcomes[index] = 0;
+                free = index;
+            }
+            index = (index + 1) & (CAPACITY - 1);
+        }
+    }
+
+    private static long expiry(long timeout) {
+        long expiry = System.nanoTime() + timeout;
+        // zero is reserved for entries which never expire
+        return expiry == 0 ? 1 : expiry;
+    }
+
+    private static int hash(long address) {
+        // fibonacci hashing, spreads similar addresses of one manufacturer over whole table
+        return (int) ((address * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(CAPACITY)));
+    }
+}
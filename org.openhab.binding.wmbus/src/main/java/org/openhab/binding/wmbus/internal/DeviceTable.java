@@ -0,0 +1,314 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.wmbus.internal;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@link DeviceTable} keeps last value received from each device, keyed by device address packed into long.
+ * <p>
+ * Table is split into segments guarded by own locks. Each segment is open addressing table of primitive keys, so
+ * lookups neither build string keys nor box addresses. Table is bounded: when segment is full least recently seen entry
+ * out of small random sample is evicted. Entries not seen for longer than time to live are dropped by
+ * {@link #expire()}. Entries of pinned devices, ones which are claimed by things, are never evicted nor expired.
+ * <p>
+ * Each slot takes 20 bytes (key, compressed reference and time of last update). Segment tables are allocated up front
+ * with power of two size keeping them at most 3/4 full, so table for 100k devices takes 5.2MB, while
+ * {@code ConcurrentHashMap<String, ?>} needs about 95 bytes per device for node and hex string key, 9.5MB for 100k
+ * devices. Values themselves are not included in both numbers.
+ *
+ * @author Łukasz Dywicki - Initial contribution
+ */
+public class DeviceTable<V> {
+
+    private static final int SEGMENT_BITS = 4;
+    private static final int SAMPLE_SIZE = 8;
+
+    private final Segment<V>[] segments;
+    private final long timeToLive;
+    private final LongPredicate pinned;
+    private final LongSupplier clock;
+
+    /**
+     * Creates new table.
+     *
+     * @param capacity Maximum number of devices which are not pinned.
+     * @param timeToLive Time after which not seen device is forgotten.
+     * @param unit Unit of time to live.
+     * @param pinned Tells which devices must be kept regardless of capacity and time to live.
+     */
+    public DeviceTable(int capacity, long timeToLive, TimeUnit unit, LongPredicate pinned) {
+        this(capacity, timeToLive, unit, pinned, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    DeviceTable(int capacity, long timeToLive, TimeUnit unit, LongPredicate pinned, LongSupplier clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be greater than zero: " + capacity);
+        }
+
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.pinned = pinned;
+        this.clock = clock;
+        this.segments = new Segment[1 << SEGMENT_BITS];
+        int segmentCapacity = Math.max(1, (capacity + segments.length - 1) / segments.length);
+        for (int index = 0; index < segments.length; index++) {
+            segments[index] = new Segment<>(segmentCapacity);
+        }
+    }
+
+    public V get(long key) {
+        long hash = hash(key);
+        return segment(hash).get(key, hash);
+    }
+
+    /**
+     * Stores value of device and marks it as just seen.
+     *
+     * @param key Device address.
+     * @param value Last value received from device.
+     * @return Previous value or null if device was not known.
+     */
+    public V put(long key, V value) {
+        long hash = hash(key);
+        return segment(hash).put(key, hash, value, clock.getAsLong(), pinned);
+    }
+
+    public V remove(long key) {
+        long hash = hash(key);
+        return segment(hash).remove(key, hash);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Calls consumer with each stored value. Segments are copied before consumer is called, so it can modify table.
+     *
+     * @param consumer Consumer of values.
+     */
+    public void forEachValue(Consumer<V> consumer) {
+        for (Segment<V> segment : segments) {
+            for (V value : segment.values()) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    /**
+     * Forgets devices which were not seen for longer than time to live and are not pinned.
+     *
+     * @return Number of forgotten devices.
+     */
+    public int expire() {
+        long now = clock.getAsLong();
+        int expired = 0;
+        for (Segment<V> segment : segments) {
+            expired += segment.expire(now - timeToLive, pinned);
+        }
+        return expired;
+    }
+
+    private Segment<V> segment(long hash) {
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+    }
+
+    private static long hash(long key) {
+        // fibonacci hashing, top bits select segment, bottom bits slot within segment
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    private static final class Segment<V> {
+
+        private final int capacity;
+        private long[] keys;
+        private Object[] values;
+        private long[] lastSeen;
+        private int size;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            allocate(tableSize(capacity));
+        }
+
+        synchronized V get(long key, long hash) {
+            int slot = find(key, hash);
+            return slot < 0 ? null : value(slot);
+        }
+
+        synchronized V put(long key, long hash, V value, long now, LongPredicate pinned) {
+            int slot = find(key, hash);
+            if (slot >= 0) {
+                V previous = value(slot);
+                values[slot] = value;
+                lastSeen[slot] = now;
+                return previous;
+            }
+
+            if (size >= capacity) {
+                // when all entries are pinned nothing is evicted, table grows to keep them
+                evict(pinned);
+            }
+            slot = ~find(key, hash);
+            keys[slot] = key;
+            values[slot] = value;
+            lastSeen[slot] = now;
+            size++;
+            if (size > keys.length / 4 * 3) {
+                rehash(keys.length * 2);
+            }
+            return null;
+        }
+
+        synchronized V remove(long key, long hash) {
+            int slot = find(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            V previous = value(slot);
+            delete(slot);
+            return previous;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V[] values() {
+            Object[] copy = new Object[size];
+            int index = 0;
+            for (Object value : values) {
+                if (value != null) {
+                    copy[index++] = value;
+                }
+            }
+            return (V[]) copy;
+        }
+
+        synchronized int expire(long deadline, LongPredicate pinned) {
+            int expired = 0;
+            int slot = 0;
+            while (slot < keys.length) {
+                if (values[slot] != null && lastSeen[slot] - deadline < 0 && !pinned.test(keys[slot])) {
+                    // deletion might move later entry into this slot, so it is checked again
+                    delete(slot);
+                    expired++;
+                } else {
+                    slot++;
+                }
+            }
+            return expired;
+        }
+
+        /**
+         * Evicts least recently seen entry out of sample which is not pinned.
+         */
+        private void evict(LongPredicate pinned) {
+            int mask = keys.length - 1;
+            int slot = ThreadLocalRandom.current().nextInt(keys.length);
+            int victim = -1;
+            int sampled = 0;
+            // sample is extended over pinned entries, in worst case whole table is visited once
+            for (int visited = 0; visited < keys.length && sampled < SAMPLE_SIZE; visited++) {
+                if (values[slot] != null && !pinned.test(keys[slot])) {
+                    if (victim < 0 || lastSeen[slot] - lastSeen[victim] < 0) {
+                        victim = slot;
+                    }
+                    sampled++;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (victim >= 0) {
+                delete(victim);
+            }
+        }
+
+        private int find(long key, long hash) {
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (values[slot] != null) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return ~slot;
+        }
+
+        private void delete(int slot) {
+            int mask = keys.length - 1;
+            values[slot] = null;
+            size--;
+
+            // move following entries of the same probe sequence, so they can still be found
+            int free = slot;
+            int index = (slot + 1) & mask;
+            while (values[index] != null) {
+                int home = (int) hash(keys[index]) & mask;
+                if (((index - home) & mask) >= ((index - free) & mask)) {
+                    keys[free] = keys[index];
+                    values[free] = values[index];
+                    lastSeen[free] = lastSeen[index];
+                    values[index] = null;
+                    free = index;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        private void rehash(int tableSize) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            long[] oldLastSeen = lastSeen;
+
+            allocate(tableSize);
+            for (int index = 0; index < oldKeys.length; index++) {
+                if (oldValues[index] != null) {
+                    int slot = ~find(oldKeys[index], hash(oldKeys[index]));
+                    keys[slot] = oldKeys[index];
+                    values[slot] = oldValues[index];
+                    lastSeen[slot] = oldLastSeen[index];
+                }
+            }
+        }
+
+        private void allocate(int tableSize) {
+            keys = new long[tableSize];
+            values = new Object[tableSize];
+            lastSeen = new long[tableSize];
+        }
+
+        @SuppressWarnings("unchecked")
+        private V value(int slot) {
+            return (V) values[slot];
+        }
+
+        private static int tableSize(int capacity) {
+            // keep at most 3/4 of slots used
+            int minimum = capacity + capacity / 3 + 1;
+            return Integer.highestOneBit(minimum - 1) << 1;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.wmbus.internal;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.core.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link ProcessingLanes} class spreads work over fixed number of single threaded lanes. Tasks submitted with same
+ * key always land in the same lane, so they are executed in order of submission, while tasks with different keys can
+ * run in parallel.
+ * <p>
+ * Each lane has bounded queue. When it is full submitting thread waits until lane catches up, which pushes back to
+ * radio receiver and its own overflow policy.
+ *
+ * @author Łukasz Dywicki - Initial contribution
+ */
+public class ProcessingLanes {
+
+    /**
+     * Number of tasks which can wait in single lane.
+     */
+    public static final int LANE_CAPACITY = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(ProcessingLanes.class);
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public ProcessingLanes(String name, int count) {
+        this(name, count, LANE_CAPACITY);
+    }
+
+    public ProcessingLanes(String name, int count, int capacity) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Number of lanes must be greater than zero: " + count);
+        }
+
+        NamedThreadFactory threadFactory = new NamedThreadFactory(name);
+        this.lanes = new ThreadPoolExecutor[count];
+        for (int index = 0; index < count; index++) {
+            lanes[index] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(capacity), threadFactory);
+            // tasks are put directly into queue, worker must be there to take them
+            lanes[index].prestartCoreThread();
+        }
+    }
+
+    /**
+     * Schedules task in lane assigned to given key.
+     *
+     * @param key Key which decides about lane, ie. device address.
+     * @param task Task to execute.
+     */
+    public void execute(long key, Runnable task) {
+        ThreadPoolExecutor lane = lanes[lane(key)];
+        if (lane.isShutdown()) {
+            logger.debug("Ignoring task for key {}, lanes are shut down", key);
+            return;
+        }
+
+        BlockingQueue<Runnable> queue = lane.getQueue();
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            logger.debug("Interrupted while waiting for space in lane, task for key {} dropped", key);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int lane(long key) {
+        // addresses share manufacturer and version bytes, mix bits before picking lane
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 32) % lanes.length);
+    }
+
+    /**
+     * Returns number of lanes.
+     *
+     * @return Number of lanes.
+     */
+    public int size() {
+        return lanes.length;
+    }
+
+    /**
+     * Returns number of tasks waiting in all lanes.
+     *
+     * @return Number of waiting tasks.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+
+    /**
+     * Stops accepting new tasks. Tasks which are already queued are still executed.
+     */
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Waits until all lanes finished their work after {@link #shutdown()}.
+     *
+     * @param timeout Maximum time to wait for each lane.
+     * @param unit Unit of timeout.
+     * @return True if all lanes are terminated.
+     * @throws InterruptedException When interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        boolean terminated = true;
+        for (ThreadPoolExecutor lane : lanes) {
+            terminated &= lane.awaitTermination(timeout, unit);
+        }
+        return terminated;
+    }
+}
@@ -19,10 +19,12 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import javax.measure.Unit;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.wmbus.DecodedFrame;
 import org.openhab.binding.wmbus.UnitRegistry;
 import org.openhab.binding.wmbus.WMBusBindingConstants;
 import org.openhab.binding.wmbus.WMBusDevice;
@@ -44,7 +46,6 @@ import org.openmuc.jmbus.DataRecord.DataValueType;
 import org.openmuc.jmbus.DataRecord.Description;
 import org.openmuc.jmbus.DataRecord.FunctionField;
 import org.openmuc.jmbus.DlmsUnit;
-import org.openmuc.jmbus.VariableDataStructure;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
@@ -65,9 +66,14 @@ import org.slf4j.LoggerFactory;
 @Component(service = { ChannelTypeProvider.class, WMBusMessageListener.class, WMBusChannelTypeProvider.class })
 public class WMBusChannelTypeProvider implements ChannelTypeProvider, WMBusMessageListener {
 
+    // number of remembered record layouts, power of two
+    private static final int KNOWN_LAYOUTS = 4096;
+
     private final Logger logger = LoggerFactory.getLogger(WMBusChannelTypeProvider.class);
 
     private final Map<String, ChannelType> wmbusChannelMap = new ConcurrentHashMap<>();
+    // fingerprints of record layouts for which channel types were calculated, slot is chosen by fingerprint
+    private final AtomicLongArray knownLayouts = new AtomicLongArray(KNOWN_LAYOUTS);
     private UnitRegistry unitRegistry;
 
     @Override
@@ -77,8 +83,10 @@ public class WMBusChannelTypeProvider implements ChannelTypeProvider, WMBusMessa
 
     @Override
     public @Nullable ChannelType getChannelType(ChannelTypeUID channelTypeUID, @Nullable Locale locale) {
-        return wmbusChannelMap.values().stream().filter(channelType -> channelType.getUID().equals(channelTypeUID))
-                .findFirst().orElse(null);
+        if (!WMBusBindingConstants.BINDING_ID.equals(channelTypeUID.getBindingId())) {
+            return null;
+        }
+        return wmbusChannelMap.get(channelTypeUID.getId());
     }
 
     @Override
@@ -92,10 +100,16 @@ public class WMBusChannelTypeProvider implements ChannelTypeProvider, WMBusMessa
     }
 
     private void calculateChannelTypes(WMBusDevice device) {
-        VariableDataStructure response = device.getOriginalMessage().getVariableDataResponse();
-        DateFieldMode dateFieldMode = device.getAdapter().getDateFieldMode();
+        DecodedFrame frame = device.getDecodedFrame();
+        // frames of same layout have records of same channel types, which were calculated already
+        long fingerprint = frame.getLayoutFingerprint();
+        int slot = (int) ((fingerprint * 0x9E3779B97F4A7C15L) >>> 32) & (KNOWN_LAYOUTS - 1);
+        if (fingerprint != 0 && knownLayouts.get(slot) == fingerprint) {
+            return;
+        }
 
-        for (DataRecord record : response.getDataRecords()) {
+        DateFieldMode dateFieldMode = device.getAdapter().getDateFieldMode();
+        for (DataRecord record : frame.getRecords()) {
             Optional<ChannelTypeUID> channelTypeUID = getChannelType(record);
             if (channelTypeUID.isPresent()) {
                 ChannelTypeUID typeUID = channelTypeUID.get();
@@ -133,6 +147,7 @@ public class WMBusChannelTypeProvider implements ChannelTypeProvider, WMBusMessa
                 }
             }
         }
+        knownLayouts.set(slot, fingerprint);
     }
 
     private StateDescription getStateDescription(DataValueType type, Description description,
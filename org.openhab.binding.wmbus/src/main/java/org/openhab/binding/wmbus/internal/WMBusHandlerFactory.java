@@ -13,6 +13,13 @@
 
 package org.openhab.binding.wmbus.internal;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import org.openhab.binding.wmbus.UnitRegistry;
 import org.openhab.binding.wmbus.WMBusBindingConstants;
 import org.openhab.binding.wmbus.device.UnknownMeter.UnknownWMBusDeviceHandler;
@@ -20,7 +27,10 @@ import org.openhab.binding.wmbus.device.generic.DynamicWMBusThingHandler;
 import org.openhab.binding.wmbus.discovery.CompositeMessageListener;
 import org.openhab.binding.wmbus.handler.VirtualWMBusBridgeHandler;
 import org.openhab.binding.wmbus.handler.WMBusBridgeHandler;
+import org.openhab.binding.wmbus.handler.WMBusTcpBridgeHandler;
 import org.openhab.binding.wmbus.handler.WMBusMessageListener;
+import org.openhab.core.OpenHAB;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.thing.Bridge;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingTypeUID;
@@ -29,6 +39,7 @@ import org.openhab.core.thing.binding.ThingHandler;
 import org.openhab.core.thing.binding.ThingHandlerFactory;
 import org.openhab.io.transport.mbus.wireless.FilteredKeyStorage;
 import org.openhab.io.transport.mbus.wireless.KeyStorage;
+import org.openmuc.jmbus.FormatCache;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -51,8 +62,16 @@ public class WMBusHandlerFactory extends BaseThingHandlerFactory {
     // OpenHAB logger
     private final Logger logger = LoggerFactory.getLogger(WMBusHandlerFactory.class);
 
+    // how often formats of compact frames are saved when new ones were learned
+    private static final long FORMATS_SAVE_INTERVAL_MINUTES = 10;
+
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("wmbus");
+
     private final CompositeMessageListener messageListener = new CompositeMessageListener();
 
+    private ScheduledFuture<?> saveFormatsFuture;
+    private long savedFormats;
+
     private KeyStorage keyStorage;
     private UnitRegistry unitRegistry;
     private WMBusChannelTypeProvider channelTypeProvider;
@@ -76,6 +95,11 @@ public class WMBusHandlerFactory extends BaseThingHandlerFactory {
                 WMBusBridgeHandler handler = new WMBusBridgeHandler((Bridge) thing, keyStorage);
                 handler.registerWMBusMessageListener(messageListener);
                 return handler;
+            } else if (thingTypeUID.equals(WMBusBindingConstants.THING_TYPE_TCP_BRIDGE)) {
+                logger.debug("Creating handler for WMBus TCP bridge.");
+                WMBusTcpBridgeHandler handler = new WMBusTcpBridgeHandler((Bridge) thing, keyStorage);
+                handler.registerWMBusMessageListener(messageListener);
+                return handler;
             } else if (thingTypeUID.equals(WMBusBindingConstants.THING_TYPE_VIRTUAL_BRIDGE)) {
                 logger.debug("Creating handler for virtual WMBus bridge.");
                 VirtualWMBusBridgeHandler handler = new VirtualWMBusBridgeHandler((Bridge) thing, keyStorage);
@@ -100,14 +124,57 @@ public class WMBusHandlerFactory extends BaseThingHandlerFactory {
     @Activate
     protected void activate(ComponentContext componentContext) {
         super.activate(componentContext);
+
+        Path formats = formatCacheFile();
+        try {
+            FormatCache.getDefault().load(formats);
+        } catch (IOException e) {
+            logger.warn("Could not load formats of compact frames from {}", formats, e);
+        }
+        synchronized (this) {
+            savedFormats = FormatCache.getDefault().modifications();
+            saveFormatsFuture = scheduler.scheduleWithFixedDelay(this::saveFormats, FORMATS_SAVE_INTERVAL_MINUTES,
+                    FORMATS_SAVE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        }
     }
 
     @Override
     @Deactivate
     protected void deactivate(ComponentContext componentContext) {
+        synchronized (this) {
+            if (saveFormatsFuture != null) {
+                saveFormatsFuture.cancel(false);
+                saveFormatsFuture = null;
+            }
+        }
+        saveFormats();
+
         super.deactivate(componentContext);
     }
 
+    /**
+     * Saves formats of compact frames if they changed since last save, so these learned before crash or power loss
+     * are not lost.
+     */
+    private synchronized void saveFormats() {
+        long modifications = FormatCache.getDefault().modifications();
+        if (modifications == savedFormats) {
+            return;
+        }
+
+        Path formats = formatCacheFile();
+        try {
+            FormatCache.getDefault().save(formats);
+            savedFormats = modifications;
+        } catch (IOException e) {
+            logger.warn("Could not save formats of compact frames to {}", formats, e);
+        }
+    }
+
+    private static Path formatCacheFile() {
+        return Paths.get(OpenHAB.getUserDataFolder(), WMBusBindingConstants.BINDING_ID, "formats.bin");
+    }
+
     @Reference(cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
     public void registerWMBusMessageListener(WMBusMessageListener wmBusMessageListener) {
         messageListener.addMessageListener(wmBusMessageListener);
@@ -14,10 +14,11 @@ package org.openhab.binding.wmbus.internal.units;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Stream;
 
 import javax.measure.Quantity;
 import javax.measure.Unit;
@@ -38,12 +39,16 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
  * time soon. For this reason we leave an extensions for future cases if there is a device we desperately want, but its
  * dlms measurements units are not supported.
  *
+ * Registers are asked once for all DLMS units when registry is created and whenever a register is bound or unbound,
+ * lookups are served from resulting table.
+ *
  * @author Łukasz Dywicki - Initial contribution.
  */
 @Component(property = { "composite=true" })
 public class CompositeUnitRegistry implements UnitRegistry {
 
     private final Set<UnitRegistry> registers = new LinkedHashSet<>();
+    private volatile Mapping mapping;
 
     public CompositeUnitRegistry() {
         this(new UnitsRegistry());
@@ -55,46 +60,51 @@ public class CompositeUnitRegistry implements UnitRegistry {
 
     CompositeUnitRegistry(Collection<UnitRegistry> initial) {
         this.registers.addAll(initial);
+        this.mapping = new Mapping(registers);
     }
 
     @Override
-    public Optional<Unit<?>> lookup(DlmsUnit wmbusType) {
-        return registers.stream() //
-                .flatMap(registry -> get(registry, wmbusType)) //
-                .findFirst();
+    public Optional<Unit<?>> lookup(@Nullable DlmsUnit wmbusType) {
+        if (wmbusType == null) {
+            return Optional.empty();
+        }
+        return mapping.units.get(wmbusType);
     }
 
     @Override
     public Optional<Class<? extends Quantity<?>>> quantity(@Nullable DlmsUnit wmbusType) {
-        return registers.stream() //
-                .flatMap(registry -> getQuantity(registry, wmbusType)) //
-                .findFirst();
-    }
-
-    private Stream<Unit<?>> get(UnitRegistry registry, DlmsUnit wmbusType) {
-        Optional<Unit<?>> lookup = registry.lookup(wmbusType);
-
-        if (lookup.isPresent()) {
-            return Stream.of(lookup.get());
-        }
-        return Stream.empty();
-    }
-
-    private Stream<Class<? extends Quantity<?>>> getQuantity(UnitRegistry registry, @Nullable DlmsUnit wmbusType) {
-        Optional<Class<? extends Quantity<?>>> lookup = registry.quantity(wmbusType);
-
-        if (lookup.isPresent()) {
-            return Stream.of(lookup.get());
+        if (wmbusType == null) {
+            return Optional.empty();
         }
-        return Stream.empty();
+        return mapping.quantities.get(wmbusType);
     }
 
     @Reference(cardinality = ReferenceCardinality.MULTIPLE, target = "(!(composite=true))")
-    protected void setUnitRegistry(UnitRegistry registry) {
+    protected synchronized void setUnitRegistry(UnitRegistry registry) {
         this.registers.add(registry);
+        this.mapping = new Mapping(registers);
     }
 
-    protected void unsetUnitRegistry(UnitRegistry registry) {
+    protected synchronized void unsetUnitRegistry(UnitRegistry registry) {
         this.registers.remove(registry);
+        this.mapping = new Mapping(registers);
+    }
+
+    /**
+     * Units and quantities of all DLMS units, each taken from first register which knows it.
+     */
+    private static class Mapping {
+        private final Map<DlmsUnit, Optional<Unit<?>>> units = new EnumMap<>(DlmsUnit.class);
+        private final Map<DlmsUnit, Optional<Class<? extends Quantity<?>>>> quantities = new EnumMap<>(
+                DlmsUnit.class);
+
+        Mapping(Collection<UnitRegistry> registers) {
+            for (DlmsUnit wmbusType : DlmsUnit.values()) {
+                units.put(wmbusType, registers.stream().map(registry -> registry.lookup(wmbusType))
+                        .filter(Optional::isPresent).findFirst().orElse(Optional.empty()));
+                quantities.put(wmbusType, registers.stream().map(registry -> registry.quantity(wmbusType))
+                        .filter(Optional::isPresent).findFirst().orElse(Optional.empty()));
+            }
+        }
     }
 }
@@ -40,6 +40,7 @@ import javax.measure.quantity.Volume;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.wmbus.UnitRegistry;
+import org.openhab.core.library.dimension.VolumetricFlowRate;
 import org.openhab.core.library.unit.ImperialUnits;
 import org.openhab.core.library.unit.SIUnits;
 import org.openhab.core.library.unit.Units;
@@ -75,9 +76,7 @@ public class UnitsRegistry implements UnitRegistry {
             case APPARENT_ENERGY_METER_CONSTANT_OR_PULSE_VALUE:
                 break;
             case BAR:
-                // Not present in ESH 0.9 / 0.10.0.oh230
-                // return Optional.of(Units.BAR);
-                break;
+                return Optional.of(Units.BAR);
             case CALORIFIC_VALUE:
                 break;
             case COULOMB:
@@ -91,22 +90,24 @@ public class UnitsRegistry implements UnitRegistry {
                 return Optional.of(SIUnits.CUBIC_METRE);
             case CUBIC_METRE_PER_DAY:
             case CUBIC_METRE_PER_DAY_CORRECTED:
+                return Optional.of(Units.CUBICMETRE_PER_DAY);
             case CUBIC_METRE_PER_HOUR:
             case CUBIC_METRE_PER_HOUR_CORRECTED:
+                return Optional.of(Units.CUBICMETRE_PER_HOUR);
             case CUBIC_METRE_PER_MINUTE:
+                return Optional.of(Units.CUBICMETRE_PER_MINUTE);
             case CUBIC_METRE_PER_SECOND:
-                // there is no support for VolumetricFlowRate yet.
-                return Optional.empty();
+                return Optional.of(Units.CUBICMETRE_PER_SECOND);
             case CURRENCY:
                 break;
             case DAY:
                 return Optional.of(Units.DAY);
             case DEGREE:
-                break;
+                return Optional.of(Units.DEGREE_ANGLE);
             case DEGREE_CELSIUS:
                 return Optional.of(SIUnits.CELSIUS);
             case DEGREE_FAHRENHEIT:
-                break;
+                return Optional.of(ImperialUnits.FAHRENHEIT);
             case ENERGY_PER_VOLUME:
                 break;
             case FARAD:
@@ -144,7 +145,8 @@ public class UnitsRegistry implements UnitRegistry {
             case MOLE_PERCENT:
                 break;
             case MONTH:
-                return Optional.of(Units.FARAD);
+                // months differ in length, there is no unit for them
+                break;
             case NEWTON:
                 return Optional.of(Units.NEWTON);
             case NEWTONMETER:
@@ -160,7 +162,7 @@ public class UnitsRegistry implements UnitRegistry {
             case PASCAL_SECOND:
                 break;
             case PERCENTAGE:
-                break;
+                return Optional.of(Units.PERCENT);
             case REACTIVE_ENERGY_METER_CONSTANT_OR_PULSE_VALUE:
                 break;
             case RESERVED:
@@ -174,7 +176,7 @@ public class UnitsRegistry implements UnitRegistry {
             case TESLA:
                 return Optional.of(Units.TESLA);
             case US_GALLON:
-                break;
+                return Optional.of(ImperialUnits.GALLON_LIQUID_US);
             case US_GALLON_PER_HOUR:
                 break;
             case US_GALLON_PER_MINUTE:
@@ -250,8 +252,7 @@ public class UnitsRegistry implements UnitRegistry {
             case CUBIC_METRE_PER_HOUR_CORRECTED:
             case CUBIC_METRE_PER_MINUTE:
             case CUBIC_METRE_PER_SECOND:
-                // VolumetricFlow
-                return Optional.empty();
+                return Optional.of(VolumetricFlowRate.class);
             case CURRENCY:
                 break;
             case DEGREE:
@@ -275,7 +276,8 @@ public class UnitsRegistry implements UnitRegistry {
             case KILOGRAM:
                 return Optional.of(Mass.class);
             case KILOGRAM_PER_HOUR:
-                return Optional.of(Speed.class);
+                // mass flow
+                break;
             case KILOGRAM_PER_SECOND:
                 break;
             case LITRE:
@@ -317,7 +319,7 @@ public class UnitsRegistry implements UnitRegistry {
             case TESLA:
                 return Optional.of(MagneticFluxDensity.class);
             case US_GALLON:
-                break;
+                return Optional.of(Volume.class);
             case US_GALLON_PER_HOUR:
             case US_GALLON_PER_MINUTE:
                 // VolumetricFlow
@@ -349,7 +351,6 @@ public class UnitsRegistry implements UnitRegistry {
             case HOUR:
             case DAY:
             case WEEK:
-            case MONTH:
             case YEAR:
                 return Optional.of(Time.class);
             default:
@@ -60,6 +60,16 @@ public class FilteredKeyStorage implements KeyStorage {
                 .orElse(Collections.emptyMap());
     }
 
+    @Override
+    public void addListener(KeyStorageListener listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(KeyStorageListener listener) {
+        delegate.removeListener(listener);
+    }
+
     private SecondaryAddress createKey(byte[] address) {
         return SecondaryAddress.newFromWMBusHeader(address, 0);
     }
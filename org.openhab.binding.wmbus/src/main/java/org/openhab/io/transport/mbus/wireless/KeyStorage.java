@@ -30,4 +30,8 @@ public interface KeyStorage {
     void registerKey(byte[] address, byte[] key);
 
     Map<SecondaryAddress, byte[]> toMap();
+
+    void addListener(KeyStorageListener listener);
+
+    void removeListener(KeyStorageListener listener);
 }
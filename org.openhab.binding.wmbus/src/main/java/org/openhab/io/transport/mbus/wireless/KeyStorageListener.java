@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.mbus.wireless;
+
+import org.openmuc.jmbus.SecondaryAddress;
+
+/**
+ * Listener informed about changes of encryption keys kept in {@link KeyStorage}.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public interface KeyStorageListener {
+
+    /**
+     * Called after key for given address was registered or replaced.
+     *
+     * @param address Address of device which key was changed.
+     */
+    void keyRegistered(SecondaryAddress address);
+}
@@ -13,9 +13,11 @@
 package org.openhab.io.transport.mbus.wireless;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.openmuc.jmbus.SecondaryAddress;
 import org.osgi.service.component.annotations.Component;
@@ -29,6 +31,7 @@ import org.osgi.service.component.annotations.Component;
 public class MapKeyStorage implements KeyStorage {
 
     private final Map<SecondaryAddress, byte[]> keyMap = new ConcurrentHashMap<>();
+    private final List<KeyStorageListener> listeners = new CopyOnWriteArrayList<>();
 
     @Override
     public Optional<byte[]> lookupKey(byte[] address) {
@@ -37,7 +40,11 @@ public class MapKeyStorage implements KeyStorage {
 
     @Override
     public void registerKey(byte[] address, byte[] key) {
-        keyMap.put(createKey(address), key);
+        SecondaryAddress secondaryAddress = createKey(address);
+        keyMap.put(secondaryAddress, key);
+        for (KeyStorageListener listener : listeners) {
+            listener.keyRegistered(secondaryAddress);
+        }
     }
 
     @Override
@@ -45,6 +52,16 @@ public class MapKeyStorage implements KeyStorage {
         return Collections.unmodifiableMap(keyMap);
     }
 
+    @Override
+    public void addListener(KeyStorageListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(KeyStorageListener listener) {
+        listeners.remove(listener);
+    }
+
     private SecondaryAddress createKey(byte[] address) {
         return SecondaryAddress.newFromWMBusHeader(address, 0);
     }
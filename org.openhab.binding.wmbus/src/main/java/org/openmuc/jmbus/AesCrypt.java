@@ -9,6 +9,8 @@ import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Cipher;
 import javax.crypto.NoSuchPaddingException;
@@ -16,6 +18,20 @@ import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 class AesCrypt {
+
+    static final String AES_CBC = "AES/CBC/NoPadding";
+    static final String AES_CTR = "AES/CTR/NoPadding";
+    static final int IV_LENGTH = 16;
+
+    // upper bound of cached key specs, cache is simply dropped when reached
+    private static final int MAX_CACHED_KEYS = 1024;
+
+    private static final Map<SecondaryAddress, CachedKey> keySpecs = new ConcurrentHashMap<>();
+    // cipher lookup goes through provider list, so each thread keeps its instances for reuse
+    private static final ThreadLocal<Cipher> cbcCiphers = new ThreadLocal<>();
+    private static final ThreadLocal<Cipher> ctrCiphers = new ThreadLocal<>();
+    private static final ThreadLocal<byte[]> ivBuffers = ThreadLocal.withInitial(() -> new byte[IV_LENGTH]);
+
     private final byte[] key;
     private final byte[] iv;
 
@@ -24,11 +40,11 @@ class AesCrypt {
     protected Cipher cipher;
 
     public static AesCrypt newAesCrypt(byte[] key, byte[] iv) throws DecodingException {
-        return new AesCrypt(key, iv, "AES/CBC/NoPadding");
+        return new AesCrypt(key, iv, AES_CBC);
     }
 
     public static AesCrypt newAesCtrCrypt(byte[] key, byte[] iv) throws DecodingException {
-        return new AesCrypt(key, iv, "AES/CTR/NoPadding");
+        return new AesCrypt(key, iv, AES_CTR);
     }
 
     private AesCrypt(byte[] key, byte[] iv, String cipherName) throws DecodingException {
@@ -65,4 +81,123 @@ class AesCrypt {
             throw new DecodingException(e);
         }
     }
+
+    /**
+     * Decrypts beginning of data with key registered for given address. Key spec is cached per address and cipher is
+     * reused by calling thread, so nothing but the result is allocated for frames of known meters.
+     *
+     * @param cipherName
+     *            {@link #AES_CBC} or {@link #AES_CTR}.
+     * @param address
+     *            the address key belongs to.
+     * @param key
+     *            the key currently registered for address.
+     * @param iv
+     *            the initial vector, might be buffer returned by {@link #ivBuffer()}.
+     * @param data
+     *            the encrypted data.
+     * @param length
+     *            number of bytes to decrypt.
+     * @return decrypted bytes.
+     * @throws DecodingException
+     *             if decryption failed.
+     */
+    static byte[] decrypt(String cipherName, SecondaryAddress address, byte[] key, byte[] iv, byte[] data,
+            int length) throws DecodingException {
+        Cipher cipher = cipher(cipherName);
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, keySpec(address, key), new IvParameterSpec(iv));
+            return cipher.doFinal(data, 0, length);
+        } catch (GeneralSecurityException e) {
+            throw new DecodingException(e);
+        }
+    }
+
+    /**
+     * Decrypts part of data into given array, so no array is allocated.
+     *
+     * @param cipherName
+     *            {@link #AES_CBC} or {@link #AES_CTR}.
+     * @param address
+     *            the address key belongs to.
+     * @param key
+     *            the key currently registered for address.
+     * @param iv
+     *            the initial vector, might be buffer returned by {@link #ivBuffer()}.
+     * @param data
+     *            the encrypted data.
+     * @param offset
+     *            index of first byte to decrypt.
+     * @param length
+     *            number of bytes to decrypt.
+     * @param output
+     *            the array receiving decrypted bytes from its beginning, must not be data array.
+     * @return number of decrypted bytes.
+     * @throws DecodingException
+     *             if decryption failed.
+     */
+    static int decrypt(String cipherName, SecondaryAddress address, byte[] key, byte[] iv, byte[] data, int offset,
+            int length, byte[] output) throws DecodingException {
+        Cipher cipher = cipher(cipherName);
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, keySpec(address, key), new IvParameterSpec(iv));
+            return cipher.doFinal(data, offset, length, output, 0);
+        } catch (GeneralSecurityException e) {
+            throw new DecodingException(e);
+        }
+    }
+
+    /**
+     * Returns initial vector buffer of calling thread. Content is not cleared.
+     *
+     * @return buffer of {@link #IV_LENGTH} bytes.
+     */
+    static byte[] ivBuffer() {
+        return ivBuffers.get();
+    }
+
+    private static Cipher cipher(String cipherName) throws DecodingException {
+        ThreadLocal<Cipher> ciphers = AES_CTR.equals(cipherName) ? ctrCiphers : cbcCiphers;
+        Cipher cipher = ciphers.get();
+        if (cipher == null) {
+            try {
+                cipher = Cipher.getInstance(cipherName);
+            } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+                throw new DecodingException(e);
+            }
+            ciphers.set(cipher);
+        }
+        return cipher;
+    }
+
+    private static SecretKeySpec keySpec(SecondaryAddress address, byte[] key) {
+        if (address == null) {
+            return new SecretKeySpec(key, "AES");
+        }
+
+        CachedKey cached = keySpecs.get(address);
+        // key registered for address might have been changed since spec was created
+        if (cached == null || !cached.matches(key)) {
+            if (keySpecs.size() >= MAX_CACHED_KEYS) {
+                keySpecs.clear();
+            }
+            cached = new CachedKey(key);
+            keySpecs.put(address, cached);
+        }
+        return cached.spec;
+    }
+
+    private static final class CachedKey {
+        private final byte[] key;
+        private final SecretKeySpec spec;
+
+        CachedKey(byte[] key) {
+            this.key = Arrays.copyOf(key, key.length);
+            this.spec = new SecretKeySpec(this.key, "AES");
+        }
+
+        boolean matches(byte[] key) {
+            return Arrays.equals(this.key, key);
+        }
+    }
 }
@@ -5,47 +5,48 @@
  */
 package org.openmuc.jmbus;
 
-import java.nio.ByteBuffer;
-
 /**
  * 16 bit cyclic redundancy check implementation.
  */
-class CRC16 {
+public class CRC16 {
+
+    private static final int POLYNOMIAL = 0x3D65;
+    private static final int XOR_VALUE = 0xFFFF;
 
-    private static byte[] computeCrc(byte[] bytes, int poly, int initialValue, int xorValue) {
-        int i;
-        int crcVal = initialValue;
-        byte[] crc = new byte[2];
+    // remainder of every possible leading byte, so CRC is updated once per byte instead of once per bit
+    private static final int[] TABLE = new int[256];
 
-        for (byte b : bytes) {
-            for (i = 0x80; i != 0; i >>= 1) {
+    static {
+        for (int b = 0; b < 256; b++) {
+            int crcVal = b << 8;
+            for (int i = 0; i < 8; i++) {
                 if ((crcVal & 0x8000) != 0) {
-                    crcVal = (crcVal << 1) ^ poly;
+                    crcVal = (crcVal << 1) ^ POLYNOMIAL;
                 } else {
                     crcVal = crcVal << 1;
                 }
-                if ((b & i) != 0) {
-                    crcVal ^= poly;
-                }
             }
+            TABLE[b] = crcVal & 0xffff;
         }
-
-        byte[] tmpCrc = ByteBuffer.allocate(4).putInt(Integer.reverseBytes(crcVal & 0xffff ^ xorValue)).array();
-        crc[0] = tmpCrc[0];
-        crc[1] = tmpCrc[1];
-
-        return crc;
     }
 
     /**
      * Computes the CRC16 according EN13757.
-     * 
+     *
      * @param bytes
-     *            the data to be checked.
-     * @return the CRC16 result.
+     *            the buffer holding data to be checked.
+     * @param offset
+     *            index of first byte to be checked.
+     * @param length
+     *            number of bytes to be checked.
+     * @return the CRC16 result, most significant byte is transmitted first in data link layer blocks.
      */
-    public static byte[] calculateCrc16(byte[] bytes) {
-        return computeCrc(bytes, 0x3D65, 0x0000, 0xFFFF);
+    public static int calculateCrc16(byte[] bytes, int offset, int length) {
+        int crcVal = 0x0000;
+        for (int i = offset; i < offset + length; i++) {
+            crcVal = ((crcVal << 8) ^ TABLE[((crcVal >>> 8) ^ bytes[i]) & 0xff]) & 0xffff;
+        }
+        return crcVal ^ XOR_VALUE;
     }
 
     /**
@@ -7,8 +7,13 @@ package org.openmuc.jmbus;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 import java.util.Arrays;
-import java.util.Calendar;
+import java.util.Date;
 
 /**
  * Representation of a data record (sometimes called variable data block).
@@ -164,13 +169,64 @@ public class DataRecord {
         RESET_COUNTER;
     }
 
+    /**
+     * Meaning of VIF codes, indexed by VIF. Tables are filled once by bit by bit decoders of VIF, so decoding of a
+     * record needs a single lookup. Codes rejected by decoders have no entry.
+     */
+    private static final ValueInformation[] MAIN_VIFS = new ValueInformation[256];
+    private static final ValueInformation[] MAIN_EXTENDED_VIFS = new ValueInformation[256];
+    private static final ValueInformation[] ALTERNATE_EXTENDED_VIFS = new ValueInformation[256];
+
+    static {
+        for (int code = 0; code < 256; code++) {
+            DataRecord record = new DataRecord();
+            try {
+                record.decodeMainVif(code);
+                MAIN_VIFS[code] = new ValueInformation(record);
+            } catch (IllegalArgumentException e) {
+                // extension indicator, not a main VIF
+            }
+
+            record = new DataRecord();
+            try {
+                record.decodeMainExtendedVif((byte) code);
+                MAIN_EXTENDED_VIFS[code] = new ValueInformation(record);
+            } catch (DecodingException e) {
+                // unknown unit
+            }
+
+            record = new DataRecord();
+            record.decodeAlternateExtendedVif((byte) code);
+            ALTERNATE_EXTENDED_VIFS[code] = new ValueInformation(record);
+        }
+    }
+
+    /**
+     * Value of BCD byte, both nibbles are used as digits also when they are not valid.
+     */
+    private static final int[] BCD_DIGITS = new int[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            BCD_DIGITS[b] = ((b >> 4) & 0x0f) * 10 + (b & 0x0f);
+        }
+    }
+
+    // zone of local dates sent by meters, resolved once
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final ZoneRules ZONE_RULES = ZONE.getRules();
+
     // // Data Information Block that contains a DIF and optionally up to 10 DIFEs
     private byte[] dib;
     // // Value Information Block that contains a VIF and optionally up to 10 VIFEs
     private byte[] vib;
 
-    private Object dataValue;
+    private volatile Object dataValue;
     private DataValueType dataValueType;
+    // value of BCD or date in epoch seconds, their objects are created on demand by getDataValue()
+    private long longValue;
+    // BCD bytes, least significant first
+    private long bcdBytes;
 
     // DIB fields:
     private FunctionField functionField;
@@ -196,7 +252,38 @@ public class DataRecord {
         return rawData;
     }
 
+    public DataRecord() {
+    }
+
+    /**
+     * Creates record sharing DIB and VIB with given record, its value has to be set by
+     * {@link #decodeData(byte[], int)}. Records of same layout have same information blocks, so they are decoded
+     * once.
+     *
+     * @param header
+     *            the record with same DIB and VIB.
+     */
+    DataRecord(DataRecord header) {
+        this.dib = header.dib;
+        this.vib = header.vib;
+        this.functionField = header.functionField;
+        this.storageNumber = header.storageNumber;
+        this.tariff = header.tariff;
+        this.subunit = header.subunit;
+        this.description = header.description;
+        this.userDefinedDescription = header.userDefinedDescription;
+        this.multiplierExponent = header.multiplierExponent;
+        this.unit = header.unit;
+        this.dateTypeF = header.dateTypeF;
+        this.dateTypeG = header.dateTypeG;
+        this.dataLength = header.dataLength;
+    }
+
     int decode(byte[] buffer, int offset) throws DecodingException {
+        return decodeData(buffer, decodeHeader(buffer, offset));
+    }
+
+    private int decodeHeader(byte[] buffer, int offset) throws DecodingException {
         int i = offset;
 
         decodeDib(buffer, i);
@@ -229,7 +316,7 @@ public class DataRecord {
         boolean decodeFurtherVifs = false;
 
         if (vif == 0xfb) {
-            decodeAlternateExtendedVif(buffer[i]);
+            setValueInformation(ALTERNATE_EXTENDED_VIFS[buffer[i] & 0xff]);
             if ((buffer[i] & 0x80) == 0x80) {
                 decodeFurtherVifs = true;
             }
@@ -240,13 +327,24 @@ public class DataRecord {
                 decodeFurtherVifs = true;
             }
         } else if (vif == 0xfd) {
-            decodeMainExtendedVif(buffer[i]);
+            ValueInformation valueInformation = MAIN_EXTENDED_VIFS[buffer[i] & 0xff];
+            if (valueInformation == null) {
+                decodeMainExtendedVif(buffer[i]);
+            } else {
+                setValueInformation(valueInformation);
+            }
             if ((buffer[i] & 0x80) == 0x80) {
                 decodeFurtherVifs = true;
             }
             i++;
         } else {
-            decodeMainVif(vif);
+            ValueInformation valueInformation = MAIN_VIFS[vif];
+            if (valueInformation == null) {
+                // reports extension indicator which can not be used as main VIF
+                decodeMainVif(vif);
+            } else {
+                setValueInformation(valueInformation);
+            }
             if ((vif & 0x80) == 0x80) {
                 decodeFurtherVifs = true;
             }
@@ -260,6 +358,24 @@ public class DataRecord {
 
         vib = Arrays.copyOfRange(buffer, offset + dib.length, i);
 
+        return i;
+    }
+
+    /**
+     * Decodes value of data field which type is given by already decoded DIB.
+     *
+     * @param buffer
+     *            the buffer holding record.
+     * @param offset
+     *            index of first byte of data field.
+     * @return index of first byte after the record.
+     * @throws DecodingException
+     *             if data field is not supported.
+     */
+    int decodeData(byte[] buffer, int offset) throws DecodingException {
+        int i = offset;
+        int dataField = dataLength;
+
         switch (dataField) {
             case 0x00:
             case 0x08: /* no data - selection for readout request */
@@ -280,12 +396,7 @@ public class DataRecord {
 
                     int year = (2000 + year1 + year2);
 
-                    Calendar calendar = Calendar.getInstance();
-
-                    calendar.set(year, month - 1, day, 0, 0, 0);
-
-                    dataValue = calendar.getTime();
-                    dataValueType = DataValueType.DATE;
+                    setDate(year, month, day, 0, 0, false);
                 } else if ((buffer[i + 1] & 0x80) == 0x80) {
                     // negative
                     dataValue = Long.valueOf((buffer[i++] & 0xff) | ((buffer[i++] & 0xff) << 8) | 0xffff << 16);
@@ -308,7 +419,6 @@ public class DataRecord {
                 break;
             case 0x04: /* INT32 */
                 if (dateTypeF) {
-                    Calendar calendar = Calendar.getInstance();
                     int min = (buffer[i++] & 0x3f); // Byte 1: Bit 1-6
 
                     int hour = (buffer[i] & 0x1f); // Byte 2: Bit 9-13
@@ -327,14 +437,7 @@ public class DataRecord {
 
                     int year = 1900 + 100 * yearh + year1 + year2;
 
-                    calendar.set(year, mon - 1, day, hour, min, 0);
-
-                    if (dst == 1) {
-                        calendar.set(Calendar.DST_OFFSET, 60000);
-                    }
-
-                    dataValue = calendar.getTime();
-                    dataValueType = DataValueType.DATE;
+                    setDate(year, mon, day, hour, min, dst == 1);
                 } else {
                     dataValue = (long) ByteBuffer.wrap(buffer, i, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
                     i += 4;
@@ -383,22 +486,7 @@ public class DataRecord {
                 break;
             case 0x0d:
 
-                int variableLength = buffer[i++] & 0xff;
-                int dataLength0x0d;
-
-                if (variableLength < 0xc0) {
-                    dataLength0x0d = variableLength;
-                } else if ((variableLength >= 0xc0) && (variableLength <= 0xc9)) {
-                    dataLength0x0d = 2 * (variableLength - 0xc0);
-                } else if ((variableLength >= 0xd0) && (variableLength <= 0xd9)) {
-                    dataLength0x0d = 2 * (variableLength - 0xd0);
-                } else if ((variableLength >= 0xe0) && (variableLength <= 0xef)) {
-                    dataLength0x0d = variableLength - 0xe0;
-                } else if (variableLength == 0xf8) {
-                    dataLength0x0d = 4;
-                } else {
-                    throw new DecodingException("Unsupported LVAR Field: " + variableLength);
-                }
+                int dataLength0x0d = variableDataLength(buffer[i++] & 0xff);
 
                 byte[] rawData = new byte[dataLength0x0d];
 
@@ -419,12 +507,197 @@ public class DataRecord {
         return i;
     }
 
+    /**
+     * Computes key of data record with given DIB and VIB. Records with equal DIB and VIB have equal keys, so key can be
+     * computed once and used to look up record in every received frame.
+     * 
+     * @param dib
+     *            the data information block.
+     * @param vib
+     *            the value information block.
+     * @return the key of record.
+     */
+    public static int recordKey(byte[] dib, byte[] vib) {
+        return recordKey(dib, 0, dib.length, vib, 0, vib.length);
+    }
+
+    static int recordKey(byte[] dibBuffer, int dibOffset, int dibLength, byte[] vibBuffer, int vibOffset,
+            int vibLength) {
+        int hash = dibLength;
+        for (int i = dibOffset; i < dibOffset + dibLength; i++) {
+            hash = 31 * hash + dibBuffer[i];
+        }
+        for (int i = vibOffset; i < vibOffset + vibLength; i++) {
+            hash = 31 * hash + vibBuffer[i];
+        }
+        // spread bits, lowest ones select slot of index
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    /**
+     * Returns number of bytes occupied by data field of given type. Variable length data (0x0D) is not covered, its
+     * length is given by LVAR byte, see {@link #variableDataLength(int)}.
+     * 
+     * @param dataField
+     *            the data field coded in four lowest bits of DIF.
+     * @return length of data field in bytes.
+     * @throws DecodingException
+     *             if data field is not supported.
+     */
+    static int dataFieldLength(int dataField) throws DecodingException {
+        switch (dataField) {
+            case 0x00:
+            case 0x08:
+                return 0;
+            case 0x01:
+            case 0x09:
+                return 1;
+            case 0x02:
+            case 0x0a:
+                return 2;
+            case 0x03:
+            case 0x0b:
+                return 3;
+            case 0x04:
+            case 0x05:
+            case 0x0c:
+                return 4;
+            case 0x06:
+            case 0x0e:
+                return 6;
+            case 0x07:
+                return 8;
+            default:
+                String msg = String.format("Unknown Data Field in DIF: %02X.", dataField);
+                throw new DecodingException(msg);
+        }
+    }
+
+    /**
+     * Returns number of data bytes following LVAR byte of variable length data field.
+     * 
+     * @param variableLength
+     *            the LVAR byte.
+     * @return length of data in bytes.
+     * @throws DecodingException
+     *             if LVAR value is not supported.
+     */
+    static int variableDataLength(int variableLength) throws DecodingException {
+        if (variableLength < 0xc0) {
+            return variableLength;
+        } else if ((variableLength >= 0xc0) && (variableLength <= 0xc9)) {
+            return 2 * (variableLength - 0xc0);
+        } else if ((variableLength >= 0xd0) && (variableLength <= 0xd9)) {
+            return 2 * (variableLength - 0xd0);
+        } else if ((variableLength >= 0xe0) && (variableLength <= 0xef)) {
+            return variableLength - 0xe0;
+        } else if (variableLength == 0xf8) {
+            return 4;
+        } else {
+            throw new DecodingException("Unsupported LVAR Field: " + variableLength);
+        }
+    }
+
     private int setBCD(byte[] buffer, int i, int j) {
-        dataValue = new Bcd(Arrays.copyOfRange(buffer, i, i + j));
+        int last = buffer[i + j - 1] & 0xff;
+        boolean negative = (last & 0xf0) == 0xf0;
+        long value = negative ? last & 0x0f : BCD_DIGITS[last];
+        long bytes = last;
+        for (int k = i + j - 2; k >= i; k--) {
+            value = value * 100 + BCD_DIGITS[buffer[k] & 0xff];
+            bytes = (bytes << 8) | (buffer[k] & 0xff);
+        }
+
+        longValue = negative ? -value : value;
+        bcdBytes = bytes;
+        dataValue = null;
         dataValueType = DataValueType.BCD;
         return i + j;
     }
 
+    private byte[] bcdBytes() {
+        int length = dataLength == 0x0e ? 6 : dataLength - 8;
+        byte[] bytes = new byte[length];
+        for (int k = 0; k < length; k++) {
+            bytes[k] = (byte) (bcdBytes >>> (k * 8));
+        }
+        return bytes;
+    }
+
+    private void setDate(int year, int month, int day, int hour, int minute, boolean summerTime) {
+        longValue = epochSecond(ZONE_RULES, year, month, day, hour, minute, summerTime);
+        dataValue = null;
+        dataValueType = DataValueType.DATE;
+    }
+
+    /**
+     * Converts local date to seconds since epoch. Fields out of range roll over to next ones like in lenient calendar,
+     * so invalid dates sent by meters do not fail decoding.
+     *
+     * @param rules
+     *            the rules of zone of local date.
+     * @param year
+     *            the year.
+     * @param month
+     *            the month, from 1 to 12.
+     * @param day
+     *            the day of month, from 1.
+     * @param hour
+     *            the hour of day.
+     * @param minute
+     *            the minute of hour.
+     * @param summerTime
+     *            true if date is in summer time, used only when local time is ambiguous.
+     * @return the seconds since epoch.
+     */
+    static long epochSecond(ZoneRules rules, int year, int month, int day, int hour, int minute,
+            boolean summerTime) {
+        long localSecond = epochDay(year, month, day) * 86400 + hour * 3600 + minute * 60;
+
+        int offset;
+        if (rules.isFixedOffset()) {
+            offset = rules.getOffset(LocalDateTime.MIN).getTotalSeconds();
+        } else {
+            LocalDateTime local = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+            ZoneOffsetTransition transition = rules.getTransition(local);
+            if (transition == null) {
+                offset = rules.getOffset(local).getTotalSeconds();
+            } else if (transition.isOverlap() && !summerTime) {
+                offset = transition.getOffsetAfter().getTotalSeconds();
+            } else {
+                // summer time of overlap, or time skipped by transition which is moved forward
+                offset = transition.getOffsetBefore().getTotalSeconds();
+            }
+        }
+        return localSecond - offset;
+    }
+
+    private static long epochDay(int year, int month, int day) {
+        // days from civil, months are counted from March, so leap day is last day of year
+        long y = year + Math.floorDiv(month - 1, 12);
+        int m = Math.floorMod(month - 1, 12) + 1;
+        if (m <= 2) {
+            y--;
+        }
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468 + day - 1;
+    }
+
+    /**
+     * Returns zone in which local dates of records are interpreted.
+     *
+     * @return the zone of dates.
+     */
+    public static ZoneId getZone() {
+        return ZONE;
+    }
+
     private void decodeDib(byte[] buffer, int i) {
         int ff = ((buffer[i] & 0x30) >> 4);
         switch (ff) {
@@ -486,7 +759,28 @@ public class DataRecord {
      * @return the data value
      */
     public Object getDataValue() {
-        return dataValue;
+        Object value = dataValue;
+        if (value == null) {
+            if (dataValueType == DataValueType.BCD) {
+                value = new Bcd(bcdBytes());
+            } else if (dataValueType == DataValueType.DATE) {
+                value = new Date(longValue * 1000);
+            } else {
+                return null;
+            }
+            dataValue = value;
+        }
+        return value;
+    }
+
+    /**
+     * Returns date of the record as seconds since epoch without creating date object. Valid only for records of
+     * {@link DataValueType#DATE} type.
+     *
+     * @return the date in seconds since epoch.
+     */
+    public long getEpochSecond() {
+        return longValue;
     }
 
     public DataValueType getDataValueType() {
@@ -500,6 +794,9 @@ public class DataRecord {
      * @return the data (value) multiplied by the multiplier as a Double
      */
     public Double getScaledDataValue() {
+        if (dataValueType == DataValueType.BCD) {
+            return longValue * Math.pow(10, multiplierExponent);
+        }
         if (dataValue != null) {
             try {
                 return ((Number) dataValue).doubleValue() * Math.pow(10, multiplierExponent);
@@ -553,6 +850,14 @@ public class DataRecord {
         return unit;
     }
 
+    private void setValueInformation(ValueInformation valueInformation) {
+        description = valueInformation.description;
+        unit = valueInformation.unit;
+        multiplierExponent = valueInformation.multiplierExponent;
+        dateTypeF = valueInformation.dateTypeF;
+        dateTypeG = valueInformation.dateTypeG;
+    }
+
     private void decodeTimeUnit(int vif) {
         if ((vif & 0x02) == 0) {
             if ((vif & 0x01) == 0) {
@@ -1338,7 +1643,7 @@ public class DataRecord {
         switch (dataValueType) {
             case DATE:
             case STRING:
-                builder.append(valuePlacHolder).append((dataValue).toString());
+                builder.append(valuePlacHolder).append(getDataValue().toString());
                 break;
             case DOUBLE:
                 builder.append(scaledValueString).append(getScaledDataValue());
@@ -1352,7 +1657,7 @@ public class DataRecord {
                 break;
             case BCD:
                 if (multiplierExponent == 0) {
-                    builder.append(valuePlacHolder).append((dataValue).toString());
+                    builder.append(valuePlacHolder).append(getDataValue().toString());
                 } else {
                     builder.append(scaledValueString).append(getScaledDataValue());
                 }
@@ -1375,4 +1680,24 @@ public class DataRecord {
     public int getDataLength() {
         return dataLength;
     }
+
+    /**
+     * Description, unit and multiplier coded by single VIF.
+     */
+    private static final class ValueInformation {
+
+        private final Description description;
+        private final DlmsUnit unit;
+        private final int multiplierExponent;
+        private final boolean dateTypeF;
+        private final boolean dateTypeG;
+
+        private ValueInformation(DataRecord record) {
+            this.description = record.description;
+            this.unit = record.unit;
+            this.multiplierExponent = record.multiplierExponent;
+            this.dateTypeF = record.dateTypeF;
+            this.dateTypeG = record.dateTypeG;
+        }
+    }
 }
@@ -0,0 +1,326 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * List of data records which are decoded on first access. While frame is decoded only boundaries of records are found
+ * by {@link #index(int)}, which reads DIF, VIF and their extensions but does not create any objects. Record is decoded
+ * from the original buffer when it is fetched by {@link #get(int)} or matched by {@link #find(byte[], byte[], int)}.
+ * <p>
+ * First lookup builds hash index of records keyed by {@link DataRecord#recordKey(byte[], byte[])}, so following
+ * lookups do not scan whole frame.
+ * <p>
+ * When frame matches {@link FrameLayout} learned from previous frames, records are not indexed. Their boundaries come
+ * from the layout and only values are decoded.
+ * <p>
+ * Buffer must not be modified after indexing. Decoded records are cached, so list can be shared by threads.
+ */
+final class DataRecordList extends AbstractList<DataRecord> implements RandomAccess {
+
+    // start of record, start of VIB, start of data field and end of record
+    static final int FIELDS = 4;
+    // FNV-1a parameters of layout fingerprint
+    static final long FINGERPRINT_BASIS = 0xcbf29ce484222325L;
+    private static final long FINGERPRINT_PRIME = 0x100000001b3L;
+
+    private final byte[] buffer;
+    // layout of frame, if known records share information blocks with records of previous frames
+    private final FrameLayout layout;
+
+    private int[] positions;
+    private DataRecord[] records;
+    private int size;
+
+    // open addressing table of record keys, slot holds index of record increased by one, zero marks empty slot
+    private int[] indexKeys;
+    private int[] indexSlots;
+
+    DataRecordList(byte[] buffer) {
+        this.buffer = buffer;
+        this.layout = null;
+        this.positions = new int[FIELDS * 8];
+        this.records = new DataRecord[8];
+    }
+
+    /**
+     * Creates list of records of frame matching known layout, boundaries of records are taken from the layout.
+     *
+     * @param buffer
+     *            the buffer holding frame.
+     * @param positions
+     *            the boundaries of records relative to first record.
+     * @param offset
+     *            index of first record.
+     * @param layout
+     *            the layout of frame.
+     */
+    DataRecordList(byte[] buffer, int[] positions, int offset, FrameLayout layout) {
+        this.buffer = buffer;
+        this.layout = layout;
+        this.positions = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            this.positions[i] = positions[i] + offset;
+        }
+        this.size = positions.length / FIELDS;
+        this.records = new DataRecord[Math.max(size, 1)];
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns boundaries of indexed records.
+     *
+     * @param offset
+     *            the offset subtracted from boundaries.
+     * @return boundaries of records relative to given offset.
+     */
+    synchronized int[] positions(int offset) {
+        int[] relative = new int[size * FIELDS];
+        for (int i = 0; i < relative.length; i++) {
+            relative[i] = positions[i] - offset;
+        }
+        return relative;
+    }
+
+    /**
+     * Finds boundaries of data record starting at given offset and appends it to the list.
+     *
+     * @param offset
+     *            index of DIF of the record.
+     * @return index of first byte after the record.
+     * @throws DecodingException
+     *             if data field is not supported or record does not fit into buffer.
+     */
+    int index(int offset) throws DecodingException {
+        int dataField = buffer[offset] & 0x0f;
+        int vibStart = vibStart(buffer, offset);
+        int dataStart = dataStart(buffer, vibStart);
+
+        int i = dataStart;
+        if (dataField == 0x0d) {
+            i += DataRecord.variableDataLength(buffer[i] & 0xff) + 1;
+        } else {
+            i += DataRecord.dataFieldLength(dataField);
+        }
+        if (i > buffer.length) {
+            throw new DecodingException(String.format("Data record at offset %d exceeds frame.", offset));
+        }
+
+        add(offset, vibStart, dataStart, i);
+        return i;
+    }
+
+    /**
+     * Finds end of DIB of record.
+     *
+     * @param buffer
+     *            the buffer holding record.
+     * @param offset
+     *            index of DIF of the record.
+     * @return index of VIF of the record.
+     */
+    static int vibStart(byte[] buffer, int offset) {
+        int i = offset;
+        while ((buffer[i++] & 0x80) == 0x80) {
+            // DIFE
+        }
+        return i;
+    }
+
+    /**
+     * Finds end of VIB of record.
+     *
+     * @param buffer
+     *            the buffer holding record.
+     * @param vibStart
+     *            index of VIF of the record.
+     * @return index of data field of the record.
+     * @throws DecodingException
+     *             if VIF is not supported.
+     */
+    static int dataStart(byte[] buffer, int vibStart) throws DecodingException {
+        int i = vibStart;
+        int vif = buffer[i++] & 0xff;
+        boolean furtherVifs;
+        if (vif == 0xfb || vif == 0xfd) {
+            furtherVifs = (buffer[i++] & 0x80) == 0x80;
+        } else if ((vif & 0x7f) == 0x7c) {
+            int length = buffer[i];
+            if (length < 0) {
+                throw new DecodingException("Unsupported length of user defined VIF: " + length);
+            }
+            i += length + 1;
+            furtherVifs = (vif & 0x80) == 0x80;
+        } else if (vif == 0x7b || vif == 0x7d) {
+            // extension indicators are valid only with extension bit set
+            throw new DecodingException(String.format("Unsupported VIF: %02X.", vif));
+        } else {
+            furtherVifs = (vif & 0x80) == 0x80;
+        }
+        if (furtherVifs) {
+            while ((buffer[i++] & 0x80) == 0x80) {
+                // VIFE
+            }
+        }
+        return i;
+    }
+
+    private synchronized void add(int start, int vibStart, int dataStart, int end) {
+        if (size == records.length) {
+            records = Arrays.copyOf(records, size * 2);
+            positions = Arrays.copyOf(positions, size * 2 * FIELDS);
+        }
+        int position = size * FIELDS;
+        positions[position] = start;
+        positions[position + 1] = vibStart;
+        positions[position + 2] = dataStart;
+        positions[position + 3] = end;
+        size++;
+        indexSlots = null;
+    }
+
+    /**
+     * Looks for record with given DIB and VIB comparing them with bytes of frame. Only matching record is decoded.
+     *
+     * @param dib
+     *            the data information block.
+     * @param vib
+     *            the value information block.
+     * @param key
+     *            the key of record, see {@link DataRecord#recordKey(byte[], byte[])}.
+     * @return first matching record or null if there is none.
+     */
+    synchronized DataRecord find(byte[] dib, byte[] vib, int key) {
+        if (indexSlots == null) {
+            buildIndex();
+        }
+
+        int mask = indexSlots.length - 1;
+        for (int slot = key & mask; indexSlots[slot] != 0; slot = (slot + 1) & mask) {
+            int index = indexSlots[slot] - 1;
+            if (indexKeys[slot] == key && matches(index, dib, 0, dib.length, vib, 0, vib.length)) {
+                return get(index);
+            }
+        }
+        return null;
+    }
+
+    private void buildIndex() {
+        // at most half of slots is used
+        int capacity = Integer.highestOneBit(Math.max(size * 2 - 1, 1)) << 1;
+        indexKeys = new int[capacity];
+        indexSlots = new int[capacity];
+
+        int mask = capacity - 1;
+        for (int index = 0; index < size; index++) {
+            int position = index * FIELDS;
+            int start = positions[position];
+            int vibStart = positions[position + 1];
+            int dataStart = positions[position + 2];
+            int key = DataRecord.recordKey(buffer, start, vibStart - start, buffer, vibStart, dataStart - vibStart);
+
+            int slot = key & mask;
+            while (indexSlots[slot] != 0 && !(indexKeys[slot] == key && matches(indexSlots[slot] - 1, buffer, start,
+                    vibStart - start, buffer, vibStart, dataStart - vibStart))) {
+                slot = (slot + 1) & mask;
+            }
+            if (indexSlots[slot] == 0) {
+                // record with same DIB and VIB which comes first is kept
+                indexKeys[slot] = key;
+                indexSlots[slot] = index + 1;
+            }
+        }
+    }
+
+    private boolean matches(int index, byte[] dib, int dibOffset, int dibLength, byte[] vib, int vibOffset,
+            int vibLength) {
+        int position = index * FIELDS;
+        int start = positions[position];
+        int vibStart = positions[position + 1];
+        int dataStart = positions[position + 2];
+        return Arrays.equals(buffer, start, vibStart, dib, dibOffset, dibOffset + dibLength)
+                && Arrays.equals(buffer, vibStart, dataStart, vib, vibOffset, vibOffset + vibLength);
+    }
+
+    /**
+     * Returns fingerprint of DIBs and VIBs of all records, see {@link VariableDataStructure#getLayoutFingerprint()}.
+     *
+     * @return the fingerprint.
+     */
+    synchronized long fingerprint() {
+        if (layout != null) {
+            return layout.fingerprint();
+        }
+
+        long hash = FINGERPRINT_BASIS;
+        for (int index = 0; index < size; index++) {
+            int position = index * FIELDS;
+            hash = fingerprint(hash, buffer, positions[position], positions[position + 2]);
+        }
+        return hash;
+    }
+
+    /**
+     * Adds bytes to fingerprint. Information blocks end with byte which has no extension bit, so fingerprint of
+     * concatenated blocks is the same as of blocks added one by one.
+     *
+     * @param hash
+     *            the fingerprint of previous bytes or {@link #FINGERPRINT_BASIS}.
+     * @param bytes
+     *            the buffer holding bytes.
+     * @param from
+     *            index of first byte.
+     * @param to
+     *            index after last byte.
+     * @return the fingerprint.
+     */
+    static long fingerprint(long hash, byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * FINGERPRINT_PRIME;
+        }
+        return hash;
+    }
+
+    @Override
+    public synchronized DataRecord get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+
+        DataRecord record = records[index];
+        if (record == null) {
+            DataRecord header = layout == null ? null : layout.header(index);
+            try {
+                if (header == null) {
+                    record = new DataRecord();
+                    record.decode(buffer, positions[index * FIELDS]);
+                    if (layout != null) {
+                        layout.header(index, record);
+                    }
+                } else {
+                    record = new DataRecord(header);
+                    record.decodeData(buffer, positions[index * FIELDS + 2]);
+                }
+            } catch (DecodingException e) {
+                // boundaries were checked during indexing
+                throw new IllegalStateException("Could not decode indexed data record.", e);
+            }
+            records[index] = record;
+        }
+        return record;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+}
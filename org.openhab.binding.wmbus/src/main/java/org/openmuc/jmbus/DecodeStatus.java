@@ -0,0 +1,42 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus;
+
+/**
+ * Outcome of decoding of {@link VariableDataStructure}, see {@link VariableDataStructure#tryDecode()}. Frames which can
+ * not be decoded in normal operation, such as frames of foreign meters, are reported by status instead of exception.
+ */
+public enum DecodeStatus {
+    /**
+     * Frame was decoded, its data records are available.
+     */
+    OK,
+    /**
+     * Frame is encrypted and there is no key registered for the meter.
+     */
+    NEEDS_KEY,
+    /**
+     * Frame is encrypted and decryption with registered key failed.
+     */
+    WRONG_KEY,
+    /**
+     * Frame uses manufacturer specific CI field (0xA0 to 0xB7).
+     */
+    MANUFACTURER_CI,
+    /**
+     * Frame uses CI field which is not supported.
+     */
+    UNSUPPORTED_CI,
+    /**
+     * Frame is corrupted or uses unsupported coding, details are kept in
+     * {@link VariableDataStructure#getDecodeError()}.
+     */
+    MALFORMED;
+
+    public boolean isDecoded() {
+        return this == OK;
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Formats of data records sent by meters, needed to decode compact frames (CI 0x79). Format is the sequence of DIBs and
+ * VIBs of all records of a full frame, compact frame carries only values and format signature, which is CRC of the
+ * format. Formats are learned from full frames and kept per meter and signature.
+ * <p>
+ * Cache holds limited number of formats, least recently used ones are evicted. It can be saved to file and loaded
+ * back, so compact frames can be decoded right after restart.
+ */
+public final class FormatCache {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final FormatCache DEFAULT = new FormatCache(DEFAULT_CAPACITY);
+
+    // file header, "WMFC" followed by version
+    private static final int MAGIC = 0x574d4643;
+    private static final int VERSION = 1;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, byte[]> formats;
+    // guarded by formats
+    private long modifications;
+
+    /**
+     * Creates cache of given size.
+     *
+     * @param capacity
+     *            the maximum number of formats kept.
+     */
+    public FormatCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.formats = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<Key, byte[]> eldest) {
+                return size() > FormatCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns cache used when structures are decoded.
+     *
+     * @return the shared cache.
+     */
+    public static FormatCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Computes signature of given format.
+     *
+     * @param format
+     *            the buffer holding DIBs and VIBs of data records.
+     * @param offset
+     *            index of first byte of format.
+     * @param length
+     *            length of format.
+     * @return the format signature.
+     */
+    public static int signature(byte[] format, int offset, int length) {
+        return CRC16.calculateCrc16(format, offset, length);
+    }
+
+    /**
+     * Remembers format of a meter.
+     *
+     * @param address
+     *            the link layer address of meter.
+     * @param format
+     *            DIBs and VIBs of all data records, array is not copied and must not be modified.
+     */
+    public void put(SecondaryAddress address, byte[] format) {
+        put(address, signature(format, 0, format.length), format);
+    }
+
+    void put(SecondaryAddress address, int signature, byte[] format) {
+        Key key = new Key(address.asLong(), signature);
+        synchronized (formats) {
+            byte[] known = formats.get(key);
+            if (known == null || !Arrays.equals(known, format)) {
+                formats.put(key, format);
+                modifications++;
+            }
+        }
+    }
+
+    /**
+     * Returns format of a meter.
+     *
+     * @param address
+     *            the link layer address of meter.
+     * @param signature
+     *            the format signature received in compact frame.
+     * @return DIBs and VIBs of all data records or null if format is not known, array must not be modified.
+     */
+    public byte[] get(SecondaryAddress address, int signature) {
+        synchronized (formats) {
+            return formats.get(new Key(address.asLong(), signature));
+        }
+    }
+
+    /**
+     * Returns number of changes made to cache since it was created, it can be compared with value returned earlier to
+     * find out whether cache has to be saved.
+     *
+     * @return the change counter.
+     */
+    public long modifications() {
+        synchronized (formats) {
+            return modifications;
+        }
+    }
+
+    public int size() {
+        synchronized (formats) {
+            return formats.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (formats) {
+            formats.clear();
+            modifications++;
+        }
+    }
+
+    /**
+     * Saves formats to a file. File is written next to the target and then moved over it, so it is never left
+     * incomplete.
+     *
+     * @param file
+     *            the target file.
+     * @throws IOException
+     *             if file could not be written.
+     */
+    public void save(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            write(out);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Loads formats from a file written by {@link #save(Path)}, they are added to formats already known. Nothing is
+     * loaded if file does not exist.
+     *
+     * @param file
+     *            the source file.
+     * @throws IOException
+     *             if file could not be read or is not valid.
+     */
+    public void load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            read(in);
+        }
+    }
+
+    void write(OutputStream stream) throws IOException {
+        List<Entry<Key, byte[]>> entries;
+        synchronized (formats) {
+            entries = new ArrayList<>(formats.entrySet());
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        // least recently used first, so order is kept after loading
+        for (Entry<Key, byte[]> entry : entries) {
+            out.writeLong(entry.getKey().address);
+            out.writeShort(entry.getKey().signature);
+            out.writeShort(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+        out.flush();
+    }
+
+    void read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a format cache file.");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of format cache file: " + version);
+        }
+
+        int count = in.readInt();
+        Map<Key, byte[]> loaded = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            long address = in.readLong();
+            int signature = in.readUnsignedShort();
+            byte[] format = new byte[in.readUnsignedShort()];
+            in.readFully(format);
+            loaded.put(new Key(address, signature), format);
+        }
+
+        synchronized (formats) {
+            // formats learned since start are more recent than loaded ones
+            loaded.putAll(formats);
+            formats.clear();
+            formats.putAll(loaded);
+            modifications++;
+        }
+    }
+
+    private static final class Key {
+
+        private final long address;
+        private final int signature;
+
+        private Key(long address, int signature) {
+            this.address = address;
+            this.signature = signature & 0xffff;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(address) * 31 + signature;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return address == other.address && signature == other.signature;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Layout of data records learned from a frame of a meter. Meters send the same DIBs and VIBs in every telegram and
+ * only values change, so once frame matches the layout its records are not parsed again: their boundaries are taken
+ * from the layout and information blocks are decoded once and shared by records of all frames, only values are decoded
+ * from data fields.
+ * <p>
+ * Frame matches the layout when it has same length and all bytes which are not values are same: DIBs, VIBs, lengths
+ * of variable data, fill bytes and DIF of manufacturer data. Frame which does not match is decoded in full and its
+ * layout replaces the previous one.
+ * <p>
+ * Layouts are kept in a direct mapped cache keyed by link layer address, so memory used by them is bounded.
+ */
+final class FrameLayout {
+
+    // number of slots of layout cache, power of two
+    private static final int CACHE_SIZE = 1024;
+    private static final AtomicReferenceArray<FrameLayout> CACHE = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    private final SecondaryAddress address;
+    private final int length;
+    // end of data records or of last record if it exceeds them
+    private final int end;
+    // record boundaries relative to start of data records, see DataRecordList
+    private final int[] positions;
+    // pairs of start and end of bytes which are not values, relative to start of data records
+    private final int[] structureRanges;
+    private final byte[] structure;
+    // relative index of manufacturer specific DIF or -1 when frame has no manufacturer data
+    private final int manufacturerData;
+
+    // DIBs and VIBs of all records and their signature, see FormatCache
+    private final byte[] format;
+    private final int signature;
+    private final long fingerprint;
+
+    private final AtomicReferenceArray<DataRecord> headers;
+
+    private FrameLayout(SecondaryAddress address, byte[] buffer, int offset, int length, int[] positions,
+            int manufacturerData) {
+        this.address = address;
+        this.length = length;
+        this.positions = positions;
+        this.manufacturerData = manufacturerData;
+
+        int records = positions.length / DataRecordList.FIELDS;
+        int[] ranges = new int[(records + 1) * 2];
+        int rangeCount = 0;
+        int cursor = 0;
+        for (int index = 0; index < records; index++) {
+            int position = index * DataRecordList.FIELDS;
+            int dataStart = positions[position + 2];
+            if ((buffer[offset + positions[position]] & 0x0f) == 0x0d) {
+                // length of variable data determines position of following records
+                dataStart++;
+            }
+            // fill bytes before record are joined with its information blocks
+            ranges[rangeCount++] = cursor;
+            ranges[rangeCount++] = dataStart;
+            cursor = positions[position + 3];
+        }
+        if (manufacturerData >= 0) {
+            ranges[rangeCount++] = cursor;
+            ranges[rangeCount++] = manufacturerData + 1;
+        } else if (cursor < length - 2) {
+            // fill bytes after last record
+            ranges[rangeCount++] = cursor;
+            ranges[rangeCount++] = length - 2;
+        }
+        this.end = Math.max(cursor, length);
+        this.structureRanges = Arrays.copyOf(ranges, rangeCount);
+
+        int structureLength = 0;
+        for (int range = 0; range < rangeCount; range += 2) {
+            structureLength += ranges[range + 1] - ranges[range];
+        }
+        this.structure = new byte[structureLength];
+        int target = 0;
+        for (int range = 0; range < rangeCount; range += 2) {
+            int rangeLength = ranges[range + 1] - ranges[range];
+            System.arraycopy(buffer, offset + ranges[range], structure, target, rangeLength);
+            target += rangeLength;
+        }
+
+        int formatLength = 0;
+        for (int position = 0; position < positions.length; position += DataRecordList.FIELDS) {
+            formatLength += positions[position + 2] - positions[position];
+        }
+        this.format = new byte[formatLength];
+        target = 0;
+        for (int position = 0; position < positions.length; position += DataRecordList.FIELDS) {
+            int headerLength = positions[position + 2] - positions[position];
+            System.arraycopy(buffer, offset + positions[position], format, target, headerLength);
+            target += headerLength;
+        }
+        this.signature = FormatCache.signature(format, 0, formatLength);
+        this.fingerprint = DataRecordList.fingerprint(DataRecordList.FINGERPRINT_BASIS, format, 0, formatLength);
+
+        this.headers = new AtomicReferenceArray<>(records);
+    }
+
+    /**
+     * Learns layout of frame which was indexed by given list and keeps it for the address. Format of frames is
+     * remembered in given cache when layout is new for the address, so compact frames of the meter can be decoded.
+     *
+     * @param address
+     *            the link layer address of meter.
+     * @param dataRecords
+     *            the records indexed from data records of frame.
+     * @param offset
+     *            index of first data record.
+     * @param length
+     *            length of data records.
+     * @param manufacturerData
+     *            index of manufacturer specific DIF or -1 when frame has no manufacturer data.
+     * @param formats
+     *            the cache of formats.
+     * @return layout of the frame.
+     */
+    static FrameLayout learn(SecondaryAddress address, DataRecordList dataRecords, int offset, int length,
+            int manufacturerData, FormatCache formats) {
+        FrameLayout layout = new FrameLayout(address, dataRecords.buffer(), offset, length,
+                dataRecords.positions(offset), manufacturerData < 0 ? -1 : manufacturerData - offset);
+        FrameLayout previous = CACHE.getAndSet(slot(address), layout);
+        if (previous == null || !previous.address.equals(address) || previous.signature != layout.signature
+                || !Arrays.equals(previous.format, layout.format)) {
+            formats.put(address, layout.signature, layout.format);
+        }
+        return layout;
+    }
+
+    /**
+     * Returns layout learned for the address if given frame matches it.
+     *
+     * @param address
+     *            the link layer address of meter.
+     * @param buffer
+     *            the buffer holding frame.
+     * @param offset
+     *            index of first data record.
+     * @param length
+     *            length of data records.
+     * @return layout or null if there is no layout of the address or frame does not match it.
+     */
+    static FrameLayout lookup(SecondaryAddress address, byte[] buffer, int offset, int length) {
+        FrameLayout layout = CACHE.get(slot(address));
+        if (layout == null || !layout.address.equals(address) || !layout.matches(buffer, offset, length)) {
+            return null;
+        }
+        return layout;
+    }
+
+    private static int slot(SecondaryAddress address) {
+        long hash = address.asLong() * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (CACHE_SIZE - 1);
+    }
+
+    boolean matches(byte[] buffer, int offset, int length) {
+        if (length != this.length || offset + end > buffer.length) {
+            return false;
+        }
+        int source = 0;
+        for (int range = 0; range < structureRanges.length; range += 2) {
+            int from = offset + structureRanges[range];
+            int rangeLength = structureRanges[range + 1] - structureRanges[range];
+            if (!Arrays.equals(buffer, from, from + rangeLength, structure, source, source + rangeLength)) {
+                return false;
+            }
+            source += rangeLength;
+        }
+        return true;
+    }
+
+    /**
+     * Creates list of records of frame matching this layout.
+     *
+     * @param buffer
+     *            the buffer holding frame.
+     * @param offset
+     *            index of first data record.
+     * @return records which are decoded on first access.
+     */
+    DataRecordList dataRecords(byte[] buffer, int offset) {
+        return new DataRecordList(buffer, positions, offset, this);
+    }
+
+    /**
+     * Returns index of manufacturer specific DIF in frame matching this layout.
+     *
+     * @param offset
+     *            index of first data record.
+     * @return index of DIF or -1 when frames of this layout have no manufacturer data.
+     */
+    int manufacturerData(int offset) {
+        return manufacturerData < 0 ? -1 : offset + manufacturerData;
+    }
+
+    long fingerprint() {
+        return fingerprint;
+    }
+
+    DataRecord header(int index) {
+        return headers.get(index);
+    }
+
+    void header(int index, DataRecord record) {
+        headers.compareAndSet(index, null, record);
+    }
+}
@@ -5,14 +5,15 @@
  */
 package org.openmuc.jmbus;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * This class represents a secondary address. Use the static initializer to initialize the
+ * <p>
+ * Address is kept as single long value, fields are derived from it when they are requested. Instances are interned in
+ * a small cache, so frames sent by same meter usually share one instance.
  */
 public class SecondaryAddress implements Comparable<SecondaryAddress> {
 
@@ -20,14 +21,17 @@ public class SecondaryAddress implements Comparable<SecondaryAddress> {
 
     private static final int ID_NUMBER_LENGTH = 4;
 
-    private final String manufacturerId;
-    private final Bcd deviceId;
-    private final int version;
-    private final DeviceType deviceType;
-    private final byte[] bytes;
-    private final int hashCode;
+    // number of slots of intern cache, power of two
+    private static final int CACHE_SIZE = 1024;
+    private static final AtomicReferenceArray<SecondaryAddress> CACHE = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    private final long longValue;
     private final boolean isLongHeader;
 
+    private volatile String manufacturerId;
+    private volatile Bcd deviceId;
+    private volatile byte[] bytes;
+
     /**
      * Instantiate a new secondary address within a long header.
      * 
@@ -38,7 +42,7 @@ public class SecondaryAddress implements Comparable<SecondaryAddress> {
      * @return a new secondary address.
      */
     public static SecondaryAddress newFromLongHeader(byte[] buffer, int offset) {
-        return new SecondaryAddress(buffer, offset, true);
+        return intern(pack(buffer, offset), true);
     }
 
     /**
@@ -51,7 +55,7 @@ public class SecondaryAddress implements Comparable<SecondaryAddress> {
      * @return a new secondary address.
      */
     public static SecondaryAddress newFromWMBusHeader(byte[] buffer, int offset) {
-        return new SecondaryAddress(buffer, offset, false);
+        return intern(pack(buffer, offset), false);
     }
 
     /**
@@ -85,24 +89,77 @@ public class SecondaryAddress implements Comparable<SecondaryAddress> {
         }
         byte[] buffer = byteBuffer.put(version).put(media).array();
 
-        return new SecondaryAddress(buffer, 0, true);
+        return intern(pack(buffer, 0), true);
+    }
+
+    /**
+     * Returns cached instance for given address or creates new one. Cache is direct mapped, address replaces any other
+     * address which occupied its slot.
+     */
+    private static SecondaryAddress intern(long longValue, boolean longHeader) {
+        int slot = slot(longValue);
+        SecondaryAddress cached = CACHE.get(slot);
+        if (cached != null && cached.longValue == longValue && cached.isLongHeader == longHeader) {
+            return cached;
+        }
+
+        SecondaryAddress address = new SecondaryAddress(longValue, longHeader);
+        CACHE.set(slot, address);
+        return address;
+    }
+
+    private static int slot(long longValue) {
+        long hash = longValue * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (CACHE_SIZE - 1);
     }
 
     /**
      * The {@link SecondaryAddress} as byte array.
      * 
-     * @return the byte array (octet string) representation.
+     * @return the byte array (octet string) representation, a copy which can be modified by caller.
      */
     public byte[] asByteArray() {
+        return bytes().clone();
+    }
+
+    /**
+     * Returns bytes of address cached by instance. Instances are shared by all frames of a meter, so returned array
+     * must not be modified.
+     */
+    byte[] bytes() {
+        byte[] bytes = this.bytes;
+        if (bytes == null) {
+            bytes = new byte[SECONDARY_ADDRESS_LENGTH];
+            for (int i = 0; i < SECONDARY_ADDRESS_LENGTH; i++) {
+                bytes[i] = byteAt(i);
+            }
+            this.bytes = bytes;
+        }
         return bytes;
     }
 
+    /**
+     * The {@link SecondaryAddress} packed into a long value, first byte of {@link #asByteArray()} being the most
+     * significant one.
+     * 
+     * @return the long representation of address.
+     */
+    public long asLong() {
+        return longValue;
+    }
+
     /**
      * Get the manufacturer ID.
      * 
      * @return the ID.
      */
     public String getManufacturerId() {
+        String manufacturerId = this.manufacturerId;
+        if (manufacturerId == null) {
+            int offset = isLongHeader ? ID_NUMBER_LENGTH : 0;
+            manufacturerId = decodeManufacturerId((byteAt(offset) & 0xff) + ((byteAt(offset + 1) & 0xff) << 8));
+            this.manufacturerId = manufacturerId;
+        }
         return manufacturerId;
     }
 
@@ -112,6 +169,16 @@ public class SecondaryAddress implements Comparable<SecondaryAddress> {
      * @return the device ID
      */
     public Bcd getDeviceId() {
+        Bcd deviceId = this.deviceId;
+        if (deviceId == null) {
+            int offset = isLongHeader ? 0 : 2;
+            byte[] idArray = new byte[ID_NUMBER_LENGTH];
+            for (int i = 0; i < ID_NUMBER_LENGTH; i++) {
+                idArray[i] = byteAt(offset + i);
+            }
+            deviceId = new Bcd(idArray);
+            this.deviceId = deviceId;
+        }
         return deviceId;
     }
 
@@ -121,7 +188,7 @@ public class SecondaryAddress implements Comparable<SecondaryAddress> {
      * @return the device type
      */
     public DeviceType getDeviceType() {
-        return deviceType;
+        return DeviceType.getInstance(byteAt(7) & 0xff);
     }
 
     /**
@@ -130,7 +197,7 @@ public class SecondaryAddress implements Comparable<SecondaryAddress> {
      * @return the version.
      */
     public int getVersion() {
-        return version;
+        return byteAt(6) & 0xff;
     }
 
     public boolean isLongHeader() {
@@ -139,14 +206,15 @@ public class SecondaryAddress implements Comparable<SecondaryAddress> {
 
     @Override
     public String toString() {
-        return new StringBuilder().append("manufacturer ID: ").append(manufacturerId).append(", device ID: ")
-                .append(deviceId).append(", device version: ").append(version).append(", device type: ")
-                .append(deviceType).append(", as bytes: ").append(HexUtils.bytesToHex(bytes)).toString();
+        return new StringBuilder().append("manufacturer ID: ").append(getManufacturerId()).append(", device ID: ")
+                .append(getDeviceId()).append(", device version: ").append(getVersion()).append(", device type: ")
+                .append(getDeviceType()).append(", as bytes: ").append(HexUtils.bytesToHex(bytes()))
+                .toString();
     }
 
     @Override
     public int hashCode() {
-        return this.hashCode;
+        return Long.hashCode(longValue);
     }
 
     @Override
@@ -157,45 +225,40 @@ public class SecondaryAddress implements Comparable<SecondaryAddress> {
 
         SecondaryAddress other = (SecondaryAddress) obj;
 
-        return Arrays.equals(this.bytes, other.bytes);
+        return this.longValue == other.longValue;
     }
 
     @Override
     public int compareTo(SecondaryAddress sa) {
-        return Integer.compare(hashCode(), sa.hashCode());
+        return Long.compare(longValue, sa.longValue);
     }
 
-    private SecondaryAddress(byte[] buffer, int offset, boolean longHeader) {
-        this.bytes = Arrays.copyOfRange(buffer, offset, offset + SECONDARY_ADDRESS_LENGTH);
-
-        this.hashCode = Arrays.hashCode(this.bytes);
+    private SecondaryAddress(long longValue, boolean longHeader) {
+        this.longValue = longValue;
         this.isLongHeader = longHeader;
+    }
 
-        try (ByteArrayInputStream is = new ByteArrayInputStream(this.bytes)) {
-            if (longHeader) {
-                this.deviceId = decodeDeviceId(is);
-                this.manufacturerId = decodeManufacturerId(is);
-            } else {
-                this.manufacturerId = decodeManufacturerId(is);
-                this.deviceId = decodeDeviceId(is);
-            }
-            this.version = is.read() & 0xff;
-            this.deviceType = DeviceType.getInstance(is.read() & 0xff);
-        } catch (IOException e) {
-            // should not occur
-            throw new RuntimeException(e);
+    private byte byteAt(int index) {
+        return (byte) (longValue >>> ((SECONDARY_ADDRESS_LENGTH - 1 - index) * 8));
+    }
+
+    private static long pack(byte[] buffer, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + SECONDARY_ADDRESS_LENGTH; i++) {
+            // missing bytes of too short buffer are zeros
+            value = (value << 8) | (i < buffer.length ? buffer[i] & 0xff : 0);
         }
+        return value;
     }
 
-    private static String decodeManufacturerId(ByteArrayInputStream is) {
-        int manufacturerIdAsInt = (is.read() & 0xff) + (is.read() << 8);
+    private static String decodeManufacturerId(int manufacturerIdAsInt) {
         char c = (char) ((manufacturerIdAsInt & 0x1f) + 64);
         manufacturerIdAsInt = (manufacturerIdAsInt >> 5);
         char c1 = (char) ((manufacturerIdAsInt & 0x1f) + 64);
         manufacturerIdAsInt = (manufacturerIdAsInt >> 5);
         char c2 = (char) ((manufacturerIdAsInt & 0x1f) + 64);
 
-        return new StringBuilder().append(c2).append(c1).append(c).toString();
+        return new String(new char[] { c2, c1, c });
     }
 
     private static byte[] encodeManufacturerId(String manufactureId) {
@@ -215,15 +278,4 @@ public class SecondaryAddress implements Comparable<SecondaryAddress> {
 
         return buf.array();
     }
-
-    private static Bcd decodeDeviceId(ByteArrayInputStream is) throws IOException {
-        int msgSize = 4;
-        byte[] idArray = new byte[msgSize];
-        int actual = is.read(idArray);
-
-        if (msgSize != actual) {
-            throw new IOException("Failed to read BCD data. Data missing.");
-        }
-        return new Bcd(idArray);
-    }
 }
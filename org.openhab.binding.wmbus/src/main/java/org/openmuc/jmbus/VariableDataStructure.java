@@ -5,17 +5,11 @@
  */
 package org.openmuc.jmbus;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.text.MessageFormat;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Representation of the data transmitted in RESP-UD (M-Bus) and SND-NR (wM-Bus) messages.
@@ -24,12 +18,10 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class VariableDataStructure {
 
-    private static final ConcurrentHashMap<SecondaryAddress, List<DataRecord>> deviceHistory = new ConcurrentHashMap<>();
-
     private final byte[] buffer;
     private final int offset;
     private final int length;
-    private byte[] header = new byte[0];
+    private int headerLength;
     private final SecondaryAddress linkLayerSecondaryAddress;
     private final Map<SecondaryAddress, byte[]> keyMap;
 
@@ -37,9 +29,11 @@ public class VariableDataStructure {
     private int accessNumber;
     private int status;
 
-    /* Extended Link Layer (ELL) (0x8d) specific */
+    /* Extended Link Layer (ELL) (0x8c, 0x8d) specific */
+    private static final int ELL_HEADER_LENGTH = 3;
+    private static final int ELL_SN_HEADER_LENGTH = 7;
     private byte communicationControl;
-    private byte[] sessionNumber;
+    private int sessionNumber;
     /* End of ELL specific */
 
     private EncryptionMode encryptionMode;
@@ -49,6 +43,8 @@ public class VariableDataStructure {
     private boolean moreRecordsFollow = false;
 
     private boolean decoded = false;
+    private DecodeStatus decodeStatus;
+    private DecodingException decodeError;
 
     private List<DataRecord> dataRecords;
 
@@ -61,76 +57,128 @@ public class VariableDataStructure {
         this.length = length;
         this.linkLayerSecondaryAddress = linkLayerSecondaryAddress;
         this.keyMap = keyMap;
-        this.dataRecords = new LinkedList<>();
+        this.dataRecords = Collections.emptyList();
     }
 
     /**
-     * This method is used to
+     * Decodes the structure, see {@link #tryDecode()}.
      * 
      * @throws DecodingException
+     *             if frame could not be decoded.
      */
     public void decode() throws DecodingException {
+        if (!tryDecode().isDecoded()) {
+            throw getDecodeError();
+        }
+    }
+
+    /**
+     * Decodes the structure. Frames which can not be decoded in normal operation, for example because of missing key
+     * or CI field which is not supported, are reported by status, no exception is created for them. Decoding is
+     * attempted again on next call if it did not succeed.
+     * 
+     * @return status of decoding.
+     */
+    public DecodeStatus tryDecode() {
         if (!decoded) {
+            decodeError = null;
             try {
-                ciField = readUnsignedByte(buffer, offset);
-
-                switch (ciField) {
-                    case 0x72:
-                        decodeLongHeaderData();
-                        break;
-                    case 0x78: /* no header */
-                        encryptionMode = EncryptionMode.NONE;
-                        decodeDataRecords(buffer, offset + 1, length - 1);
-                        break;
-                    case 0x7a: /* short header */
-                        decodeShortHeader();
-                        break;
-                    case 0x8d: /* Extended Link Layer */
-                        decodeExtendedLinkLayer(buffer, offset + 1); // 6 bytes header + CRC
-                        header = Arrays.copyOfRange(buffer, offset, offset + 7); // don't include CRC
-                        vdr = new byte[length - 7];
-                        System.arraycopy(buffer, offset + 7, vdr, 0, length - 7);
-                        if (encryptionMode.equals(EncryptionMode.AES_128)) {
-                            decryptMessage(getKey());
-                        }
-
-                        if ((vdr[2] & 0xff) == 0x78) {
-                            decodeDataRecords(vdr, 3, length - 10);
-                        } else if ((vdr[2] & 0xff) == 0x79) {
-                            decodeShortFrame(vdr, 3, length - 10);
-                        }
-                        break;
-                    case 0x33:
-                        String msg = String.format(
-                                "Received telegram with CI 0x33. Decoding not implemented. Device Serial: %s, Manufacturer: %s.",
-                                linkLayerSecondaryAddress.getDeviceId().toString(),
-                                linkLayerSecondaryAddress.getManufacturerId());
-                        throw new DecodingException(msg);
-                    default:
-                        String strFormat = "Unable to decode message with this CI Field: 0x%02X.";
-                        if ((ciField >= 0xA0) && (ciField <= 0xB7)) {
-                            strFormat = "Manufacturer specific CI: 0x%02X.";
-                        }
-
-                        throw new DecodingException(String.format(strFormat, ciField));
-                }
+                decodeStatus = decodeFrame();
+            } catch (DecodingException e) {
+                decodeStatus = DecodeStatus.MALFORMED;
+                decodeError = e;
             } catch (RuntimeException e) {
-                throw new DecodingException(e);
+                decodeStatus = DecodeStatus.MALFORMED;
+                decodeError = new DecodingException(e);
             }
-            decoded = true;
+            decoded = decodeStatus.isDecoded();
+        }
+        return decodeStatus;
+    }
+
+    /**
+     * Returns status of last decoding.
+     * 
+     * @return status or null if structure was not decoded yet.
+     */
+    public DecodeStatus getDecodeStatus() {
+        return decodeStatus;
+    }
+
+    /**
+     * Returns error describing why decoding did not succeed. Error is created on first call for statuses which are
+     * reported without exception.
+     * 
+     * @return error or null if structure was decoded or not decoded yet.
+     */
+    public DecodingException getDecodeError() {
+        if (decodeError == null && decodeStatus != null && !decodeStatus.isDecoded()) {
+            decodeError = new DecodingException(statusMessage(decodeStatus));
+        }
+        return decodeError;
+    }
+
+    private String statusMessage(DecodeStatus status) {
+        switch (status) {
+            case NEEDS_KEY:
+                return "Unable to decode encrypted payload because no key for the following secondary address was registered: "
+                        + linkLayerSecondaryAddress;
+            case WRONG_KEY:
+                String deviceId = linkLayerSecondaryAddress.getDeviceId().toString();
+                String manId = linkLayerSecondaryAddress.getManufacturerId();
+                return String.format("%s - %s - Decryption unsuccessful! Wrong AES/CTR Key?", deviceId, manId);
+            case MANUFACTURER_CI:
+                return String.format("Manufacturer specific CI: 0x%02X.", ciField);
+            case UNSUPPORTED_CI:
+                if (ciField == 0x33 && linkLayerSecondaryAddress != null) {
+                    return String.format(
+                            "Received telegram with CI 0x33. Decoding not implemented. Device Serial: %s, Manufacturer: %s.",
+                            linkLayerSecondaryAddress.getDeviceId().toString(),
+                            linkLayerSecondaryAddress.getManufacturerId());
+                }
+                return String.format("Unable to decode message with this CI Field: 0x%02X.", ciField);
+            default:
+                return "Frame could not be decoded: " + status;
+        }
+    }
+
+    private DecodeStatus decodeFrame() throws DecodingException {
+        ciField = readUnsignedByte(buffer, offset);
+
+        switch (ciField) {
+            case 0x72:
+                return decodeLongHeaderData();
+            case 0x78: /* no header */
+                encryptionMode = EncryptionMode.NONE;
+                decodeDataRecords(buffer, offset + 1, length - 1);
+                return DecodeStatus.OK;
+            case 0x79: /* compact frame, no header */
+                encryptionMode = EncryptionMode.NONE;
+                decodeShortFrame(buffer, offset + 1, length - 1);
+                return DecodeStatus.OK;
+            case 0x7a: /* short header */
+                return decodeShortHeader();
+            case 0x8c: /* Extended Link Layer without session number */
+            case 0x8d: /* Extended Link Layer with session number */
+                return decodeExtendedLinkLayer();
+            default:
+                if ((ciField >= 0xA0) && (ciField <= 0xB7)) {
+                    return DecodeStatus.MANUFACTURER_CI;
+                }
+                // including CI 0x33, decoding of which is not implemented
+                return DecodeStatus.UNSUPPORTED_CI;
         }
     }
 
-    private void decodeShortHeader() throws DecodingException {
+    private DecodeStatus decodeShortHeader() throws DecodingException {
         decodeShortHeader(buffer, offset + 1);
 
         switch (encryptionMode) {
             case NONE:
                 decodeDataRecords(buffer, offset + 5, length - 5);
-                break;
+                return DecodeStatus.OK;
             case AES_CBC_IV:
-                decryptAesCbcIv(buffer, offset + 5, numberOfEncryptedBlocks * 16);
-                break;
+                return decryptAesCbcIv(buffer, offset + 5, numberOfEncryptedBlocks * 16);
             case AES_128:
             case AES_CBC_IV_0:
             case DES_CBC:
@@ -150,25 +198,22 @@ public class VariableDataStructure {
         }
     }
 
-    private void decryptAesCbcIv(byte[] buffer, int offset, int encryptedDataLength) throws DecodingException {
+    private DecodeStatus decryptAesCbcIv(byte[] buffer, int offset, int encryptedDataLength)
+            throws DecodingException {
         vdr = new byte[encryptedDataLength];
 
         System.arraycopy(buffer, offset, vdr, 0, encryptedDataLength);
 
-        byte[] key = keyMap.get(linkLayerSecondaryAddress);
-        if (key == null) {
-            String msg = MessageFormat.format(
-                    "Unable to decode encrypted payload. \nSecondary address key was not registered: \n{0}",
-                    linkLayerSecondaryAddress);
-            throw new DecodingException(msg);
+        DecodeStatus status = decrypt(getKey());
+        if (status != DecodeStatus.OK) {
+            return status;
         }
-
-        decodeDataRecords(decryptMessage(key), 0, encryptedDataLength);
+        decodeDataRecords(vdr, 0, encryptedDataLength);
+        return DecodeStatus.OK;
     }
 
-    private void decodeLongHeaderData() throws DecodingException {
-        final int headerLength = 13;
-        header = Arrays.copyOfRange(buffer, offset, offset + headerLength);
+    private DecodeStatus decodeLongHeaderData() throws DecodingException {
+        headerLength = 13;
 
         secondaryAddress = SecondaryAddress.newFromLongHeader(buffer, offset + 1);
 
@@ -182,7 +227,10 @@ public class VariableDataStructure {
                 // nothing to do
                 break;
             case AES_CBC_IV:
-                decryptMessage(getKey());
+                DecodeStatus status = decrypt(getKey());
+                if (status != DecodeStatus.OK) {
+                    return status;
+                }
                 break;
             case AES_128:
             case AES_CBC_IV_0:
@@ -202,6 +250,7 @@ public class VariableDataStructure {
                 throw new DecodingException("Unsupported encryption mode used: " + encryptionMode);
         }
         decodeDataRecords(vdr, 0, length - headerLength);
+        return DecodeStatus.OK;
     }
 
     public SecondaryAddress getSecondaryAddress() {
@@ -228,27 +277,133 @@ public class VariableDataStructure {
         return status;
     }
 
+    /**
+     * Returns data records found in frame. Records are decoded when they are fetched from the list for the first time.
+     * 
+     * @return data records.
+     */
     public List<DataRecord> getDataRecords() {
         return dataRecords;
     }
 
+    /**
+     * Looks for data record with given DIB and VIB. Other records found in frame are not decoded.
+     * 
+     * @param dib
+     *            the data information block.
+     * @param vib
+     *            the value information block.
+     * @return first matching data record or null if frame does not contain such record.
+     */
+    public DataRecord findDataRecord(byte[] dib, byte[] vib) {
+        return findDataRecord(dib, vib, DataRecord.recordKey(dib, vib));
+    }
+
+    /**
+     * Looks for data record with given DIB and VIB using key computed in advance.
+     * 
+     * @param dib
+     *            the data information block.
+     * @param vib
+     *            the value information block.
+     * @param key
+     *            the key of record, see {@link DataRecord#recordKey(byte[], byte[])}.
+     * @return first matching data record or null if frame does not contain such record.
+     */
+    public DataRecord findDataRecord(byte[] dib, byte[] vib, int key) {
+        if (dataRecords instanceof DataRecordList) {
+            return ((DataRecordList) dataRecords).find(dib, vib, key);
+        }
+
+        for (DataRecord dataRecord : dataRecords) {
+            if (Arrays.equals(dataRecord.getDib(), dib) && Arrays.equals(dataRecord.getVib(), vib)) {
+                return dataRecord;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns fingerprint of record layout of frame, computed from DIBs and VIBs of all data records without decoding
+     * them. Frames carrying same records in same order have same fingerprint, whatever the values are.
+     * 
+     * @return fingerprint of layout.
+     */
+    public long getLayoutFingerprint() {
+        if (dataRecords instanceof DataRecordList) {
+            return ((DataRecordList) dataRecords).fingerprint();
+        }
+        return DataRecordList.FINGERPRINT_BASIS;
+    }
+
     public boolean moreRecordsFollow() {
         return moreRecordsFollow;
     }
 
-    private void decodeExtendedLinkLayer(byte[] buffer, int offset) {
-        int i = offset;
-
+    /**
+     * Decodes frame with extended link layer. Payload is validated and decoded where it is found in frame buffer, only
+     * encrypted payload is decrypted into array of this structure.
+     */
+    private DecodeStatus decodeExtendedLinkLayer() throws DecodingException {
+        int i = offset + 1;
         communicationControl = buffer[i++];
-        accessNumber = buffer[i++];
-        sessionNumber = new byte[] { buffer[i++], buffer[i++], buffer[i++], buffer[i++] };
-        encryptionMode = EncryptionMode.getInstance(sessionNumber[3] >> 5);
-        byte[] checksum = new byte[] { buffer[i++], buffer[i++] };
+        accessNumber = readUnsignedByte(buffer, i++);
+        encryptionMode = EncryptionMode.NONE;
 
-        byte[] crc = CRC16.calculateCrc16(Arrays.copyOfRange(buffer, i, buffer.length - 1));
-        if (checksum[0] == crc[0] && checksum[1] == crc[1]) {
-            encryptionMode = EncryptionMode.NONE;
+        if (ciField == 0x8c) {
+            headerLength = ELL_HEADER_LENGTH;
+            return decodeExtendedLinkLayerPayload(buffer, offset + ELL_HEADER_LENGTH, offset + length);
+        }
+
+        // session number and payload CRC, followed by at least CI of payload
+        if (length < ELL_SN_HEADER_LENGTH + 3) {
+            throw new DecodingException("Extended link layer frame is too short: " + length);
+        }
+        headerLength = ELL_SN_HEADER_LENGTH;
+        sessionNumber = (buffer[i] & 0xff) | (buffer[i + 1] & 0xff) << 8 | (buffer[i + 2] & 0xff) << 16
+                | (buffer[i + 3] & 0xff) << 24;
+
+        int payload = offset + ELL_SN_HEADER_LENGTH;
+        int end = offset + length;
+        // ENC bits of session number tell how payload is encrypted, CRC only validates payload in plain
+        encryptionMode = EncryptionMode.getInstance(sessionNumber >>> 29);
+        if (encryptionMode != EncryptionMode.NONE) {
+            // CRC of decrypted payload is checked by decryption
+            DecodeStatus status = decrypt(getKey());
+            if (status != DecodeStatus.OK) {
+                return status;
+            }
+            return decodeExtendedLinkLayerPayload(vdr, 2, vdr.length);
         }
+
+        if (!payloadCrcMatches(buffer, payload, end)) {
+            throw new DecodingException("CRC of extended link layer payload does not match.");
+        }
+        return decodeExtendedLinkLayerPayload(buffer, payload + 2, end);
+    }
+
+    private DecodeStatus decodeExtendedLinkLayerPayload(byte[] data, int start, int end) throws DecodingException {
+        switch (readUnsignedByte(data, start)) {
+            case 0x78:
+                decodeDataRecords(data, start + 1, end - start - 1);
+                return DecodeStatus.OK;
+            case 0x79:
+                decodeShortFrame(data, start + 1, end - start - 1);
+                return DecodeStatus.OK;
+            default:
+                // CI of payload is reported as it is the one which is not supported
+                ciField = readUnsignedByte(data, start);
+                return DecodeStatus.UNSUPPORTED_CI;
+        }
+    }
+
+    /**
+     * Checks CRC of extended link layer payload, which is stored in first two bytes of payload, least significant byte
+     * first.
+     */
+    private static boolean payloadCrcMatches(byte[] data, int start, int end) {
+        int crc = CRC16.calculateCrc16(data, start + 2, end - start - 2);
+        return data[start] == (byte) crc && data[start + 1] == (byte) (crc >> 8);
     }
 
     private void decodeShortHeader(byte[] buffer, int offset) {
@@ -275,20 +430,64 @@ public class VariableDataStructure {
     }
 
     public byte[] getHeader() {
-        return this.header;
+        return Arrays.copyOfRange(buffer, offset, offset + headerLength);
+    }
+
+    /**
+     * Returns communication control field of extended link layer.
+     * 
+     * @return the CC field or 0 if frame has no extended link layer.
+     */
+    public int getCommunicationControl() {
+        return communicationControl & 0xff;
+    }
+
+    /**
+     * Returns session number of extended link layer, including encryption and time fields.
+     * 
+     * @return the SN field or 0 if frame has no session number.
+     */
+    public int getSessionNumber() {
+        return sessionNumber;
+    }
+
+    /**
+     * Returns data records part of frame as it was processed during decoding - decrypted if frame was encrypted. Might
+     * be empty when records were read directly from frame buffer.
+     * 
+     * @return decrypted payload.
+     */
+    public byte[] getDecryptedPayload() {
+        return this.vdr;
     }
 
     private void decodeDataRecords(byte[] buffer, int offset, int length) throws DecodingException {
+        FrameLayout layout = linkLayerSecondaryAddress == null ? null
+                : FrameLayout.lookup(linkLayerSecondaryAddress, buffer, offset, length);
+        if (layout != null) {
+            this.dataRecords = layout.dataRecords(buffer, offset);
+
+            int manufacturerDataStart = layout.manufacturerData(offset);
+            if (manufacturerDataStart >= 0) {
+                decodeManufacturerData(buffer, manufacturerDataStart, offset + length - 2);
+            }
+            return;
+        }
+
+        DataRecordList dataRecords = new DataRecordList(buffer);
+        this.dataRecords = dataRecords;
+
         int i = offset;
 
         while (i < offset + length - 2) {
 
             if ((buffer[i] & 0xef) == 0x0f) {
                 // manufacturer specific data
-
-                moreRecordsFollow = (buffer[i] & 0x10) == 0x10;
-
-                manufacturerData = Arrays.copyOfRange(buffer, i + 1, offset + length - 2);
+                if (linkLayerSecondaryAddress != null) {
+                    FrameLayout.learn(linkLayerSecondaryAddress, dataRecords, offset, length, i,
+                            FormatCache.getDefault());
+                }
+                decodeManufacturerData(buffer, i, offset + length - 2);
                 return;
             }
 
@@ -298,123 +497,144 @@ public class VariableDataStructure {
                 continue;
             }
 
-            DataRecord dataRecord = new DataRecord();
-            i = dataRecord.decode(buffer, i);
-
-            dataRecords.add(dataRecord);
+            i = dataRecords.index(i);
         }
 
         if (linkLayerSecondaryAddress != null) {
-            deviceHistory.put(linkLayerSecondaryAddress, dataRecords);
+            FrameLayout.learn(linkLayerSecondaryAddress, dataRecords, offset, length, -1, FormatCache.getDefault());
         }
     }
 
-    private void decodeShortFrame(byte[] data, int offset, int length) throws DecodingException {
-        if (!deviceHistory.containsKey(linkLayerSecondaryAddress)) {
-            deviceHistory.put(linkLayerSecondaryAddress, new LinkedList<DataRecord>());
-        }
-
-        ByteBuffer buf = ByteBuffer.wrap(data, offset, length);
-        buf.order(ByteOrder.nativeOrder());
+    private void decodeManufacturerData(byte[] buffer, int dif, int end) {
+        moreRecordsFollow = (buffer[dif] & 0x10) == 0x10;
 
-        // skip checksum data
-        buf.position(4);
-
-        this.dataRecords = deviceHistory.get(linkLayerSecondaryAddress);
-
-        ListIterator<DataRecord> iter = this.dataRecords.listIterator();
-        while (iter.hasNext()) {
-            DataRecord dr = iter.next();
-            try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-                os.write(dr.getDib());
-                os.write(dr.getVib());
+        manufacturerData = Arrays.copyOfRange(buffer, dif + 1, end);
+    }
 
-                int tempOffset = dr.getDib().length + dr.getVib().length;
+    private void decodeShortFrame(byte[] data, int offset, int length) throws DecodingException {
+        if (linkLayerSecondaryAddress == null || length < 4) {
+            throw new DecodingException("Compact frame without link layer address or format signature.");
+        }
 
-                // This might not be right
-                int dataLegth = tempOffset + dr.getDataLength();
-                byte[] b = new byte[dataLegth - tempOffset];
-                buf.get(b);
-                os.write(b);
+        // format signature and CRC of full frame, both least significant byte first, CRC is not checked
+        int signature = (data[offset] & 0xff) | ((data[offset + 1] & 0xff) << 8);
+        byte[] format = FormatCache.getDefault().get(linkLayerSecondaryAddress, signature);
+        if (format == null) {
+            throw new DecodingException(String.format(
+                    "Format signature %04X of compact frame is unknown. Device Serial: %s, Manufacturer: %s.",
+                    signature, linkLayerSecondaryAddress.getDeviceId().toString(),
+                    linkLayerSecondaryAddress.getManufacturerId()));
+        }
 
-                DataRecord newDataRecord = new DataRecord();
-                newDataRecord.decode(os.toByteArray(), 0);
-                iter.set(newDataRecord);
-            } catch (IOException e) {
-                // ignore
+        // values are merged with DIBs and VIBs of format into records of full frame
+        byte[] records = new byte[format.length + length - 4];
+        int source = offset + 4;
+        int end = offset + length;
+        int target = 0;
+        int i = 0;
+        while (i < format.length) {
+            int dataStart = DataRecordList.dataStart(format, DataRecordList.vibStart(format, i));
+            System.arraycopy(format, i, records, target, dataStart - i);
+            target += dataStart - i;
+
+            int dataField = format[i] & 0x0f;
+            int dataLength;
+            if (dataField == 0x0d) {
+                if (source >= end) {
+                    throw new DecodingException("Compact frame is shorter than its format.");
+                }
+                dataLength = DataRecord.variableDataLength(data[source] & 0xff) + 1;
+            } else {
+                dataLength = DataRecord.dataFieldLength(dataField);
+            }
+            if (source + dataLength > end) {
+                throw new DecodingException("Compact frame is shorter than its format.");
             }
+            System.arraycopy(data, source, records, target, dataLength);
+            source += dataLength;
+            target += dataLength;
+            i = dataStart;
+        }
 
+        DataRecordList dataRecords = new DataRecordList(records);
+        this.dataRecords = dataRecords;
+        i = 0;
+        while (i < target) {
+            i = dataRecords.index(i);
         }
     }
 
     public byte[] decryptMessage(byte[] key) throws DecodingException {
+        DecodeStatus status = decrypt(key);
+        if (status != DecodeStatus.OK) {
+            throw new DecodingException(statusMessage(status));
+        }
+        return vdr;
+    }
 
+    private DecodeStatus decrypt(byte[] key) throws DecodingException {
         if (encryptionMode == EncryptionMode.NONE) {
-            return vdr;
+            return DecodeStatus.OK;
         }
 
         if (key == null) {
-            throw new DecodingException("AES key for given address not specified.");
-        }
-
-        final int len = numberOfEncryptedBlocks * 16;
-
-        if (len > vdr.length) {
-            throw new DecodingException("Number of encrypted exceeds payload size!");
+            return DecodeStatus.NEEDS_KEY;
         }
 
         switch (encryptionMode) {
             case AES_CBC_IV:
-                decryptAesCbcIv(key, len);
-                break;
+                return decryptAesCbcIv(key, numberOfEncryptedBlocks * 16);
             case AES_128:
-                decryptAes128(key, len);
-                break;
+                return decryptAes128(key);
             default:
                 throw new DecodingException("Unsupported encryption mode: " + encryptionMode);
         }
-
-        return vdr;
     }
 
-    private void decryptAes128(byte[] key, final int len) throws DecodingException {
-        byte[] iv = createIvKamstrup();
-        byte[] result = AesCrypt.newAesCtrCrypt(key, iv).decrypt(vdr, len);
+    /**
+     * Decrypts payload of extended link layer, starting with its CRC, from frame buffer. Array holding decrypted payload
+     * is reused when other key is tried.
+     */
+    private DecodeStatus decryptAes128(byte[] key) throws DecodingException {
+        final int len = length - ELL_SN_HEADER_LENGTH;
+        if (decoded || vdr.length != len) {
+            vdr = new byte[len];
+        }
 
-        byte[] crc = CRC16.calculateCrc16(Arrays.copyOfRange(result, 2, result.length));
+        byte[] iv = createExtendedLinkLayerIv(AesCrypt.ivBuffer());
+        AesCrypt.decrypt(AesCrypt.AES_CTR, linkLayerSecondaryAddress, key, iv, buffer, offset + ELL_SN_HEADER_LENGTH,
+                len, vdr);
 
-        if (result[0] != crc[0] || result[1] != crc[1]) {
-            throw new DecodingException(newDecyptionExceptionMsg());
+        if (!payloadCrcMatches(vdr, 0, len)) {
+            return DecodeStatus.WRONG_KEY;
         }
-        vdr = result;
+        return DecodeStatus.OK;
     }
 
-    private void decryptAesCbcIv(byte[] key, final int len) throws DecodingException {
-        byte[] iv = createIv();
-        byte[] result = AesCrypt.newAesCrypt(key, iv).decrypt(this.vdr, len);
+    private DecodeStatus decryptAesCbcIv(byte[] key, final int len) throws DecodingException {
+        if (len > vdr.length) {
+            throw new DecodingException("Number of encrypted exceeds payload size!");
+        }
+
+        byte[] iv = createIv(AesCrypt.ivBuffer());
+        byte[] result = AesCrypt.decrypt(AesCrypt.AES_CBC, linkLayerSecondaryAddress, key, iv, this.vdr, len);
 
         if (!(result[0] == 0x2f && result[1] == 0x2f)) {
-            throw new DecodingException(newDecyptionExceptionMsg());
+            return DecodeStatus.WRONG_KEY;
         }
         System.arraycopy(result, 0, vdr, 0, len);
+        return DecodeStatus.OK;
     }
 
-    private String newDecyptionExceptionMsg() {
-        String deviceId = linkLayerSecondaryAddress.getDeviceId().toString();
-        String manId = linkLayerSecondaryAddress.getManufacturerId();
-        return String.format("%s - %s - Decryption unsuccessful! Wrong AES/CTR Key?", deviceId, manId);
-    }
-
-    private byte[] createIv() {
-        byte[] iv = new byte[16];
-        byte[] saBytes = linkLayerSecondaryAddress.asByteArray();
+    private byte[] createIv(byte[] iv) {
+        byte[] saBytes = linkLayerSecondaryAddress.bytes();
 
         if (linkLayerSecondaryAddress.isLongHeader()) {
             System.arraycopy(saBytes, 0, iv, 4, 2); // Manufacture
             System.arraycopy(saBytes, 2, iv, 0, 4); // Identification
             System.arraycopy(saBytes, 6, iv, 6, 2); // Version and Device Type
         } else if (ciField == 0x72) {
-            saBytes = secondaryAddress.asByteArray();
+            saBytes = secondaryAddress.bytes();
             System.arraycopy(saBytes, 0, iv, 2, 4); // Identification
             System.arraycopy(saBytes, 4, iv, 0, 2); // Manufacture
             System.arraycopy(saBytes, 6, iv, 6, 2); // Version and Device Type
@@ -429,30 +649,26 @@ public class VariableDataStructure {
         return iv;
     }
 
-    private byte[] createIvKamstrup() throws DecodingException {
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-
-            os.write(linkLayerSecondaryAddress.asByteArray(), 0, 8);
-            /* set hop count to 0 in case a repeater is used */
-            os.write(communicationControl & ~(1 << 4));
-            os.write(sessionNumber);
-            os.write(new byte[3]); // 3 * 0x00
-
-            return os.toByteArray();
-        } catch (IOException e) {
-            throw new DecodingException("Unable to create initial vector for decryption.", e);
-        }
+    /**
+     * Creates initial vector of AES-CTR mode of extended link layer, as used by Kamstrup and Diehl meters: link layer
+     * address, CC field, session number, frame number and block counter.
+     */
+    private byte[] createExtendedLinkLayerIv(byte[] iv) {
+        System.arraycopy(linkLayerSecondaryAddress.bytes(), 0, iv, 0, 8);
+        /* set hop count to 0 in case a repeater is used */
+        iv[8] = (byte) (communicationControl & ~(1 << 4));
+        iv[9] = (byte) sessionNumber;
+        iv[10] = (byte) (sessionNumber >> 8);
+        iv[11] = (byte) (sessionNumber >> 16);
+        iv[12] = (byte) (sessionNumber >> 24);
+        iv[13] = 0;
+        iv[14] = 0;
+        iv[15] = 0;
+        return iv;
     }
 
-    private byte[] getKey() throws DecodingException {
-        byte[] key = keyMap.get(linkLayerSecondaryAddress);
-        if (key != null) {
-            return key;
-        }
-
-        String msg = "Unable to decode encrypted payload because no key for the following secondary address was registered: "
-                + linkLayerSecondaryAddress;
-        throw new DecodingException(msg);
+    private byte[] getKey() {
+        return keyMap == null ? null : keyMap.get(linkLayerSecondaryAddress);
     }
 
     @Override
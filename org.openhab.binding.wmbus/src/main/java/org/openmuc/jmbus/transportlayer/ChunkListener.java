@@ -0,0 +1,41 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus.transportlayer;
+
+import java.io.IOException;
+
+/**
+ * Receives data pushed by {@link StreamingTransportLayer}. All methods are called by thread owned by transport layer
+ * and should return quickly.
+ */
+public interface ChunkListener {
+
+    /**
+     * Called with bytes received from remote side. Array is reused by transport layer, it must be copied if it is needed
+     * after return.
+     * 
+     * @param buffer
+     *            buffer holding received bytes.
+     * @param offset
+     *            index of first received byte.
+     * @param length
+     *            number of received bytes.
+     */
+    void chunkReceived(byte[] buffer, int offset, int length);
+
+    /**
+     * Called when nothing was received within timeout set via {@link TransportLayer#setTimeout(int)}.
+     */
+    void readTimedOut();
+
+    /**
+     * Called when reading failed or remote side closed connection. No further calls are made afterwards.
+     * 
+     * @param cause
+     *            the cause of failure.
+     */
+    void readFailed(IOException cause);
+}
@@ -0,0 +1,157 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus.transportlayer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TCP transport layer backed by {@link SocketChannel}. Until {@link #startReading(ChunkListener)} is called it works
+ * as blocking layer, so commands can be exchanged during initialization of remote device. Afterwards received data is
+ * pushed to listener by single selector thread shared by all layers of this kind.
+ */
+class NioTcpLayer implements StreamingTransportLayer {
+
+    private final String hostAddress;
+    private final int port;
+    private final int connectionTimeout;
+
+    private volatile int timeout;
+    private volatile SelectorLoop.Registration registration;
+
+    private SocketChannel channel;
+    private DataOutputStream os;
+    private DataInputStream is;
+
+    NioTcpLayer(String hostAddress, int port, int connectionTimeout, int timeout) {
+        this.hostAddress = hostAddress;
+        this.port = port;
+        this.timeout = timeout;
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    @Override
+    public void open() throws IOException {
+        InetAddress hostname = InetAddress.getByName(hostAddress);
+
+        try {
+            SocketAddress socketAddress = new InetSocketAddress(hostname, port);
+            this.channel = SocketChannel.open();
+            this.channel.socket().connect(socketAddress, connectionTimeout);
+            this.channel.socket().setSoTimeout(timeout);
+        } catch (IOException e) {
+            close();
+            String msg = MessageFormat.format("Connecting to {0}:{1} failed.", hostname, port);
+            throw new IOException(msg, e);
+        }
+
+        try {
+            // socket adapter honors read timeout while channel is in blocking mode
+            this.is = new DataInputStream(channel.socket().getInputStream());
+            this.os = new DataOutputStream(new ChannelOutputStream(channel));
+            while (is.available() > 0) {
+                is.readFully(new byte[is.available()]);
+            }
+        } catch (IOException e) {
+            close();
+            throw new IOException("Error flushing input stream from TCP connection.", e);
+        }
+    }
+
+    @Override
+    public void startReading(ChunkListener listener) throws IOException {
+        channel.configureBlocking(false);
+        registration = SelectorLoop.register(this, channel, listener);
+    }
+
+    @Override
+    public void close() {
+        SelectorLoop.Registration registration = this.registration;
+        if (registration != null) {
+            registration.cancel();
+            this.registration = null;
+        }
+
+        if (channel == null || !channel.isOpen()) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore this here
+        }
+        channel = null;
+    }
+
+    @Override
+    public DataOutputStream getOutputStream() {
+        return os;
+    }
+
+    @Override
+    public DataInputStream getInputStream() {
+        return is;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return channel == null || !channel.isOpen();
+    }
+
+    @Override
+    public void setTimeout(int timeout) throws IOException {
+        this.timeout = timeout;
+        SelectorLoop.Registration registration = this.registration;
+        if (registration == null) {
+            channel.socket().setSoTimeout(timeout);
+        } else {
+            registration.timeoutChanged();
+        }
+    }
+
+    @Override
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Writes to channel regardless of its blocking mode. Commands sent to wireless transceivers are short, so waiting
+     * for space in socket buffer of non-blocking channel is done by short pauses.
+     */
+    private static class ChannelOutputStream extends OutputStream {
+
+        private final SocketChannel channel;
+
+        ChannelOutputStream(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            }
+        }
+    }
+}
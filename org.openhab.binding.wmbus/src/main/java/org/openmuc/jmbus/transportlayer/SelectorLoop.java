@@ -0,0 +1,247 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus.transportlayer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single thread serving reads of all {@link NioTcpLayer} instances. Thread is started with first registered channel
+ * and stops when last one is gone.
+ */
+final class SelectorLoop implements Runnable {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static SelectorLoop instance;
+
+    private final Selector selector;
+    private final Queue<Registration> pending = new ConcurrentLinkedQueue<>();
+    // used only by selector thread
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private SelectorLoop(Selector selector) {
+        this.selector = selector;
+    }
+
+    /**
+     * Registers channel for reading. Channel must be in non-blocking mode.
+     *
+     * @param layer
+     *            the transport layer owning channel, used to get current read timeout.
+     * @param channel
+     *            the channel to read.
+     * @param listener
+     *            the listener receiving data.
+     * @return registration which should be cancelled when channel is closed.
+     * @throws IOException
+     *             if selector could not be opened.
+     */
+    static synchronized Registration register(TransportLayer layer, SocketChannel channel, ChunkListener listener)
+            throws IOException {
+        if (instance == null) {
+            instance = new SelectorLoop(Selector.open());
+            Thread thread = new Thread(instance, "jmbus-selector");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Registration registration = new Registration(instance.selector, layer, channel, listener);
+        instance.pending.add(registration);
+        instance.selector.wakeup();
+        return registration;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                selector.select(nextTimeout());
+
+                registerPending();
+                readSelected();
+                checkTimeouts();
+
+                synchronized (SelectorLoop.class) {
+                    if (selector.keys().isEmpty() && pending.isEmpty()) {
+                        instance = null;
+                        break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            synchronized (SelectorLoop.class) {
+                if (instance == this) {
+                    instance = null;
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                ((Registration) key.attachment()).fail(e);
+            }
+            Registration registration;
+            while ((registration = pending.poll()) != null) {
+                registration.fail(e);
+            }
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    private long nextTimeout() {
+        long now = System.nanoTime();
+        long next = Long.MAX_VALUE;
+        for (SelectionKey key : selector.keys()) {
+            Registration registration = (Registration) key.attachment();
+            long deadline = registration.deadline();
+            if (deadline != 0) {
+                next = Math.min(next, deadline - now);
+            }
+        }
+
+        if (next == Long.MAX_VALUE) {
+            // no timeouts, wait for data
+            return 0;
+        }
+        // zero means infinite wait for select
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(next));
+    }
+
+    private void registerPending() {
+        Registration registration;
+        while ((registration = pending.poll()) != null) {
+            try {
+                registration.channel.register(selector, SelectionKey.OP_READ, registration);
+                registration.lastRead = System.nanoTime();
+            } catch (ClosedChannelException e) {
+                registration.fail(e);
+            }
+        }
+    }
+
+    private void readSelected() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+
+            Registration registration = (Registration) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    read(registration);
+                }
+            } catch (IOException e) {
+                key.cancel();
+                registration.fail(e);
+            } catch (CancelledKeyException e) {
+                // channel closed meanwhile
+            } catch (RuntimeException e) {
+                key.cancel();
+                registration.fail(new IOException("Listener failed to process received data.", e));
+            }
+        }
+    }
+
+    private void read(Registration registration) throws IOException {
+        int length;
+        while ((length = registration.channel.read(readBuffer)) > 0) {
+            registration.lastRead = System.nanoTime();
+            registration.listener.chunkReceived(readBuffer.array(), 0, length);
+            readBuffer.clear();
+        }
+        readBuffer.clear();
+
+        if (length < 0) {
+            throw new EOFException("Connection closed by remote side.");
+        }
+    }
+
+    private void checkTimeouts() {
+        long now = System.nanoTime();
+        for (SelectionKey key : selector.keys()) {
+            Registration registration = (Registration) key.attachment();
+            long deadline = registration.deadline();
+            if (key.isValid() && deadline != 0 && deadline - now <= 0) {
+                registration.lastRead = now;
+                try {
+                    registration.listener.readTimedOut();
+                } catch (RuntimeException e) {
+                    key.cancel();
+                    registration.fail(new IOException("Listener failed to process read timeout.", e));
+                }
+            }
+        }
+    }
+
+    static final class Registration {
+
+        private final Selector selector;
+        private final TransportLayer layer;
+        private final SocketChannel channel;
+        private final ChunkListener listener;
+
+        private volatile boolean failed;
+        private long lastRead;
+
+        private Registration(Selector selector, TransportLayer layer, SocketChannel channel,
+                ChunkListener listener) {
+            this.selector = selector;
+            this.layer = layer;
+            this.channel = channel;
+            this.listener = listener;
+        }
+
+        private long deadline() {
+            int timeout;
+            try {
+                timeout = layer.getTimeout();
+            } catch (IOException e) {
+                return 0;
+            }
+            return timeout <= 0 ? 0 : lastRead + TimeUnit.MILLISECONDS.toNanos(timeout);
+        }
+
+        private void fail(IOException cause) {
+            if (!failed) {
+                failed = true;
+                listener.readFailed(cause);
+            }
+        }
+
+        /**
+         * Lets selector thread recalculate its wait time, it might be waiting without time limit.
+         */
+        void timeoutChanged() {
+            selector.wakeup();
+        }
+
+        /**
+         * Stops delivery of data to the listener. Does not close the channel.
+         */
+        void cancel() {
+            failed = true;
+            SelectionKey key = channel.keyFor(selector);
+            if (key != null) {
+                key.cancel();
+            }
+            // let selector thread notice that it might have nothing to do anymore
+            selector.wakeup();
+        }
+    }
+}
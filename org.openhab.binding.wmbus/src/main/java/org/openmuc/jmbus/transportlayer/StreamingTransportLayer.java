@@ -0,0 +1,27 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus.transportlayer;
+
+import java.io.IOException;
+
+/**
+ * A transport layer which can push received data to a listener instead of being read via its input stream. It lets
+ * many connections be served without a thread blocked in read for each of them.
+ */
+public interface StreamingTransportLayer extends TransportLayer {
+
+    /**
+     * Starts pushing received data to the given listener. Once called, the input stream of this layer must not be used
+     * anymore. Read timeout set via {@link #setTimeout(int)} defines after how long silence
+     * {@link ChunkListener#readTimedOut()} is called, zero disables it.
+     * 
+     * @param listener
+     *            the listener receiving data.
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    void startReading(ChunkListener listener) throws IOException;
+}
@@ -14,6 +14,7 @@ public abstract class TcpBuilder<T, S extends TcpBuilder<T, S>> extends Builder<
     private String hostAddress;
     private int port;
     private int connectionTimeout = 10000; // 10 s
+    private boolean nonBlocking = false;
 
     /**
      * Constructor of the TCP/IP Settings Builder, for connecting M-Bus devices over TCP/IP.
@@ -66,8 +67,26 @@ public abstract class TcpBuilder<T, S extends TcpBuilder<T, S>> extends Builder<
         return self();
     }
 
+    /**
+     * Sets whether received data should be pushed by shared selector thread instead of being read by thread blocked on
+     * the input stream. Connections which support it avoid having own receiving thread.
+     * 
+     * @param nonBlocking
+     *            true to build non-blocking transport layer
+     * @return the builder itself
+     * 
+     * @see StreamingTransportLayer
+     **/
+    public S setNonBlocking(boolean nonBlocking) {
+        this.nonBlocking = nonBlocking;
+        return self();
+    }
+
     @Override
     protected TransportLayer buildTransportLayer() {
+        if (nonBlocking) {
+            return new NioTcpLayer(hostAddress, port, connectionTimeout, getTimeout());
+        }
         return new TcpLayer(hostAddress, port, connectionTimeout, getTimeout());
     }
 }
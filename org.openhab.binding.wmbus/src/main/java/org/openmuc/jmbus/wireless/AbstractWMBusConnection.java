@@ -15,7 +15,10 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.openmuc.jmbus.SecondaryAddress;
+import org.openmuc.jmbus.transportlayer.ChunkListener;
+import org.openmuc.jmbus.transportlayer.StreamingTransportLayer;
 import org.openmuc.jmbus.transportlayer.TransportLayer;
+import org.openmuc.jmbus.wireless.WMBusConnection.OverflowPolicy;
 
 abstract class AbstractWMBusConnection implements WMBusConnection {
 
@@ -33,6 +36,11 @@ abstract class AbstractWMBusConnection implements WMBusConnection {
 
     private volatile boolean closed;
     private final ExecutorService receiverService;
+    private volatile MessageReceiver messageReceiver;
+    private boolean pushed;
+
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
 
     protected AbstractWMBusConnection(WMBusMode mode, WMBusListener listener, TransportLayer tl) {
         this.listener = listener;
@@ -53,6 +61,10 @@ abstract class AbstractWMBusConnection implements WMBusConnection {
         try {
             this.receiverService.shutdown();
             this.transportLayer.close();
+            if (pushed) {
+                // there is no receiver thread which would finish the receiver
+                this.messageReceiver.shutdown();
+            }
         } finally {
             this.transportLayer = null;
             this.closed = true;
@@ -69,6 +81,28 @@ abstract class AbstractWMBusConnection implements WMBusConnection {
         this.keyMap.remove(address);
     }
 
+    @Override
+    public ReceiverStatistics getReceiverStatistics() {
+        MessageReceiver receiver = this.messageReceiver;
+        if (receiver == null) {
+            return new ReceiverStatistics(0, 0, 0, 0, queueCapacity);
+        }
+        return receiver.getStatistics();
+    }
+
+    final void setReceiverQueue(int queueCapacity, OverflowPolicy overflowPolicy) {
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    protected int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    protected OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
     public final void open() throws IOException {
         if (!closed) {
             return;
@@ -83,9 +117,22 @@ abstract class AbstractWMBusConnection implements WMBusConnection {
 
             throw e;
         }
-        this.receiverService.execute(newMessageReceiver(this.transportLayer, this.listener));
-
+        this.messageReceiver = newMessageReceiver(this.transportLayer, this.listener);
         this.closed = false;
+
+        if (this.transportLayer instanceof StreamingTransportLayer && this.messageReceiver instanceof ChunkListener) {
+            // received data is pushed by transport layer, receiver does not need own thread
+            this.pushed = true;
+            this.messageReceiver.setNonBlocking();
+            try {
+                ((StreamingTransportLayer) this.transportLayer).startReading((ChunkListener) this.messageReceiver);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        } else {
+            this.receiverService.execute(this.messageReceiver);
+        }
     }
 
     protected abstract MessageReceiver newMessageReceiver(TransportLayer transportLayer, WMBusListener listener);
@@ -0,0 +1,181 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus.wireless;
+
+import java.util.Arrays;
+
+/**
+ * Finds frames in byte stream received from Amber module. Received bytes are pushed via
+ * {@link #feed(byte[], int, int)}, kept in reusable buffer and scanned in place. Only bytes of complete frames are
+ * copied out.
+ * <p>
+ * A frame starts with length byte followed by {@code 0x44} control field. Length counts all following bytes including
+ * RSSI appended by module. When {@code UART_CMD_Out_Enable} is set, module precedes frame with {@code 0xFF 0x03} and
+ * appends XOR checksum after it.
+ */
+final class AmberFramer implements Framer {
+
+    interface FrameHandler {
+
+        /**
+         * Called with complete frame (length byte, frame, RSSI).
+         *
+         * @param frame
+         *            copy of frame bytes owned by handler.
+         */
+        void frame(byte[] frame);
+
+        /**
+         * Called with complete frame which did not pass checksum validation.
+         *
+         * @param frame
+         *            copy of frame bytes owned by handler.
+         */
+        void checksumMismatch(byte[] frame);
+
+        /**
+         * Called with bytes which do not belong to any frame. Array is reused by framer, it must be copied if it is
+         * needed after return.
+         *
+         * @param buffer
+         *            buffer holding discarded bytes.
+         * @param offset
+         *            index of first discarded byte.
+         * @param length
+         *            number of discarded bytes.
+         */
+        void discarded(byte[] buffer, int offset, int length);
+    }
+
+    private static final int MBUS_BL_CONTROL = 0x44;
+    private static final int CMD_OUT_START = 0xFF;
+    private static final int CMD_OUT_DATA_IND = 0x03;
+    private static final byte CHECKSUM_SEED = (byte) (CMD_OUT_START ^ CMD_OUT_DATA_IND);
+
+    static final int MAX_DISCARD_LENGTH = 100;
+    // header, length byte, 255 bytes of frame and checksum
+    private static final int CAPACITY = 512;
+
+    private final FrameHandler handler;
+    private final byte[] buffer = new byte[CAPACITY];
+
+    // bytes between discardStart and start are noise, between start and end are not scanned yet
+    private int discardStart;
+    private int start;
+    private int end;
+
+    private int frameLength;
+    private boolean checksum;
+
+    AmberFramer(FrameHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void feed(byte[] data, int offset, int length) {
+        while (length > 0) {
+            if (end == CAPACITY) {
+                compact();
+            }
+            int chunk = Math.min(length, CAPACITY - end);
+            System.arraycopy(data, offset, buffer, end, chunk);
+            end += chunk;
+            offset += chunk;
+            length -= chunk;
+
+            scan();
+        }
+    }
+
+    @Override
+    public boolean isInFrame() {
+        return end > discardStart || checksum;
+    }
+
+    @Override
+    public void timeout() {
+        start = end;
+        frameLength = 0;
+        checksum = false;
+        flushDiscarded();
+    }
+
+    private void scan() {
+        while (true) {
+            int available = end - start;
+
+            if (frameLength == 0) {
+                if (available < 2) {
+                    return;
+                }
+
+                int b0 = buffer[start] & 0xff;
+                int b1 = buffer[start + 1] & 0xff;
+                if (b0 == CMD_OUT_START && b1 == CMD_OUT_DATA_IND) {
+                    // it's optional if UART_CMD_Out_Enable is enabled on amber module
+                    // then you will get also checksum at the end of message frame
+                    flushDiscarded();
+                    start += 2;
+                    discardStart = start;
+                    checksum = true;
+                } else if (b1 == MBUS_BL_CONTROL) {
+                    // we found beginning of mBUS frame, b0 is the length of message
+                    flushDiscarded();
+                    frameLength = b0 + 1; // +1 because length don't count the length byte itself
+                } else {
+                    checksum = false;
+                    start++;
+                    if (start - discardStart >= MAX_DISCARD_LENGTH) {
+                        flushDiscarded();
+                    }
+                }
+                continue;
+            }
+
+            int required = checksum ? frameLength + 1 : frameLength;
+            if (available < required) {
+                return;
+            }
+
+            byte[] frame = Arrays.copyOfRange(buffer, start, start + frameLength);
+            boolean valid = !checksum || checksum(start, frameLength) == buffer[start + frameLength];
+
+            start += required;
+            discardStart = start;
+            frameLength = 0;
+            checksum = false;
+
+            if (valid) {
+                handler.frame(frame);
+            } else {
+                handler.checksumMismatch(frame);
+            }
+        }
+    }
+
+    private byte checksum(int offset, int length) {
+        byte value = CHECKSUM_SEED;
+        for (int i = offset; i < offset + length; i++) {
+            value ^= buffer[i];
+        }
+        return value;
+    }
+
+    private void flushDiscarded() {
+        if (start > discardStart) {
+            handler.discarded(buffer, discardStart, start - discardStart);
+        }
+        discardStart = start;
+    }
+
+    private void compact() {
+        int length = end - discardStart;
+        System.arraycopy(buffer, discardStart, buffer, 0, length);
+        start -= discardStart;
+        end = length;
+        discardStart = 0;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus.wireless;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import org.openmuc.jmbus.transportlayer.ChunkListener;
+import org.openmuc.jmbus.transportlayer.TransportLayer;
+
+/**
+ * Message receiver which hands received bytes to a {@link Framer}. Bytes are either read in bulk by receiver thread
+ * ({@link #run()}) or pushed by transport layer ({@link ChunkListener}).
+ */
+abstract class FramedMessageReceiver extends MessageReceiver implements ChunkListener {
+
+    private final AbstractWMBusConnection connection;
+    private final TransportLayer transportLayer;
+    private final byte[] readBuffer = new byte[AbstractWMBusConnection.BUFFER_LENGTH];
+    private int timeout = -1;
+
+    FramedMessageReceiver(AbstractWMBusConnection connection, TransportLayer transportLayer,
+            WMBusListener listener) {
+        super(listener, connection.getQueueCapacity(), connection.getOverflowPolicy());
+        this.connection = connection;
+        this.transportLayer = transportLayer;
+    }
+
+    protected abstract Framer getFramer();
+
+    @Override
+    public void run() {
+        try {
+
+            while (!connection.isClosed()) {
+                task();
+            }
+
+        } catch (IOException e) {
+            if (connection.isClosed()) {
+                return;
+            }
+            super.notifyStoppedListening(e);
+
+        } finally {
+            connection.close();
+            super.shutdown();
+        }
+    }
+
+    private void task() throws IOException {
+        updateTimeout();
+
+        try {
+            int length = connection.getInputStream().read(readBuffer);
+            if (length < 0) {
+                throw new EOFException("End of stream reached");
+            }
+            getFramer().feed(readBuffer, 0, length);
+        } catch (InterruptedIOException e) {
+            getFramer().timeout();
+        }
+    }
+
+    @Override
+    public void chunkReceived(byte[] buffer, int offset, int length) {
+        getFramer().feed(buffer, offset, length);
+        pushTimeout();
+    }
+
+    @Override
+    public void readTimedOut() {
+        getFramer().timeout();
+        pushTimeout();
+    }
+
+    @Override
+    public void readFailed(IOException cause) {
+        if (!connection.isClosed()) {
+            super.notifyStoppedListening(cause);
+        }
+        connection.close();
+        super.shutdown();
+    }
+
+    private void pushTimeout() {
+        try {
+            updateTimeout();
+        } catch (IOException e) {
+            readFailed(e);
+        }
+    }
+
+    private void updateTimeout() throws IOException {
+        // wait for beginning of message as long as needed, but not for its remaining part
+        int timeout = getFramer().isInFrame() ? AbstractWMBusConnection.MESSAGE_FRAGEMENT_TIMEOUT : 0;
+        if (this.timeout != timeout) {
+            this.transportLayer.setTimeout(timeout);
+            this.timeout = timeout;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus.wireless;
+
+/**
+ * Finds messages in byte stream received from wireless transceiver. Bytes are pushed in chunks of any size, found
+ * messages are reported to handler specific to implementation.
+ */
+interface Framer {
+
+    /**
+     * Pushes received bytes to framer. Messages completed by these bytes are passed to handler before method returns.
+     * 
+     * @param data
+     *            received bytes.
+     * @param offset
+     *            index of first received byte.
+     * @param length
+     *            number of received bytes.
+     */
+    void feed(byte[] data, int offset, int length);
+
+    /**
+     * Tells whether framer waits for remaining part of message.
+     * 
+     * @return true if some bytes are pending.
+     */
+    boolean isInFrame();
+
+    /**
+     * Called when the rest of message did not come in time.
+     */
+    void timeout();
+}
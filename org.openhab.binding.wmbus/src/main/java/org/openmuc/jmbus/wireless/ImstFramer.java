@@ -0,0 +1,206 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus.wireless;
+
+/**
+ * Incremental decoder of HCI messages received from IMST module. Received bytes are pushed via
+ * {@link #feed(byte[], int, int)} in chunks of any size, message which is split over several reads is completed by
+ * following ones.
+ * <p>
+ * HCI message structure:
+ * <ul>
+ * <li>StartOfFrame 8 Bit: 0xA5
+ * <li>MsgHeader 24 Bit:
+ * <ul>
+ * <li>ControlField 4 Bit:
+ * <ul>
+ * <li>0000b Reserved
+ * <li>0010b Time Stamp Field attached
+ * <li>0100b RSSI Field attached
+ * <li>1000b CRC16 Field attached
+ * </ul>
+ * <li>EndPoint ID 4 Bit: Identifies a logical message endpoint which groups several messages.
+ * <li>Msg ID Field 8 Bit: Identifies the message type.
+ * <li>LengthFiled 8 Bit: Number of bytes in the payload. If null no payload.
+ * </ul>
+ * <li>PayloadField n * 8 Bit: wMBus Message
+ * <li>Time Stamp (optional): 32 Bit Timestamp of the RTC
+ * <li>RSSI (optional) 8 Bit: Receive Signal Strength Indicator
+ * <li>FCS (optional) 16 Bit: CRC from Control Field up to last byte of Payload, Time Stamp or RSSI Field.</li>
+ * </ul>
+ */
+final class ImstFramer implements Framer {
+
+    interface MessageHandler {
+
+        /**
+         * Called with complete HCI message. Payload is a view on buffer reused by framer, it must be copied if it is
+         * needed after return.
+         *
+         * @param endpointId
+         *            endpoint of message.
+         * @param msgId
+         *            message type.
+         * @param buffer
+         *            buffer holding payload.
+         * @param offset
+         *            index of first payload byte.
+         * @param length
+         *            number of payload bytes.
+         * @param rssi
+         *            signal strength in dBm, 0 if not attached.
+         */
+        void message(byte endpointId, byte msgId, byte[] buffer, int offset, int length, int rssi);
+
+        /**
+         * Called with bytes which do not belong to any message. Array is reused by framer, it must be copied if it is
+         * needed after return.
+         *
+         * @param buffer
+         *            buffer holding discarded bytes.
+         * @param offset
+         *            index of first discarded byte.
+         * @param length
+         *            number of discarded bytes.
+         */
+        void discarded(byte[] buffer, int offset, int length);
+    }
+
+    static final byte START_OF_FRAME = (byte) 0xA5;
+    static final int HEADER_LENGTH = 4;
+
+    private static final int TIMESTAMP_ATTACHED = 0x02;
+    private static final int RSSI_ATTACHED = 0x04;
+    private static final int CRC16_ATTACHED = 0x08;
+
+    private static final int MAX_DISCARD_LENGTH = 100;
+    // header, 255 bytes of payload, time stamp, rssi and crc
+    private static final int CAPACITY = 512;
+
+    private final MessageHandler handler;
+    private final byte[] buffer = new byte[CAPACITY];
+
+    // bytes between discardStart and start are noise, between start and end are not consumed yet
+    private int discardStart;
+    private int start;
+    private int end;
+
+    private int messageLength;
+
+    ImstFramer(MessageHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void feed(byte[] data, int offset, int length) {
+        while (length > 0) {
+            if (end == CAPACITY) {
+                compact();
+            }
+            int chunk = Math.min(length, CAPACITY - end);
+            System.arraycopy(data, offset, buffer, end, chunk);
+            end += chunk;
+            offset += chunk;
+            length -= chunk;
+
+            scan();
+        }
+    }
+
+    @Override
+    public boolean isInFrame() {
+        return end > discardStart;
+    }
+
+    /**
+     * Start of frame which began pending message is treated as noise and remaining bytes are scanned again, so message
+     * which follows a broken one is not lost.
+     */
+    @Override
+    public void timeout() {
+        if (end > start) {
+            start++;
+            messageLength = 0;
+            scan();
+        }
+        if (start == end) {
+            flushDiscarded();
+        }
+    }
+
+    private void scan() {
+        while (true) {
+            if (messageLength == 0) {
+                while (start < end && buffer[start] != START_OF_FRAME) {
+                    start++;
+                }
+                if (start - discardStart >= MAX_DISCARD_LENGTH || start < end) {
+                    flushDiscarded();
+                }
+                if (end - start < HEADER_LENGTH) {
+                    return;
+                }
+                messageLength = messageLength((buffer[start + 1] >> 4) & 0x0F, buffer[start + 3] & 0xff);
+            }
+
+            if (end - start < messageLength) {
+                return;
+            }
+
+            int controlField = (buffer[start + 1] >> 4) & 0x0F;
+            int payloadLength = buffer[start + 3] & 0xff;
+            int rssi = 0;
+            if ((controlField & RSSI_ATTACHED) == RSSI_ATTACHED) {
+                int rssiIndex = start + HEADER_LENGTH + payloadLength
+                        + ((controlField & TIMESTAMP_ATTACHED) == TIMESTAMP_ATTACHED ? 4 : 0);
+                rssi = rssi(buffer[rssiIndex] & 0xff);
+            }
+
+            int offset = start;
+            start += messageLength;
+            discardStart = start;
+            messageLength = 0;
+
+            handler.message((byte) (buffer[offset + 1] & 0x0F), buffer[offset + 2], buffer, offset + HEADER_LENGTH,
+                    payloadLength, rssi);
+        }
+    }
+
+    private static int messageLength(int controlField, int payloadLength) {
+        int length = HEADER_LENGTH + payloadLength;
+        if ((controlField & TIMESTAMP_ATTACHED) == TIMESTAMP_ATTACHED) {
+            length += 4;
+        }
+        if ((controlField & RSSI_ATTACHED) == RSSI_ATTACHED) {
+            length += 1;
+        }
+        if ((controlField & CRC16_ATTACHED) == CRC16_ATTACHED) {
+            length += 2;
+        }
+        return length;
+    }
+
+    private static int rssi(int value) {
+        double b = -100.0 - (4000.0 / 150.0);
+        double m = 80.0 / 150.0;
+        return (int) (m * value + b);
+    }
+
+    private void flushDiscarded() {
+        if (start > discardStart) {
+            handler.discarded(buffer, discardStart, start - discardStart);
+        }
+        discardStart = start;
+    }
+
+    private void compact() {
+        int length = end - discardStart;
+        System.arraycopy(buffer, discardStart, buffer, 0, length);
+        start -= discardStart;
+        end = length;
+        discardStart = 0;
+    }
+}
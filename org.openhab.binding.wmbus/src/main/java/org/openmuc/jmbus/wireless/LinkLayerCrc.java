@@ -0,0 +1,192 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus.wireless;
+
+import java.text.MessageFormat;
+
+import org.openmuc.jmbus.CRC16;
+import org.openmuc.jmbus.DecodingException;
+
+/**
+ * Validates and removes data link layer CRCs of wireless M-Bus frames (EN 13757-4). Transceivers usually do it on
+ * their own, frames received by SDR or some sticks still carry CRCs. Frames are processed in the buffer they were
+ * received in: all CRCs are checked before buffer is modified, then blocks are moved together.
+ * <p>
+ * Frame format A has CRC after first block of 10 bytes and after every following block of 16 bytes, the L-field does
+ * not count CRCs. Frame format B has single CRC after first 126 bytes and one after remaining bytes, the L-field counts
+ * CRCs and is updated when they are removed.
+ */
+public final class LinkLayerCrc {
+
+    private static final int FIRST_BLOCK_LENGTH = 10;
+    private static final int BLOCK_LENGTH = 16;
+    private static final int CRC_LENGTH = 2;
+
+    // format B: first and second block including CRC of second block
+    private static final int FORMAT_B_SECOND_BLOCK_END = 128;
+
+    /**
+     * Removes CRCs of frame in format A or B, whichever matches.
+     *
+     * @param frame
+     *            the buffer holding frame starting with L-field.
+     * @param offset
+     *            index of L-field.
+     * @param length
+     *            number of bytes received, may include bytes following the frame.
+     * @return length of frame without CRCs, including L-field.
+     * @throws DecodingException
+     *             if CRCs of frame match neither format.
+     */
+    public static int strip(byte[] frame, int offset, int length) throws DecodingException {
+        if (isValidFormatA(frame, offset, length)) {
+            return removeFormatA(frame, offset);
+        }
+        if (isValidFormatB(frame, offset, length)) {
+            return removeFormatB(frame, offset);
+        }
+        throw new DecodingException("CRC of received frame matches neither format A nor format B.");
+    }
+
+    /**
+     * Removes CRCs of frame in format A.
+     *
+     * @param frame
+     *            the buffer holding frame starting with L-field.
+     * @param offset
+     *            index of L-field.
+     * @param length
+     *            number of bytes received, may include bytes following the frame.
+     * @return length of frame without CRCs, including L-field.
+     * @throws DecodingException
+     *             if frame is too short or any of CRCs does not match.
+     */
+    public static int stripFormatA(byte[] frame, int offset, int length) throws DecodingException {
+        if (!isValidFormatA(frame, offset, length)) {
+            throw new DecodingException(invalidCrcMessage("A", frame, offset, length));
+        }
+        return removeFormatA(frame, offset);
+    }
+
+    /**
+     * Removes CRCs of frame in format B and updates its L-field.
+     *
+     * @param frame
+     *            the buffer holding frame starting with L-field.
+     * @param offset
+     *            index of L-field.
+     * @param length
+     *            number of bytes received, may include bytes following the frame.
+     * @return length of frame without CRCs, including L-field.
+     * @throws DecodingException
+     *             if frame is too short or any of CRCs does not match.
+     */
+    public static int stripFormatB(byte[] frame, int offset, int length) throws DecodingException {
+        if (!isValidFormatB(frame, offset, length)) {
+            throw new DecodingException(invalidCrcMessage("B", frame, offset, length));
+        }
+        return removeFormatB(frame, offset);
+    }
+
+    private static boolean isValidFormatA(byte[] frame, int offset, int length) {
+        if (length < 1) {
+            return false;
+        }
+        int frameLength = (frame[offset] & 0xff) + 1;
+        if (frameLength < FIRST_BLOCK_LENGTH || length < lengthWithCrcFormatA(frameLength)) {
+            return false;
+        }
+
+        int position = offset;
+        int remaining = frameLength;
+        int blockLength = FIRST_BLOCK_LENGTH;
+        while (remaining > 0) {
+            int block = Math.min(blockLength, remaining);
+            if (!crcMatches(frame, position, block)) {
+                return false;
+            }
+            position += block + CRC_LENGTH;
+            remaining -= block;
+            blockLength = BLOCK_LENGTH;
+        }
+        return true;
+    }
+
+    private static int removeFormatA(byte[] frame, int offset) {
+        int frameLength = (frame[offset] & 0xff) + 1;
+
+        int source = offset + FIRST_BLOCK_LENGTH + CRC_LENGTH;
+        int target = offset + FIRST_BLOCK_LENGTH;
+        int remaining = frameLength - FIRST_BLOCK_LENGTH;
+        while (remaining > 0) {
+            int block = Math.min(BLOCK_LENGTH, remaining);
+            System.arraycopy(frame, source, frame, target, block);
+            source += block + CRC_LENGTH;
+            target += block;
+            remaining -= block;
+        }
+        return frameLength;
+    }
+
+    private static int lengthWithCrcFormatA(int frameLength) {
+        int blocks = 1 + (frameLength - FIRST_BLOCK_LENGTH + BLOCK_LENGTH - 1) / BLOCK_LENGTH;
+        return frameLength + blocks * CRC_LENGTH;
+    }
+
+    private static boolean isValidFormatB(byte[] frame, int offset, int length) {
+        if (length < 1) {
+            return false;
+        }
+        int frameLength = (frame[offset] & 0xff) + 1;
+        if (frameLength <= FIRST_BLOCK_LENGTH + CRC_LENGTH || length < frameLength) {
+            return false;
+        }
+
+        if (frameLength <= FORMAT_B_SECOND_BLOCK_END) {
+            return crcMatches(frame, offset, frameLength - CRC_LENGTH);
+        }
+        if (frameLength <= FORMAT_B_SECOND_BLOCK_END + CRC_LENGTH) {
+            // third block would be empty
+            return false;
+        }
+        return crcMatches(frame, offset, FORMAT_B_SECOND_BLOCK_END - CRC_LENGTH)
+                && crcMatches(frame, offset + FORMAT_B_SECOND_BLOCK_END,
+                        frameLength - FORMAT_B_SECOND_BLOCK_END - CRC_LENGTH);
+    }
+
+    private static int removeFormatB(byte[] frame, int offset) {
+        int frameLength = (frame[offset] & 0xff) + 1;
+
+        int strippedLength;
+        if (frameLength <= FORMAT_B_SECOND_BLOCK_END) {
+            strippedLength = frameLength - CRC_LENGTH;
+        } else {
+            int thirdBlock = frameLength - FORMAT_B_SECOND_BLOCK_END - CRC_LENGTH;
+            System.arraycopy(frame, offset + FORMAT_B_SECOND_BLOCK_END, frame,
+                    offset + FORMAT_B_SECOND_BLOCK_END - CRC_LENGTH, thirdBlock);
+            strippedLength = frameLength - 2 * CRC_LENGTH;
+        }
+        frame[offset] = (byte) (strippedLength - 1);
+        return strippedLength;
+    }
+
+    private static boolean crcMatches(byte[] frame, int offset, int length) {
+        int crc = CRC16.calculateCrc16(frame, offset, length);
+        int received = ((frame[offset + length] & 0xff) << 8) | (frame[offset + length + 1] & 0xff);
+        return crc == received;
+    }
+
+    private static String invalidCrcMessage(String format, byte[] frame, int offset, int length) {
+        return MessageFormat.format("CRC of frame in format {0} does not match, L-field {1}, received {2} bytes.",
+                format, length < 1 ? "n/a" : String.valueOf(frame[offset] & 0xff), length);
+    }
+
+    /**
+     * Do not let this class be instantiated.
+     */
+    private LinkLayerCrc() {
+    }
+}
@@ -6,47 +6,163 @@
 package org.openmuc.jmbus.wireless;
 
 import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.openmuc.jmbus.wireless.WMBusConnection.OverflowPolicy;
+
+/**
+ * Reads messages from transport layer and hands them over to listener thread. Both threads are separated by bounded
+ * queue, so a slow listener can not make received messages pile up without limit. What happens when queue is full is
+ * decided by {@link OverflowPolicy}.
+ * <p>
+ * Receivers fed by thread shared with other connections, see {@link #setNonBlocking()}, never make that thread wait:
+ * messages are not put into full queue regardless of policy and work which might block is handed over to other thread.
+ */
 abstract class MessageReceiver implements Runnable {
 
-    private final ExecutorService executor;
+    // runs work which might block on behalf of non-blocking receivers
+    private static final ExecutorService HANDOFF = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "jmbus-handoff");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ThreadPoolExecutor executor;
+    private final BlockingQueue<Runnable> queue;
     private final WMBusListener listener;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private volatile boolean nonBlocking;
+    // stop notification which did not fit into queue, delivered once queued notifications are done
+    private volatile Runnable pendingStop;
+
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
 
-    public MessageReceiver(WMBusListener listener) {
+    public MessageReceiver(WMBusListener listener, int queueCapacity, OverflowPolicy overflowPolicy) {
         this.listener = listener;
-        this.executor = Executors.newSingleThreadExecutor();
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, queue) {
+            @Override
+            protected void terminated() {
+                Runnable stop = pendingStop;
+                if (stop != null) {
+                    stop.run();
+                }
+            }
+        };
+        // tasks are put directly into queue, worker must be there to take them
+        this.executor.prestartCoreThread();
+    }
+
+    /**
+     * Marks receiver as fed by thread which must not wait, ie. selector thread shared by all TCP connections.
+     */
+    void setNonBlocking() {
+        this.nonBlocking = true;
     }
 
     protected void shutdown() {
         this.executor.shutdown();
     }
 
+    /**
+     * Runs work which might block, ie. writing command to transceiver. Non-blocking receivers hand it over to other
+     * thread.
+     *
+     * @param task
+     *            the work to run.
+     */
+    protected void runBlocking(Runnable task) {
+        if (nonBlocking) {
+            HANDOFF.execute(task);
+        } else {
+            task.run();
+        }
+    }
+
     protected void notifyStoppedListening(final IOException ioException) {
-        executor.execute(new Runnable() {
+        // last notification which listener gets, it is never dropped
+        Runnable stop = new Runnable() {
             @Override
             public void run() {
                 listener.stoppedListening(ioException);
             }
-        });
+        };
+        if (!nonBlocking) {
+            enqueue(stop, OverflowPolicy.BLOCK);
+        } else if (!executor.isShutdown() && !queue.offer(stop)) {
+            // receiver is shut down right after, then notification follows queued ones
+            pendingStop = stop;
+        }
     }
 
     protected void notifyNewMessage(final WMBusMessage wmBusMessage) {
-        executor.execute(new Runnable() {
+        receivedCount.incrementAndGet();
+        enqueue(new Runnable() {
             @Override
             public void run() {
                 listener.newMessage(wmBusMessage);
             }
-        });
+        }, overflowPolicy);
     }
 
     protected void notifyDiscarded(final byte[] discardedBytes) {
-        executor.execute(new Runnable() {
+        enqueue(new Runnable() {
             @Override
             public void run() {
                 listener.discardedBytes(discardedBytes);
             }
-        });
+        }, overflowPolicy);
+    }
+
+    private void enqueue(Runnable task, OverflowPolicy policy) {
+        if (executor.isShutdown()) {
+            return;
+        }
+
+        if (nonBlocking && policy == OverflowPolicy.BLOCK) {
+            policy = OverflowPolicy.DROP_NEWEST;
+        }
+
+        switch (policy) {
+            case BLOCK:
+                try {
+                    queue.put(task);
+                } catch (InterruptedException e) {
+                    droppedCount.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(task)) {
+                    if (queue.poll() != null) {
+                        droppedCount.incrementAndGet();
+                    }
+                }
+                break;
+            case DROP_NEWEST:
+            default:
+                if (!queue.offer(task)) {
+                    droppedCount.incrementAndGet();
+                }
+        }
+
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+    }
+
+    ReceiverStatistics getStatistics() {
+        return new ReceiverStatistics(receivedCount.get(), droppedCount.get(), queue.size(), maxQueueDepth.get(),
+                queueCapacity);
     }
 }
@@ -0,0 +1,81 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.openmuc.jmbus.wireless;
+
+/**
+ * Snapshot of counters of queue which separates radio reader from {@link WMBusListener}.
+ *
+ * @see WMBusConnection#getReceiverStatistics()
+ */
+public final class ReceiverStatistics {
+
+    private final long receivedMessages;
+    private final long droppedNotifications;
+    private final int queueDepth;
+    private final int maxQueueDepth;
+    private final int queueCapacity;
+
+    ReceiverStatistics(long receivedMessages, long droppedNotifications, int queueDepth, int maxQueueDepth,
+            int queueCapacity) {
+        this.receivedMessages = receivedMessages;
+        this.droppedNotifications = droppedNotifications;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Returns the number of messages read from transport layer, including dropped ones.
+     *
+     * @return the number of received messages.
+     */
+    public long getReceivedMessages() {
+        return receivedMessages;
+    }
+
+    /**
+     * Returns the number of notifications which did not reach listener because queue was full.
+     *
+     * @return the number of dropped notifications.
+     */
+    public long getDroppedNotifications() {
+        return droppedNotifications;
+    }
+
+    /**
+     * Returns the number of notifications waiting for listener.
+     *
+     * @return the current queue depth.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Returns the highest number of notifications waiting for listener seen so far.
+     *
+     * @return the maximum queue depth.
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Returns the number of notifications which queue can hold.
+     *
+     * @return the queue capacity.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return "ReceiverStatistics [receivedMessages=" + receivedMessages + ", droppedNotifications="
+                + droppedNotifications + ", queueDepth=" + queueDepth + ", maxQueueDepth=" + maxQueueDepth
+                + ", queueCapacity=" + queueCapacity + "]";
+    }
+}
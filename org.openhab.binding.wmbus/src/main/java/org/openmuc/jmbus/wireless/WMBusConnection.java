@@ -52,6 +52,13 @@ public interface WMBusConnection extends AutoCloseable {
      */
     void removeKey(SecondaryAddress address);
 
+    /**
+     * Returns counters of queue which separates reading of messages from the listener.
+     * 
+     * @return statistics of message receiver.
+     */
+    ReceiverStatistics getReceiverStatistics();
+
     class WMBusSerialBuilder extends SerialBuilder<WMBusConnection, WMBusSerialBuilder> {
 
         private final Builder builder;
@@ -93,6 +100,16 @@ public interface WMBusConnection extends AutoCloseable {
             return self();
         }
 
+        public WMBusSerialBuilder setQueueCapacity(int queueCapacity) {
+            builder.setQueueCapacity(queueCapacity);
+            return self();
+        }
+
+        public WMBusSerialBuilder setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            builder.overflowPolicy = overflowPolicy;
+            return self();
+        }
+
         @Override
         public WMBusConnection build() throws IOException {
             return builder.build(buildTransportLayer());
@@ -107,6 +124,8 @@ public interface WMBusConnection extends AutoCloseable {
                 int port) {
             super(hostAddress, port);
             builder = new Builder(wmBusManufacturer, listener);
+            // Amber and IMST receivers are fed by shared selector thread
+            setNonBlocking(true);
         }
 
         public WMBusTcpBuilder setMode(WMBusMode mode) {
@@ -124,6 +143,16 @@ public interface WMBusConnection extends AutoCloseable {
             return self();
         }
 
+        public WMBusTcpBuilder setQueueCapacity(int queueCapacity) {
+            builder.setQueueCapacity(queueCapacity);
+            return self();
+        }
+
+        public WMBusTcpBuilder setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            builder.overflowPolicy = overflowPolicy;
+            return self();
+        }
+
         @Override
         public WMBusConnection build() throws IOException {
             return builder.build(buildTransportLayer());
@@ -135,11 +164,22 @@ public interface WMBusConnection extends AutoCloseable {
         private WMBusManufacturer wmBusManufacturer;
         private WMBusMode mode;
         private WMBusListener listener;
+        private int queueCapacity;
+        private OverflowPolicy overflowPolicy;
 
         Builder(WMBusManufacturer wmBusManufacturer, WMBusListener listener) {
             this.listener = listener;
             this.wmBusManufacturer = wmBusManufacturer;
             this.mode = WMBusMode.T;
+            this.queueCapacity = DEFAULT_QUEUE_CAPACITY;
+            this.overflowPolicy = OverflowPolicy.DROP_OLDEST;
+        }
+
+        void setQueueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("Queue capacity must be greater than zero: " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
         }
 
         WMBusConnection build(TransportLayer transportLayer) throws IOException {
@@ -159,11 +199,36 @@ public interface WMBusConnection extends AutoCloseable {
                     throw new RuntimeException("Unknown Manufacturer.");
             }
 
+            wmBusConnection.setReceiverQueue(this.queueCapacity, this.overflowPolicy);
             wmBusConnection.open();
             return wmBusConnection;
         }
     }
 
+    /**
+     * Default number of received messages which can wait for the listener.
+     */
+    int DEFAULT_QUEUE_CAPACITY = 500;
+
+    /**
+     * Defines what happens with received message when the listener falls behind and receiver queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Forget oldest waiting message and put new one into queue.
+         */
+        DROP_OLDEST,
+        /**
+         * Forget newly received message.
+         */
+        DROP_NEWEST,
+        /**
+         * Stop reading from transport layer until listener takes a message from queue. Non-blocking TCP connections
+         * share one reading thread which never waits, for them new message is forgotten as with {@link #DROP_NEWEST}.
+         */
+        BLOCK
+    }
+
     public enum WMBusManufacturer {
         AMBER,
         IMST,
@@ -5,10 +5,8 @@
  */
 package org.openmuc.jmbus.wireless;
 
-import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.text.MessageFormat;
 import java.util.Arrays;
@@ -21,108 +19,34 @@ import org.openmuc.jmbus.transportlayer.TransportLayer;
  */
 class WMBusConnectionAmber extends AbstractWMBusConnection {
 
-    private class MessageReceiverImpl extends MessageReceiver {
-
-        private static final int MBUS_BL_CONTROL = 0x44;
+    private class MessageReceiverImpl extends FramedMessageReceiver implements AmberFramer.FrameHandler {
 
         private int discardCount = 0;
-        private final TransportLayer transportLayer;
+        private final AmberFramer framer;
 
         public MessageReceiverImpl(TransportLayer transportLayer, WMBusListener listener) {
-            super(listener);
-            this.transportLayer = transportLayer;
+            super(WMBusConnectionAmber.this, transportLayer, listener);
+            this.framer = new AmberFramer(this);
         }
 
         @Override
-        public void run() {
-
-            try {
-
-                while (!isClosed()) {
-                    task();
-                }
-
-            } catch (final IOException e) {
-                if (isClosed()) {
-                    return;
-                }
-                super.notifyStoppedListening(e);
-
-            } finally {
-                close();
-                super.shutdown();
-            }
+        protected Framer getFramer() {
+            return framer;
         }
 
-        private void task() throws IOException {
-
-            ByteBuffer discardBuffer = ByteBuffer.allocate(100);
-
-            int b0, b1;
-            DataInputStream is = getInputStream();
-            while (true) {
-                try {
-                    this.transportLayer.setTimeout(0);
-                    b0 = is.read();
-                    this.transportLayer.setTimeout(MESSAGE_FRAGEMENT_TIMEOUT);
-                    b1 = is.read();
-
-                    if (b0 == 0xff && b1 == 0x03) {
-                        // it's optional if UART_CMD_Out_Enable is enabled on amber module
-                        // then you will get also CRC at the end of message frame
-                        continue;
-                    }
-
-                    if ((b1 ^ MBUS_BL_CONTROL) == 0) {
-                        // we found beginning of mBUS frame, in the b0 will be the length of message
-                        break;
-                    }
-
-                    if (discardBuffer.capacity() - discardBuffer.position() < 2) {
-                        discard(discardBuffer.array(), 0, discardBuffer.position());
-                        discardBuffer.clear();
-                    }
-                    discardBuffer.put((byte) b0);
-                    discardBuffer.put((byte) b1);
-                } catch (InterruptedIOException e) {
-                    continue;
-                }
-            }
-
-            int length = (b0 & 0xff) + 1; // +1 because length don't count the length byte itself
-            byte[] data = new byte[length];
-
-            data[0] = (byte) b0;
-            data[1] = (byte) b1;
-
-            int readLength = length - 2; // we already have first two bytes
-            int actualLength = is.read(data, 2, readLength);
-
-            if (readLength != actualLength) {
-                discard(data, 0, actualLength);
-                return;
-            }
+        @Override
+        public void frame(byte[] frame) {
+            notifyListener(frame);
+        }
 
-            if (is.available() > 0) {
-                // if there is one more bit it will be CRC, it's optional
-                byte crc = is.readByte();
-                byte countedCRC = (byte) (0xFF ^ 0x03);
-                for (byte element : data) {
-                    countedCRC = (byte) (countedCRC ^ element);
-                }
-                if (crc == countedCRC) {
-                    notifyListener(data);
-                } else {
-                    notifyDiscarded(data);
-                }
-            } else {
-                // parse data without CRC check
-                notifyListener(data);
-            }
+        @Override
+        public void checksumMismatch(byte[] frame) {
+            super.notifyDiscarded(frame);
+        }
 
-            if (discardBuffer.position() > 0) {
-                discard(discardBuffer.array(), 0, discardBuffer.position());
-            }
+        @Override
+        public void discarded(byte[] buffer, int offset, int length) {
+            discard(buffer, offset, length);
         }
 
         private void notifyListener(final byte[] data) {
@@ -151,11 +75,14 @@ class WMBusConnectionAmber extends AbstractWMBusConnection {
             super.notifyDiscarded(discardedBytes);
 
             if (discardCount >= 5) {
-                try {
-                    reset();
-                } catch (IOException e) {
-                    // ignoring reset errors here..
-                }
+                // write might wait for transport layer, which must not happen on thread pushing received data
+                runBlocking(() -> {
+                    try {
+                        reset();
+                    } catch (IOException e) {
+                        // ignoring reset errors here..
+                    }
+                });
                 discardCount = 0;
             }
         }
@@ -5,15 +5,12 @@
  */
 package org.openmuc.jmbus.wireless;
 
-import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.text.MessageFormat;
 import java.util.Arrays;
 
 import org.openmuc.jmbus.DecodingException;
-import org.openmuc.jmbus.HexUtils;
 import org.openmuc.jmbus.transportlayer.TransportLayer;
 
 /**
@@ -21,72 +18,47 @@ import org.openmuc.jmbus.transportlayer.TransportLayer;
  */
 class WMBusConnectionImst extends AbstractWMBusConnection {
 
-    private class MessageReceiverImpl extends MessageReceiver {
+    private class MessageReceiverImpl extends FramedMessageReceiver implements ImstFramer.MessageHandler {
 
         private static final byte MBUS_BL_CONTROL = 0x44;
-        private final TransportLayer transportLayer;
+        private final ImstFramer framer;
 
         public MessageReceiverImpl(TransportLayer transportLayer, WMBusListener listener) {
-            super(listener);
-            this.transportLayer = transportLayer;
+            super(WMBusConnectionImst.this, transportLayer, listener);
+            this.framer = new ImstFramer(this);
         }
 
         @Override
-        public void run() {
-            try {
-
-                while (!isClosed()) {
-                    try {
-                        task();
-                    } catch (InterruptedIOException e) {
-                        // ignore a timeout..
-                    } catch (HciMessageException e) {
-                        super.notifyDiscarded(e.getData());
-                    }
-                }
+        protected Framer getFramer() {
+            return framer;
+        }
 
-            } catch (IOException e) {
-                if (isClosed()) {
-                    return;
-                }
-
-                super.notifyStoppedListening(e);
-            } finally {
-                close();
-                super.shutdown();
+        @Override
+        public void message(byte endpointId, byte msgId, byte[] buffer, int offset, int length, int rssi) {
+            if (length == 0) {
+                return;
             }
-        }
 
-        private void task() throws IOException {
-            HciMessage hciMessage = readHciMsg();
+            // wM-Bus frame is payload preceded by its length
+            final byte[] wmbusMessage = new byte[length + 1];
+            wmbusMessage[0] = (byte) length;
+            System.arraycopy(buffer, offset, wmbusMessage, 1, length);
 
-            final byte[] wmbusMessage = hciMessage.getPayload();
-            final int signalStrengthInDBm = hciMessage.getRSSI();
-            try {
-                super.notifyNewMessage(WMBusMessage.decode(wmbusMessage, signalStrengthInDBm, keyMap));
-            } catch (DecodingException e) {
+            if (wmbusMessage[1] != MBUS_BL_CONTROL) {
                 super.notifyDiscarded(wmbusMessage);
+                return;
             }
-        }
-
-        private HciMessage readHciMsg() throws IOException {
-            while (true) {
-                HciMessage hciMessage = HciMessage.decode(this.transportLayer);
 
-                if (hciMessage.getPayload().length <= 1) {
-                    continue;
-                }
-
-                if (hciMessage.getPayload()[1] == MBUS_BL_CONTROL) {
-                    return hciMessage;
-                } else {
-                    discard(hciMessage);
-                }
+            try {
+                super.notifyNewMessage(WMBusMessage.decode(wmbusMessage, rssi, keyMap));
+            } catch (DecodingException e) {
+                super.notifyDiscarded(wmbusMessage);
             }
         }
 
-        private void discard(HciMessage hciMessage) {
-            super.notifyDiscarded(hciMessage.payload);
+        @Override
+        public void discarded(byte[] buffer, int offset, int length) {
+            super.notifyDiscarded(Arrays.copyOfRange(buffer, offset, offset + length));
         }
     }
 
@@ -177,11 +149,11 @@ class WMBusConnectionImst extends AbstractWMBusConnection {
      * IMST constants packages
      */
     class Const {
-        public static final byte START_OF_FRAME = (byte) 0xA5;
+        public static final byte START_OF_FRAME = ImstFramer.START_OF_FRAME;
         // A5 01 03
         public static final int MAX_PACKAGES = 255;
         public static final int MAX_SINGLE_PAYLOAD_SIZE = 255;
-        public static final int HCI_HEADER_LENGTH = 4;
+        public static final int HCI_HEADER_LENGTH = ImstFramer.HEADER_LENGTH;
 
         // ControlField
         public static final byte RESERVED = 0x00; // 0b0000
@@ -241,133 +213,4 @@ class WMBusConnectionImst extends AbstractWMBusConnection {
             // hide constructor
         }
     }
-
-    /**
-     * <li><tt>HCI Message</tt>
-     * <ul>
-     * <li>StartOfFrame 8 Bit: 0xA5
-     * <li>MsgHeader 24 Bit:
-     * <ul>
-     * <li>ControlField 4 Bit:
-     * <ul>
-     * <li>0000b Reserved
-     * <li>0010b Time Stamp Field attached
-     * <li>0100b RSSI Field attached
-     * <li>1000b CRC16 Field attached
-     * </ul>
-     * <li>EndPoint ID 4 Bit: Identifies a logical message endpoint which groups several messages.
-     * <li>Msg ID Field 8 Bit: Identifies the message type.
-     * <li>LengthFiled 8 Bit: Number of bytes in the payload. If null no payload.
-     * </ul>
-     * <li>PayloadField n * 8 Bit: wMBus Message
-     * <li>Time Stamp (optional): 32 Bit Timestamp of the RTC
-     * <li>RSSI (optional) 8 Bit: Receive Signal Strength Indicator
-     * <li>FCS (optional) 16 Bit: CRC from Control Field up to last byte of Payload, Time Stamp or RSSI Field.</li>
-     * </ul>
-     *
-     */
-    private static class HciMessage {
-
-        private final byte controlField;;
-        private final byte endpointID;
-        private final byte msgId;
-        private final int length;
-
-        private final byte[] payload;
-        private final int timeStamp;
-        private final int rSSI;
-        private final int fCS;
-
-        private HciMessage(byte controlField, byte endpointID, byte msgId, int length, byte[] payload, int timeStamp,
-                int rSSI, int fCS) {
-            this.controlField = controlField;
-            this.endpointID = endpointID;
-            this.msgId = msgId;
-            this.length = length;
-            this.payload = payload;
-            this.timeStamp = timeStamp;
-            this.rSSI = rSSI;
-            this.fCS = fCS;
-        }
-
-        public static HciMessage decode(TransportLayer transportLayer) throws IOException {
-            DataInputStream is = transportLayer.getInputStream();
-            byte b0;
-            byte b1;
-
-            transportLayer.setTimeout(0);
-            b0 = is.readByte();
-            if (b0 != Const.START_OF_FRAME) {
-                String msg = String.format("First byte does not start with %02X.", Const.START_OF_FRAME);
-                throw new IOException(msg);
-            }
-
-            transportLayer.setTimeout(MESSAGE_FRAGEMENT_TIMEOUT);
-            // this may time out.
-            b1 = is.readByte();
-
-            byte controlField = (byte) ((b1 >> 4) & 0x0F);
-            byte endpointId = (byte) (b1 & 0x0F);
-
-            byte msgId = is.readByte();
-            int length = is.readUnsignedByte();
-
-            byte[] payload = readPayload(is, length);
-
-            int timeStamp = 0;
-            if ((controlField & Const.TIMESTAMP_ATTACHED) == Const.TIMESTAMP_ATTACHED) {
-                timeStamp = is.readInt();
-            }
-
-            int rSSI = 0;
-            if ((controlField & Const.RSSI_ATTACHED) == Const.RSSI_ATTACHED) {
-                double b = -100.0 - (4000.0 / 150.0);
-                double m = 80.0 / 150.0;
-                rSSI = (int) (m * is.readUnsignedByte() + b);
-            }
-
-            int fCS = 0;
-            if ((controlField & Const.CRC16_ATTACHED) == Const.CRC16_ATTACHED) {
-                fCS = is.readUnsignedShort();
-            }
-
-            return new HciMessage(controlField, endpointId, msgId, length, payload, timeStamp, rSSI, fCS);
-        }
-
-        private static byte[] readPayload(DataInputStream is, final int length) throws IOException {
-            byte[] payload = new byte[length + 1];
-            payload[0] = (byte) length;
-
-            int readLength = is.read(payload, 1, length);
-
-            if (readLength != length) {
-                byte[] data = Arrays.copyOfRange(payload, 1, 1 + readLength);
-                throw new HciMessageException(data);
-            }
-
-            return payload;
-        }
-
-        @Override
-        public String toString() {
-            return new StringBuilder().append("Control Field: ").append(byteAsHexString(controlField))
-                    .append("\nEndpointID:    ").append(byteAsHexString(endpointID)).append("\nMsg ID:        ")
-                    .append(byteAsHexString(msgId)).append("\nLength:        ").append(length)
-                    .append("\nTimestamp:     ").append(timeStamp).append("\nRSSI:          ").append(rSSI)
-                    .append("\nFCS:           ").append(fCS).append("\nPayload:\n").append(HexUtils.bytesToHex(payload))
-                    .toString();
-        }
-
-        private static String byteAsHexString(byte b) {
-            return String.format("%02X", b);
-        }
-
-        public byte[] getPayload() {
-            return payload;
-        }
-
-        public int getRSSI() {
-            return rSSI;
-        }
-    }
 }
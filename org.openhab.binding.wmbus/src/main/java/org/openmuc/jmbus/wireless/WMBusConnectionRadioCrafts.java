@@ -39,7 +39,7 @@ class WMBusConnectionRadioCrafts extends AbstractWMBusConnection {
         private int bufferPointer = 0;
 
         public MessageReceiverImpl(TransportLayer transportLayer, WMBusListener listener) {
-            super(listener);
+            super(listener, getQueueCapacity(), getOverflowPolicy());
             this.transportLayer = transportLayer;
         }
 
@@ -0,0 +1,60 @@
+package org.openhab.binding.wmbus;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.binding.wmbus.device.AbstractWMBusTest;
+import org.openmuc.jmbus.DecodeStatus;
+import org.openmuc.jmbus.DecodingException;
+
+/**
+ * Verify that frame is decoded only once regardless of number of receivers asking for it.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class DecodedFrameTest extends AbstractWMBusTest {
+
+    // KAM cold water meter with single volume record, short header, no encryption
+    private static final String MESSAGE_KAM_COLD_WATER = "14442D2C785634121B167A010000000C1427048502";
+
+    @Test
+    public void testDecodeOnce() throws Exception {
+        WMBusDevice device = message(MESSAGE_KAM_COLD_WATER);
+
+        device.decode();
+        DecodedFrame frame = device.getDecodedFrame();
+        device.decode();
+
+        Assertions.assertThat(device.getDecodedFrame()).isSameAs(frame);
+        Assertions.assertThat(frame.isDecoded()).isTrue();
+        Assertions.assertThat(frame.getStatus()).isEqualTo(DecodeStatus.OK);
+        Assertions.assertThat(frame.getError()).isEmpty();
+        Assertions.assertThat(frame.getRecords()).hasSize(1);
+        Assertions.assertThat(frame.getDecodeTime()).isNotNegative();
+    }
+
+    @Test
+    public void testLayoutFingerprint() throws Exception {
+        DecodedFrame frame = message(MESSAGE_KAM_COLD_WATER).getDecodedFrame();
+        // same record with other value
+        DecodedFrame otherValue = message(MESSAGE_KAM_COLD_WATER.replace("0C1427", "0C1428")).getDecodedFrame();
+        // volume of other unit
+        DecodedFrame otherLayout = message(MESSAGE_KAM_COLD_WATER.replace("0C1427", "0C1327")).getDecodedFrame();
+
+        Assertions.assertThat(otherValue.getLayoutFingerprint()).isEqualTo(frame.getLayoutFingerprint());
+        Assertions.assertThat(otherLayout.getLayoutFingerprint()).isNotEqualTo(frame.getLayoutFingerprint());
+    }
+
+    @Test
+    public void testFailureRemembered() throws Exception {
+        WMBusDevice device = message(MESSAGE_112_WARM_WATER);
+
+        DecodedFrame frame = device.getDecodedFrame();
+        Assertions.assertThat(frame.isDecoded()).isFalse();
+        Assertions.assertThat(frame.getStatus()).isEqualTo(DecodeStatus.MANUFACTURER_CI);
+        Assertions.assertThat(frame.getRecords()).isEmpty();
+
+        Assertions.assertThatThrownBy(device::decode).isInstanceOf(DecodingException.class)
+                .isSameAs(frame.getError().get());
+        Assertions.assertThat(device.getDecodedFrame()).isSameAs(frame);
+    }
+}
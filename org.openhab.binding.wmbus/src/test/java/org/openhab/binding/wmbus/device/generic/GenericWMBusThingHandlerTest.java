@@ -98,6 +98,7 @@ public class GenericWMBusThingHandlerTest {
         Mockito.when(device.findRecord(VOLUME)).thenReturn(data);
         Mockito.when(data.getUnit()).thenReturn(DlmsUnit.CUBIC_METRE);
         Mockito.when(data.getScaledDataValue()).thenReturn(VOLUME_VALUE);
+        Mockito.when(callback.isChannelLinked(CHANNEL_UID)).thenReturn(true);
         handler.onChangedWMBusDevice(adapter, device);
 
         ArgumentCaptor<State> stateCapture = ArgumentCaptor.forClass(State.class);
@@ -109,6 +110,17 @@ public class GenericWMBusThingHandlerTest {
                 .isEqualTo(new QuantityType<>(VOLUME_VALUE, SIUnits.CUBIC_METRE));
     }
 
+    @Test
+    public void testUnlinkedChannelNotUpdated() throws Exception {
+        WMBusDevice device = Mockito.mock(WMBusDevice.class);
+        Mockito.when(device.getDeviceAddress()).thenReturn(DEVICE_ADDRESS);
+        handler.onChangedWMBusDevice(adapter, device);
+
+        // record is not looked up when there is no item to receive its value
+        Mockito.verify(device, Mockito.never()).findRecord(VOLUME);
+        Mockito.verify(callback, Mockito.never()).stateUpdated(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
     public static Thing createTestThing() {
         ThingBuilder thing = ThingBuilder.create(WMBusBindingConstants.THING_TYPE_METER, THING_ID);
         thing.withConfiguration(new Configuration(CONFIGURATION));
@@ -0,0 +1,136 @@
+package org.openhab.binding.wmbus.handler;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openhab.binding.wmbus.WMBusBindingConstants;
+import org.openhab.binding.wmbus.WMBusDevice;
+import org.openhab.binding.wmbus.device.AbstractWMBusTest;
+import org.openhab.core.config.core.Configuration;
+import org.openhab.core.thing.Bridge;
+import org.openhab.core.thing.binding.ThingHandlerCallback;
+import org.openhab.core.thing.binding.builder.BridgeBuilder;
+import org.openhab.io.transport.mbus.wireless.KeyStorageListener;
+import org.openhab.io.transport.mbus.wireless.MapKeyStorage;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Verify that frames received by bridge processing them in several lanes reach listeners in order of receipt.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class VirtualWMBusBridgeHandlerTest extends AbstractWMBusTest {
+
+    private static final int LANES = 4;
+    private static final int DEVICES = 16;
+    private static final int FRAMES = 50;
+
+    private final ListenerTrackingKeyStorage keyStorage = new ListenerTrackingKeyStorage();
+    private VirtualWMBusBridgeHandler handler;
+
+    @Mock
+    private ThingHandlerCallback callback;
+
+    @Before
+    public void setUp() {
+        Bridge bridge = BridgeBuilder.create(WMBusBindingConstants.THING_TYPE_VIRTUAL_BRIDGE, "virtual")
+                .withConfiguration(new Configuration(ImmutableMap.of(WMBusBindingConstants.CONFKEY_PROCESSING_LANES,
+                        BigDecimal.valueOf(LANES))))
+                .build();
+
+        handler = new VirtualWMBusBridgeHandler(bridge, keyStorage);
+        handler.setCallback(callback);
+        handler.initialize();
+    }
+
+    @After
+    public void tearDown() {
+        handler.dispose();
+    }
+
+    @Test
+    public void testOrderPerDevice() throws Exception {
+        CountDownLatch latch = new CountDownLatch(DEVICES * FRAMES);
+        Map<Long, List<WMBusDevice>> received = new ConcurrentHashMap<>();
+        handler.registerWMBusMessageListener(new WMBusMessageListener() {
+            @Override
+            public void onNewWMBusDevice(WMBusAdapter adapter, WMBusDevice device) {
+                onChangedWMBusDevice(adapter, device);
+            }
+
+            @Override
+            public void onChangedWMBusDevice(WMBusAdapter adapter, WMBusDevice device) {
+                received.computeIfAbsent(device.getDeviceAddressKey(), key -> new CopyOnWriteArrayList<>())
+                        .add(device);
+                latch.countDown();
+            }
+        });
+
+        Map<Long, List<WMBusDevice>> sent = new ConcurrentHashMap<>();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            for (int index = 0; index < DEVICES; index++) {
+                WMBusDevice device = message(frame(index, frame), handler);
+                sent.computeIfAbsent(device.getDeviceAddressKey(), key -> new ArrayList<>()).add(device);
+                handler.processMessage(device);
+            }
+        }
+
+        Assertions.assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(received).hasSize(DEVICES);
+        for (Map.Entry<Long, List<WMBusDevice>> entry : sent.entrySet()) {
+            Assertions.assertThat(received.get(entry.getKey())).containsExactlyElementsOf(entry.getValue());
+        }
+    }
+
+    @Test
+    public void testKeyListenerSurvivesReconfiguration() {
+        Assertions.assertThat(keyStorage.listeners).hasSize(1);
+
+        // bridge configuration update disposes and initializes same handler
+        handler.dispose();
+        Assertions.assertThat(keyStorage.listeners).isEmpty();
+        handler.initialize();
+        Assertions.assertThat(keyStorage.listeners).hasSize(1);
+
+        handler.reset();
+        Assertions.assertThat(keyStorage.listeners).hasSize(1);
+    }
+
+    // KAM cold water meter frame with device id and access number varied
+    private static String frame(int device, int accessNumber) {
+        String id = String.format("%08d", 12340000 + device);
+        String reversedId = id.substring(6, 8) + id.substring(4, 6) + id.substring(2, 4) + id.substring(0, 2);
+        return "14442D2C" + reversedId + "1B167A" + String.format("%02X", accessNumber) + "0000000C1427048502";
+    }
+
+    static class ListenerTrackingKeyStorage extends MapKeyStorage {
+        private final List<KeyStorageListener> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void addListener(KeyStorageListener listener) {
+            super.addListener(listener);
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(KeyStorageListener listener) {
+            super.removeListener(listener);
+            listeners.remove(listener);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.openhab.binding.wmbus.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.binding.wmbus.config.UpdateAggregation;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.unit.SIUnits;
+import org.openhab.core.types.State;
+
+/**
+ * Test of filter which limits channel updates of meters transmitting every few seconds.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class ChannelUpdateFilterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testUnchangedStateSuppressed() {
+        ChannelUpdateFilter filter = new ChannelUpdateFilter(true, 0, TimeUnit.SECONDS, UpdateAggregation.LAST);
+
+        Assertions.assertThat(filter.filter("volume", new DecimalType(1), 0)).isEqualTo(new DecimalType(1));
+        Assertions.assertThat(filter.filter("volume", new DecimalType(1), SECOND)).isNull();
+        Assertions.assertThat(filter.filter("volume", new DecimalType(2), 2 * SECOND)).isEqualTo(new DecimalType(2));
+        // other channel is filtered separately
+        Assertions.assertThat(filter.filter("power", new DecimalType(1), 3 * SECOND)).isEqualTo(new DecimalType(1));
+
+        Assertions.assertThat(filter.getEmitted()).isEqualTo(3);
+        Assertions.assertThat(filter.getSuppressed()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUnchangedStateSent() {
+        ChannelUpdateFilter filter = new ChannelUpdateFilter(false, 0, TimeUnit.SECONDS, UpdateAggregation.LAST);
+
+        Assertions.assertThat(filter.filter("volume", new DecimalType(1), 0)).isEqualTo(new DecimalType(1));
+        Assertions.assertThat(filter.filter("volume", new DecimalType(1), SECOND)).isEqualTo(new DecimalType(1));
+        Assertions.assertThat(filter.getSuppressed()).isEqualTo(0);
+    }
+
+    @Test
+    public void testForget() {
+        ChannelUpdateFilter filter = new ChannelUpdateFilter(true, 60, TimeUnit.SECONDS, UpdateAggregation.LAST);
+        filter.filter("volume", new DecimalType(1), 0);
+
+        // newly linked item receives current state
+        filter.forget("volume");
+        Assertions.assertThat(filter.filter("volume", new DecimalType(1), SECOND)).isEqualTo(new DecimalType(1));
+    }
+
+    @Test
+    public void testLastInInterval() {
+        ChannelUpdateFilter filter = new ChannelUpdateFilter(true, 10, TimeUnit.SECONDS, UpdateAggregation.LAST);
+
+        Assertions.assertThat(filter.filter("volume", new DecimalType(1), 0)).isEqualTo(new DecimalType(1));
+        Assertions.assertThat(filter.filter("volume", new DecimalType(5), 4 * SECOND)).isNull();
+        Assertions.assertThat(filter.filter("volume", new DecimalType(3), 8 * SECOND)).isNull();
+        Assertions.assertThat(filter.filter("volume", new DecimalType(4), 12 * SECOND)).isEqualTo(new DecimalType(4));
+        // interval starts with last sent update
+        Assertions.assertThat(filter.filter("volume", new DecimalType(6), 16 * SECOND)).isNull();
+    }
+
+    @Test
+    public void testAggregation() {
+        assertAggregated(UpdateAggregation.MIN, new DecimalType(3));
+        assertAggregated(UpdateAggregation.MAX, new DecimalType(5));
+        assertAggregated(UpdateAggregation.MEAN, new DecimalType(4));
+    }
+
+    @Test
+    public void testQuantityAggregation() {
+        ChannelUpdateFilter filter = new ChannelUpdateFilter(true, 10, TimeUnit.SECONDS, UpdateAggregation.MAX);
+
+        filter.filter("volume", new QuantityType<>(1, SIUnits.CUBIC_METRE), 0);
+        filter.filter("volume", new QuantityType<>(7, SIUnits.CUBIC_METRE), 4 * SECOND);
+        State state = filter.filter("volume", new QuantityType<>(2, SIUnits.CUBIC_METRE), 12 * SECOND);
+
+        Assertions.assertThat(state).isEqualTo(new QuantityType<>(7.0, SIUnits.CUBIC_METRE));
+    }
+
+    @Test
+    public void testTextNotAggregated() {
+        ChannelUpdateFilter filter = new ChannelUpdateFilter(true, 10, TimeUnit.SECONDS, UpdateAggregation.MAX);
+
+        filter.filter("status", new StringType("ok"), 0);
+        Assertions.assertThat(filter.filter("status", new StringType("error"), 4 * SECOND)).isNull();
+        Assertions.assertThat(filter.filter("status", new StringType("ok"), 12 * SECOND)).isNull();
+        Assertions.assertThat(filter.filter("status", new StringType("error"), 16 * SECOND))
+                .isEqualTo(new StringType("error"));
+    }
+
+    private static void assertAggregated(UpdateAggregation aggregation, State expected) {
+        ChannelUpdateFilter filter = new ChannelUpdateFilter(true, 10, TimeUnit.SECONDS, aggregation);
+
+        filter.filter("volume", new DecimalType(1), 0);
+        Assertions.assertThat(filter.filter("volume", new DecimalType(5), 4 * SECOND)).isNull();
+        Assertions.assertThat(filter.filter("volume", new DecimalType(3), 8 * SECOND)).isNull();
+        Assertions.assertThat(filter.filter("volume", new DecimalType(4), 12 * SECOND)).as(aggregation.name())
+                .isEqualTo(expected);
+
+        Assertions.assertThat(filter.getEmitted()).isEqualTo(2);
+        Assertions.assertThat(filter.getSuppressed()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,123 @@
+package org.openhab.binding.wmbus.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of queue expiring devices which did not send frame in time.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class DeadlineQueueTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(Long.MAX_VALUE - 5 * MINUTE);
+    private final Map<String, Long> deadlines = new HashMap<>();
+    private final List<String> expired = new ArrayList<>();
+    private final AtomicInteger deadlineReads = new AtomicInteger();
+    private final DeadlineQueue<String> queue = new DeadlineQueue<>(item -> {
+        deadlineReads.incrementAndGet();
+        return deadlines.get(item);
+    }, expired::add, clock::get);
+
+    @Test
+    public void testExpiry() {
+        seen("first", MINUTE);
+        seen("second", 2 * MINUTE);
+
+        Assertions.assertThat(queue.expire()).isEqualTo(0);
+        // deadline of first is not passed before it is reached, then it expires with sub-second precision
+        clock.addAndGet(MINUTE - 1);
+        Assertions.assertThat(queue.expire()).isEqualTo(0);
+        clock.incrementAndGet();
+        Assertions.assertThat(queue.expire()).isEqualTo(1);
+        Assertions.assertThat(expired).containsExactly("first");
+        Assertions.assertThat(queue.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDeadlineMovedByFrame() {
+        seen("meter", MINUTE);
+
+        // frame received later pushes deadline without rescheduling
+        clock.addAndGet(MINUTE / 2);
+        seen("meter", MINUTE);
+        clock.addAndGet(MINUTE / 2);
+        Assertions.assertThat(queue.expire()).isEqualTo(0);
+
+        clock.addAndGet(MINUTE / 2);
+        Assertions.assertThat(queue.expire()).isEqualTo(1);
+        Assertions.assertThat(expired).containsExactly("meter");
+
+        // expired meter is watched again once it sends frame
+        seen("meter", MINUTE);
+        clock.addAndGet(MINUTE);
+        Assertions.assertThat(queue.expire()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDeadlineMovedBack() {
+        seen("meter", 2 * MINUTE);
+        // frequency of updates was shortened
+        seen("meter", MINUTE);
+
+        clock.addAndGet(MINUTE);
+        Assertions.assertThat(queue.expire()).isEqualTo(1);
+        clock.addAndGet(MINUTE);
+        Assertions.assertThat(queue.expire()).isEqualTo(0);
+        Assertions.assertThat(expired).containsExactly("meter");
+    }
+
+    @Test
+    public void testCancel() {
+        seen("meter", MINUTE);
+        queue.cancel("meter");
+
+        clock.addAndGet(MINUTE);
+        Assertions.assertThat(queue.expire()).isEqualTo(0);
+        Assertions.assertThat(queue.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testOnlyDueItemsTouched() {
+        // stands in for microbenchmark, 50k meters reporting every 15 minutes spread over one minute
+        int meters = 50000;
+        long start = clock.get();
+        for (int index = 0; index < meters; index++) {
+            deadlines.put("meter" + index, start + 15 * MINUTE + index * (MINUTE / meters));
+            queue.schedule("meter" + index);
+        }
+
+        // idle queue does not touch meters
+        deadlineReads.set(0);
+        clock.addAndGet(14 * MINUTE);
+        Assertions.assertThat(queue.expire()).isEqualTo(0);
+        Assertions.assertThat(deadlineReads.get()).isEqualTo(0);
+
+        // all meters sent frame meanwhile, deadlines of first 1000 pass
+        deadlines.replaceAll((item, deadline) -> deadline + 15 * MINUTE);
+        clock.set(start + 15 * MINUTE + 999 * (MINUTE / meters));
+        Assertions.assertThat(queue.expire()).isEqualTo(0);
+        Assertions.assertThat(deadlineReads.get()).isEqualTo(1000);
+        Assertions.assertThat(queue.size()).isEqualTo(meters);
+
+        // first 1000 did not send frame again
+        clock.addAndGet(15 * MINUTE);
+        Assertions.assertThat(queue.expire()).isEqualTo(1000);
+        Assertions.assertThat(queue.size()).isEqualTo(meters - 1000);
+    }
+
+    private void seen(String item, long frequency) {
+        deadlines.put(item, clock.get() + frequency);
+        queue.schedule(item);
+    }
+}
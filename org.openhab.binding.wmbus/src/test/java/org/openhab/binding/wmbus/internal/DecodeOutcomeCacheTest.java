@@ -0,0 +1,108 @@
+package org.openhab.binding.wmbus.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.binding.wmbus.internal.DecodeOutcomeCache.Outcome;
+import org.openmuc.jmbus.DecodeStatus;
+
+/**
+ * Test of cache which remembers devices which frames could not be decrypted.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class DecodeOutcomeCacheTest {
+
+    private final DecodeOutcomeCache cache = new DecodeOutcomeCache();
+
+    @Test
+    public void testLookup() {
+        cache.put(0x2423870723421147L, Outcome.NO_KEY);
+        cache.put(0L, Outcome.WRONG_KEY);
+
+        Assertions.assertThat(cache.lookup(0x2423870723421147L)).isEqualTo(Outcome.NO_KEY);
+        Assertions.assertThat(cache.lookup(0L)).isEqualTo(Outcome.WRONG_KEY);
+        Assertions.assertThat(cache.lookup(1L)).isNull();
+        Assertions.assertThat(cache.size()).isEqualTo(2);
+
+        cache.put(0L, Outcome.NO_KEY);
+        Assertions.assertThat(cache.lookup(0L)).isEqualTo(Outcome.NO_KEY);
+        Assertions.assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testOutcomeOfStatus() {
+        Assertions.assertThat(Outcome.of(DecodeStatus.NEEDS_KEY)).isEqualTo(Outcome.NO_KEY);
+        Assertions.assertThat(Outcome.of(DecodeStatus.WRONG_KEY)).isEqualTo(Outcome.WRONG_KEY);
+        Assertions.assertThat(Outcome.of(DecodeStatus.MANUFACTURER_CI)).isEqualTo(Outcome.MANUFACTURER_CI);
+        Assertions.assertThat(Outcome.of(DecodeStatus.UNSUPPORTED_CI)).isEqualTo(Outcome.UNSUPPORTED_CI);
+        Assertions.assertThat(Outcome.of(DecodeStatus.OK)).isNull();
+        Assertions.assertThat(Outcome.of(DecodeStatus.MALFORMED)).isNull();
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.put(0x2423870723421147L, Outcome.NO_KEY);
+        cache.invalidate(0x2423870723421147L);
+
+        Assertions.assertThat(cache.lookup(0x2423870723421147L)).isNull();
+        Assertions.assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Map<Long, Outcome> expected = new HashMap<>();
+        Random random = new Random(42);
+        // small address range forces collisions, removals and updates of existing entries
+        for (int index = 0; index < 100000; index++) {
+            long address = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                cache.invalidate(address);
+                expected.remove(address);
+            } else {
+                Outcome outcome = random.nextBoolean() ? Outcome.NO_KEY : Outcome.WRONG_KEY;
+                cache.put(address, outcome);
+                expected.put(address, outcome);
+            }
+        }
+
+        Assertions.assertThat(cache.size()).isEqualTo(expected.size());
+        for (long address = 0; address < 2000; address++) {
+            Assertions.assertThat(cache.lookup(address)).isEqualTo(expected.get(address));
+        }
+    }
+
+    @Test
+    public void testClearedWhenFull() {
+        for (long address = 0; address < 100000; address++) {
+            cache.put(address, Outcome.NO_KEY);
+        }
+
+        Assertions.assertThat(cache.size()).isLessThan(4096);
+        Assertions.assertThat(cache.lookup(99999L)).isEqualTo(Outcome.NO_KEY);
+    }
+
+    @Test
+    public void testFoundAfterClear() {
+        Random random = new Random(42);
+        for (int index = 0; index < 100000; index++) {
+            long address = random.nextLong();
+            cache.put(address, Outcome.NO_KEY);
+            Assertions.assertThat(cache.lookup(address)).isEqualTo(Outcome.NO_KEY);
+        }
+    }
+
+    @Test
+    public void testSkippedCounters() {
+        cache.skipped(Outcome.NO_KEY);
+        cache.skipped(Outcome.NO_KEY);
+        cache.skipped(Outcome.MANUFACTURER_CI);
+
+        Assertions.assertThat(cache.getSkipped(Outcome.NO_KEY)).isEqualTo(2L);
+        Assertions.assertThat(cache.getSkipped(Outcome.WRONG_KEY)).isEqualTo(0L);
+        Assertions.assertThat(cache.getSkipped(Outcome.MANUFACTURER_CI)).isEqualTo(1L);
+    }
+}
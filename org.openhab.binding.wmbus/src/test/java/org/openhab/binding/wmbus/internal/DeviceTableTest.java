@@ -0,0 +1,124 @@
+package org.openhab.binding.wmbus.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of bounded table of devices keyed by packed address.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class DeviceTableTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Set<Long> pinned = new HashSet<>();
+
+    @Test
+    public void testPutAndGet() {
+        DeviceTable<String> table = table(100);
+
+        Assertions.assertThat(table.put(0x2423870723421147L, "first")).isNull();
+        Assertions.assertThat(table.put(0x2423870723421147L, "second")).isEqualTo("first");
+        Assertions.assertThat(table.put(0L, "zero")).isNull();
+
+        Assertions.assertThat(table.get(0x2423870723421147L)).isEqualTo("second");
+        Assertions.assertThat(table.get(0L)).isEqualTo("zero");
+        Assertions.assertThat(table.get(1L)).isNull();
+        Assertions.assertThat(table.size()).isEqualTo(2);
+
+        Assertions.assertThat(table.remove(0L)).isEqualTo("zero");
+        Assertions.assertThat(table.get(0L)).isNull();
+        Assertions.assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRandomOperations() {
+        DeviceTable<Long> table = table(100000);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int index = 0; index < 200000; index++) {
+            long key = random.nextInt(5000) * 0x100000000L;
+            if (random.nextInt(4) == 0) {
+                Assertions.assertThat(table.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                Assertions.assertThat(table.put(key, (long) index)).isEqualTo(expected.put(key, (long) index));
+            }
+        }
+
+        Assertions.assertThat(table.size()).isEqualTo(expected.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            Assertions.assertThat(table.get(entry.getKey())).isEqualTo(entry.getValue());
+        }
+        List<Long> values = new ArrayList<>();
+        table.forEachValue(values::add);
+        Assertions.assertThat(values).containsExactlyInAnyOrder(expected.values().toArray());
+    }
+
+    @Test
+    public void testCapacityBound() {
+        DeviceTable<Long> table = table(1000);
+        pinned.add(0L);
+        table.put(0L, 0L);
+
+        for (long key = 1; key < 100000; key++) {
+            clock.incrementAndGet();
+            table.put(key, key);
+        }
+
+        Assertions.assertThat(table.size()).isLessThanOrEqualTo(1000 + 16);
+        // pinned device survives, recently seen ones are kept
+        Assertions.assertThat(table.get(0L)).isEqualTo(0L);
+        Assertions.assertThat(table.get(99999L)).isEqualTo(99999L);
+    }
+
+    @Test
+    public void testPinnedDevicesAboveCapacity() {
+        DeviceTable<Long> table = table(16);
+        for (long key = 0; key < 1000; key++) {
+            pinned.add(key);
+            table.put(key, key);
+        }
+
+        Assertions.assertThat(table.size()).isEqualTo(1000);
+        for (long key = 0; key < 1000; key++) {
+            Assertions.assertThat(table.get(key)).isEqualTo(key);
+        }
+    }
+
+    @Test
+    public void testExpire() {
+        DeviceTable<Long> table = table(1000);
+        for (long key = 0; key < 500; key++) {
+            table.put(key, key);
+        }
+        pinned.add(7L);
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(30));
+        for (long key = 250; key < 500; key++) {
+            table.put(key, key);
+        }
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(45));
+
+        Assertions.assertThat(table.expire()).isEqualTo(249);
+        Assertions.assertThat(table.size()).isEqualTo(251);
+        Assertions.assertThat(table.get(7L)).isEqualTo(7L);
+        Assertions.assertThat(table.get(8L)).isNull();
+        for (long key = 250; key < 500; key++) {
+            Assertions.assertThat(table.get(key)).isEqualTo(key);
+        }
+    }
+
+    private <V> DeviceTable<V> table(int capacity) {
+        return new DeviceTable<>(capacity, 1, TimeUnit.HOURS, pinned::contains, clock::get);
+    }
+}
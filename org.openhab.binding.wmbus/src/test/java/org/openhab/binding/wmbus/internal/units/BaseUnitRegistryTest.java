@@ -15,6 +15,7 @@ import javax.measure.Unit;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.openhab.binding.wmbus.UnitRegistry;
+import org.openhab.core.library.dimension.VolumetricFlowRate;
 import org.openhab.core.library.unit.ImperialUnits;
 import org.openhab.core.library.unit.SIUnits;
 import org.openhab.core.library.unit.Units;
@@ -65,7 +66,7 @@ public abstract class BaseUnitRegistryTest {
 
     @Test
     public void testConversionOf_bar() throws Exception {
-        Assertions.assertThat(lookup(DlmsUnit.BAR)).isEmpty();
+        Assertions.assertThat(lookup(DlmsUnit.BAR)).contains(Units.BAR);
     }
 
     @Test
@@ -96,24 +97,24 @@ public abstract class BaseUnitRegistryTest {
 
     @Test
     public void testConversionOf_cubic_metre_per_day_corrected() throws Exception {
-        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_DAY)).isEmpty();
-        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_DAY_CORRECTED)).isEmpty();
+        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_DAY)).contains(Units.CUBICMETRE_PER_DAY);
+        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_DAY_CORRECTED)).contains(Units.CUBICMETRE_PER_DAY);
     }
 
     @Test
     public void testConversionOf_cubic_metre_per_hour_corrected() throws Exception {
-        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_HOUR)).isEmpty();
-        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_HOUR_CORRECTED)).isEmpty();
+        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_HOUR)).contains(Units.CUBICMETRE_PER_HOUR);
+        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_HOUR_CORRECTED)).contains(Units.CUBICMETRE_PER_HOUR);
     }
 
     @Test
     public void testConversionOf_cubic_metre_per_minute() throws Exception {
-        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_MINUTE)).isEmpty();
+        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_MINUTE)).contains(Units.CUBICMETRE_PER_MINUTE);
     }
 
     @Test
     public void testConversionOf_cubic_metre_per_second() throws Exception {
-        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_SECOND)).isEmpty();
+        Assertions.assertThat(lookup(DlmsUnit.CUBIC_METRE_PER_SECOND)).contains(Units.CUBICMETRE_PER_SECOND);
     }
 
     @Test
@@ -128,7 +129,7 @@ public abstract class BaseUnitRegistryTest {
 
     @Test
     public void testConversionOf_degree() throws Exception {
-        Assertions.assertThat(lookup(DlmsUnit.DEGREE)).isEmpty();
+        Assertions.assertThat(lookup(DlmsUnit.DEGREE)).contains(Units.DEGREE_ANGLE);
     }
 
     @Test
@@ -138,7 +139,7 @@ public abstract class BaseUnitRegistryTest {
 
     @Test
     public void testConversionOf_degree_fahrenheit() throws Exception {
-        Assertions.assertThat(lookup(DlmsUnit.DEGREE_FAHRENHEIT)).isEmpty();
+        Assertions.assertThat(lookup(DlmsUnit.DEGREE_FAHRENHEIT)).contains(ImperialUnits.FAHRENHEIT);
     }
 
     @Test
@@ -233,7 +234,7 @@ public abstract class BaseUnitRegistryTest {
 
     @Test
     public void testConversionOf_month() throws Exception {
-        Assertions.assertThat(lookup(DlmsUnit.MONTH)).contains(Units.FARAD);
+        Assertions.assertThat(lookup(DlmsUnit.MONTH)).isEmpty();
     }
 
     @Test
@@ -273,7 +274,7 @@ public abstract class BaseUnitRegistryTest {
 
     @Test
     public void testConversionOf_percentage() throws Exception {
-        Assertions.assertThat(lookup(DlmsUnit.PERCENTAGE)).isEmpty();
+        Assertions.assertThat(lookup(DlmsUnit.PERCENTAGE)).contains(Units.PERCENT);
     }
 
     @Test
@@ -308,7 +309,7 @@ public abstract class BaseUnitRegistryTest {
 
     @Test
     public void testConversionOf_us_gallon() throws Exception {
-        Assertions.assertThat(lookup(DlmsUnit.US_GALLON)).isEmpty();
+        Assertions.assertThat(lookup(DlmsUnit.US_GALLON)).contains(ImperialUnits.GALLON_LIQUID_US);
     }
 
     @Test
@@ -386,6 +387,22 @@ public abstract class BaseUnitRegistryTest {
         Assertions.assertThat(lookup(DlmsUnit.YEAR)).contains(Units.YEAR);
     }
 
+    @Test
+    public void testQuantityOf_volume_flow() throws Exception {
+        Assertions.assertThat(registry.quantity(DlmsUnit.CUBIC_METRE_PER_HOUR)).contains(VolumetricFlowRate.class);
+    }
+
+    @Test
+    public void testQuantityOf_month() throws Exception {
+        Assertions.assertThat(registry.quantity(DlmsUnit.MONTH)).isEmpty();
+    }
+
+    @Test
+    public void testQuantityOf_unknown() throws Exception {
+        Assertions.assertThat(registry.quantity(null)).isEmpty();
+        Assertions.assertThat(lookup(null)).isEmpty();
+    }
+
     protected Optional<Unit<?>> lookup(DlmsUnit wmbusType) {
         return registry.lookup(wmbusType);
     }
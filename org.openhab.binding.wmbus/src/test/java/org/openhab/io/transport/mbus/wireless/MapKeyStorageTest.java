@@ -1,5 +1,8 @@
 package org.openhab.io.transport.mbus.wireless;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.openhab.core.util.HexUtils;
@@ -33,6 +36,20 @@ public class MapKeyStorageTest {
         hit(ADDRESS_BYTE, ADDRESS_OBJECT, KEY);
     }
 
+    @Test
+    public void testListener() {
+        List<SecondaryAddress> changes = new ArrayList<>();
+        KeyStorageListener listener = changes::add;
+        storage.addListener(listener);
+
+        storage.registerKey(ADDRESS_BYTE, KEY);
+        Assertions.assertThat(changes).containsExactly(ADDRESS_OBJECT);
+
+        storage.removeListener(listener);
+        storage.registerKey(ADDRESS_BYTE, KEY);
+        Assertions.assertThat(changes).hasSize(1);
+    }
+
     protected void miss(byte[] byteForm, SecondaryAddress objectForm) {
         Assertions.assertThat(storage.lookupKey(byteForm)).isNotNull().isEmpty();
         Assertions.assertThat(storage.toMap().get(objectForm)).isNull();
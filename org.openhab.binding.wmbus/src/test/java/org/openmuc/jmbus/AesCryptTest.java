@@ -0,0 +1,77 @@
+package org.openmuc.jmbus;
+
+import static org.openmuc.jmbus.TestFrames.KEY;
+import static org.openmuc.jmbus.TestFrames.OTHER_KEY;
+import static org.openmuc.jmbus.TestFrames.MODE_5_HEADER;
+import static org.openmuc.jmbus.TestFrames.MODE_5_IV;
+import static org.openmuc.jmbus.TestFrames.MODE_5_PLAIN;
+import static org.openmuc.jmbus.TestFrames.modeFiveFrame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Test of decryption with cached key specs and per thread ciphers.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class AesCryptTest {
+
+    @Test
+    public void testModeFiveFrame() throws Exception {
+        Map<SecondaryAddress, byte[]> keyMap = new HashMap<>();
+        byte[] frame = modeFiveFrame(KEY);
+        SecondaryAddress address = SecondaryAddress.newFromWMBusHeader(frame, 2);
+        keyMap.put(address, KEY);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            VariableDataStructure structure = new VariableDataStructure(frame, 10, frame.length - 10, address, keyMap);
+            structure.decode();
+
+            Assertions.assertThat(structure.getDataRecords()).hasSize(1);
+            Number value = (Number) structure.getDataRecords().get(0).getDataValue();
+            Assertions.assertThat(value.longValue()).isEqualTo(2850427L);
+        }
+    }
+
+    @Test
+    public void testChangedKey() throws Exception {
+        Map<SecondaryAddress, byte[]> keyMap = new HashMap<>();
+        byte[] frame = modeFiveFrame(KEY);
+        SecondaryAddress address = SecondaryAddress.newFromWMBusHeader(frame, 2);
+        keyMap.put(address, KEY);
+        new VariableDataStructure(frame, 10, frame.length - 10, address, keyMap).decode();
+
+        // meter got new key, spec cached for old one must not be used
+        keyMap.put(address, OTHER_KEY);
+        Assertions.assertThatThrownBy(
+                () -> new VariableDataStructure(frame, 10, frame.length - 10, address, keyMap).decode())
+                .isInstanceOf(DecodingException.class);
+
+        byte[] otherFrame = modeFiveFrame(OTHER_KEY);
+        VariableDataStructure structure = new VariableDataStructure(otherFrame, 10, otherFrame.length - 10, address,
+                keyMap);
+        structure.decode();
+        Assertions.assertThat(structure.getDataRecords()).hasSize(1);
+    }
+
+    @Test
+    public void testCachedCipherMatchesFreshOne() throws Exception {
+        byte[] iv = HexUtils.hexToBytes(MODE_5_IV);
+        byte[] data = HexUtils.hexToBytes(MODE_5_PLAIN + MODE_5_PLAIN);
+        SecondaryAddress address = SecondaryAddress.newFromWMBusHeader(HexUtils.hexToBytes(MODE_5_HEADER), 1);
+
+        for (String cipher : new String[] { AesCrypt.AES_CBC, AesCrypt.AES_CTR }) {
+            AesCrypt fresh = AesCrypt.AES_CBC.equals(cipher) ? AesCrypt.newAesCrypt(KEY, iv)
+                    : AesCrypt.newAesCtrCrypt(KEY, iv);
+
+            byte[] expected = fresh.decrypt(data, 16);
+            Assertions.assertThat(AesCrypt.decrypt(cipher, address, KEY, iv, data, 16)).isEqualTo(expected);
+            Assertions.assertThat(AesCrypt.decrypt(cipher, address, KEY, iv, data, 16)).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.openmuc.jmbus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Test of data records decoded on demand from indexed frame.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class DataRecordListTest {
+
+    // volume BCD, date type F, error flags (0xFD), volume with DIFE, string with LVAR, power as float, flow
+    // temperature, humidity (0xFB), volume with VIFE, user defined VIF
+    private static final String RECORDS = "0C1327048502" + "046D0B2C5A23" + "02FD170100" + "8C011327048502"
+            + "0DFD11054142434445" + "052B0000803F" + "025A2101" + "02FB1A2001" + "0C933C27048502" + "017C03434241" + "05";
+
+    @Test
+    public void testSameAsEagerDecoding() throws Exception {
+        byte[] buffer = HexUtils.hexToBytes(RECORDS);
+        List<DataRecord> eager = new ArrayList<>();
+        DataRecordList lazy = new DataRecordList(buffer);
+
+        int i = 0;
+        while (i < buffer.length) {
+            DataRecord record = new DataRecord();
+            int next = record.decode(buffer, i);
+            eager.add(record);
+
+            Assertions.assertThat(lazy.index(i)).isEqualTo(next);
+            i = next;
+        }
+
+        Assertions.assertThat(lazy).hasSize(10);
+        for (int index = 0; index < eager.size(); index++) {
+            Assertions.assertThat(lazy.get(index).toString()).isEqualTo(eager.get(index).toString());
+        }
+    }
+
+    @Test
+    public void testFind() throws Exception {
+        VariableDataStructure structure = structure(RECORDS);
+        structure.decode();
+
+        DataRecord record = structure.findDataRecord(new byte[] { (byte) 0x8C, 0x01 }, new byte[] { 0x13 });
+        Assertions.assertThat(record).isNotNull();
+        Assertions.assertThat(record.getTariff()).isEqualTo(0);
+        Assertions.assertThat(record.getStorageNumber()).isEqualTo(2L);
+        Assertions.assertThat(((Number) record.getDataValue()).longValue()).isEqualTo(2850427L);
+
+        // record is decoded once and then shared
+        Assertions.assertThat(structure.getDataRecords().get(3)).isSameAs(record);
+
+        Assertions.assertThat(structure.findDataRecord(new byte[] { 0x0C }, new byte[] { 0x14 })).isNull();
+        Assertions.assertThat(structure.findDataRecord(new byte[] { 0x0C }, new byte[] { 0x13, 0x00 })).isNull();
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        VariableDataStructure structure = structure(RECORDS + "0C1399999999");
+        structure.decode();
+
+        List<DataRecord> records = structure.getDataRecords();
+        for (int index = 0; index < records.size(); index++) {
+            DataRecord record = records.get(index);
+            DataRecord found = structure.findDataRecord(record.getDib(), record.getVib(),
+                    DataRecord.recordKey(record.getDib().clone(), record.getVib().clone()));
+
+            // volume is sent twice, first record wins
+            Assertions.assertThat(found).isSameAs(index == records.size() - 1 ? records.get(0) : record);
+        }
+    }
+
+    @Test
+    public void testUnknownDataField() {
+        // DIF 0x8F is neither manufacturer data nor supported data field
+        VariableDataStructure structure = structure("0C13270485028F00");
+
+        Assertions.assertThatThrownBy(structure::decode).isInstanceOf(DecodingException.class);
+        Assertions.assertThat(structure.getDataRecords()).hasSize(1);
+    }
+
+    @Test
+    public void testTruncatedRecord() {
+        VariableDataStructure structure = structure("0C1327");
+
+        Assertions.assertThatThrownBy(structure::decode).isInstanceOf(DecodingException.class);
+    }
+
+    private static VariableDataStructure structure(String records) {
+        return TestFrames.structure(TestFrames.variableData(records));
+    }
+}
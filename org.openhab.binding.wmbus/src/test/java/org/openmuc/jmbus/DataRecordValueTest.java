@@ -0,0 +1,139 @@
+package org.openmuc.jmbus;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Randomized test of BCD and date values decoded without intermediate objects, compared with results of {@link Bcd}
+ * and lenient {@link Calendar}.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class DataRecordValueTest {
+
+    private static final int ROUNDS = 20000;
+
+    private final Random random = new Random(13757);
+
+    @Test
+    public void testBcd() throws Exception {
+        int[] dataFields = { 0x09, 0x0a, 0x0b, 0x0c, 0x0e };
+        for (int round = 0; round < ROUNDS; round++) {
+            int dataField = dataFields[random.nextInt(dataFields.length)];
+            byte[] value = new byte[dataField == 0x0e ? 6 : dataField - 8];
+            random.nextBytes(value);
+
+            // volume in litres
+            DataRecord record = decode(new byte[] { (byte) dataField, 0x13 }, value);
+            Bcd expected = new Bcd(value.clone());
+
+            Assertions.assertThat(record.getDataValueType()).isEqualTo(DataRecord.DataValueType.BCD);
+            Assertions.assertThat(((Bcd) record.getDataValue()).longValue()).isEqualTo(expected.longValue());
+            Assertions.assertThat(((Bcd) record.getDataValue()).getBytes()).isEqualTo(value);
+            Assertions.assertThat(record.getDataValue().toString()).isEqualTo(expected.toString());
+            Assertions.assertThat(record.getScaledDataValue()).isEqualTo(expected.doubleValue() * Math.pow(10, -3));
+        }
+    }
+
+    @Test
+    public void testNegativeBcd() throws Exception {
+        DataRecord record = decode(new byte[] { 0x0a, 0x13 }, HexUtils.hexToBytes("34F2"));
+
+        Assertions.assertThat(((Bcd) record.getDataValue()).longValue()).isEqualTo(-234L);
+        Assertions.assertThat(record.getDataValue().toString()).isEqualTo("-234");
+    }
+
+    @Test
+    public void testDateTypeF() throws Exception {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(DataRecord.getZone()));
+        for (int round = 0; round < ROUNDS; round++) {
+            byte[] value = new byte[4];
+            random.nextBytes(value);
+            // summer time flag is covered by testSummerTime
+            value[1] &= 0x7f;
+
+            DataRecord record = decode(new byte[] { 0x04, 0x6d }, value);
+
+            int year = 1900 + 100 * Math.max((value[1] & 0x60) >> 5, 1) + ((value[2] & 0xe0) >> 5)
+                    + ((value[3] & 0xf0) >> 1);
+            calendar.clear();
+            calendar.set(year, (value[3] & 0x0f) - 1, value[2] & 0x1f, value[1] & 0x1f, value[0] & 0x3f, 0);
+
+            assertDate(record, calendar, value);
+        }
+    }
+
+    @Test
+    public void testDateTypeG() throws Exception {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(DataRecord.getZone()));
+        for (int round = 0; round < ROUNDS; round++) {
+            byte[] value = new byte[2];
+            random.nextBytes(value);
+
+            DataRecord record = decode(new byte[] { 0x02, 0x6c }, value);
+
+            int year = 2000 + ((value[0] & 0xe0) >> 5) + ((value[1] & 0xf0) >> 1);
+            calendar.clear();
+            calendar.set(year, (value[1] & 0x0f) - 1, value[0] & 0x1f, 0, 0, 0);
+
+            assertDate(record, calendar, value);
+        }
+    }
+
+    @Test
+    public void testSummerTime() {
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+        ZoneRules rules = zone.getRules();
+
+        // 2:30 is passed twice on 2018-10-28, first in summer time
+        long summer = DataRecord.epochSecond(rules, 2018, 10, 28, 2, 30, true);
+        long winter = DataRecord.epochSecond(rules, 2018, 10, 28, 2, 30, false);
+        Assertions.assertThat(summer).isEqualTo(ZonedDateTime.parse("2018-10-28T02:30+02:00").toEpochSecond());
+        Assertions.assertThat(winter).isEqualTo(ZonedDateTime.parse("2018-10-28T02:30+01:00").toEpochSecond());
+
+        // 2:30 is skipped on 2018-03-25, time is moved forward
+        Assertions.assertThat(DataRecord.epochSecond(rules, 2018, 3, 25, 2, 30, false))
+                .isEqualTo(ZonedDateTime.parse("2018-03-25T03:30+02:00").toEpochSecond());
+
+        // flag is ignored when time is not ambiguous
+        Assertions.assertThat(DataRecord.epochSecond(rules, 2018, 7, 1, 12, 0, false))
+                .isEqualTo(DataRecord.epochSecond(rules, 2018, 7, 1, 12, 0, true));
+    }
+
+    @Test
+    public void testInvalidDate() {
+        ZoneRules rules = ZoneId.of("UTC").getRules();
+
+        // day and month zero, sent by meters which have no date, roll back to previous month and year
+        Assertions.assertThat(DataRecord.epochSecond(rules, 2000, 0, 0, 0, 0, false))
+                .isEqualTo(ZonedDateTime.parse("1999-11-30T00:00Z").toEpochSecond());
+        Assertions.assertThat(DataRecord.epochSecond(rules, 2019, 15, 31, 31, 63, false))
+                .isEqualTo(ZonedDateTime.parse("2020-04-01T08:03Z").toEpochSecond());
+    }
+
+    private static void assertDate(DataRecord record, Calendar calendar, byte[] value) {
+        String message = HexUtils.bytesToHex(value);
+        Assertions.assertThat(record.getDataValueType()).as(message).isEqualTo(DataRecord.DataValueType.DATE);
+        Assertions.assertThat(record.getEpochSecond()).as(message).isEqualTo(calendar.getTimeInMillis() / 1000);
+        Assertions.assertThat(record.getDataValue()).as(message).isEqualTo(new Date(calendar.getTimeInMillis()));
+    }
+
+    private static DataRecord decode(byte[] header, byte[] value) throws DecodingException {
+        byte[] buffer = Arrays.copyOf(header, header.length + value.length);
+        System.arraycopy(value, 0, buffer, header.length, value.length);
+
+        DataRecord record = new DataRecord();
+        Assertions.assertThat(record.decode(buffer, 0)).isEqualTo(buffer.length);
+        return record;
+    }
+}
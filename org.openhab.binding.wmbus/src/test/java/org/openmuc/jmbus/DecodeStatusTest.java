@@ -0,0 +1,74 @@
+package org.openmuc.jmbus;
+
+import static org.openmuc.jmbus.TestFrames.KEY;
+import static org.openmuc.jmbus.TestFrames.OTHER_KEY;
+import static org.openmuc.jmbus.TestFrames.modeFiveFrame;
+import static org.openmuc.jmbus.TestFrames.structure;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of decoding outcomes reported without exceptions.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class DecodeStatusTest {
+
+    @Test
+    public void testDecoded() throws Exception {
+        VariableDataStructure structure = structure("780C1427048502");
+
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.OK);
+        Assertions.assertThat(structure.getDecodeError()).isNull();
+        Assertions.assertThat(structure.getDataRecords()).hasSize(1);
+    }
+
+    @Test
+    public void testManufacturerCi() {
+        VariableDataStructure structure = structure("A0009F255502D0364100");
+
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.MANUFACTURER_CI);
+        Assertions.assertThat(structure.getDecodeStatus()).isEqualTo(DecodeStatus.MANUFACTURER_CI);
+        Assertions.assertThat(structure.getDecodeError().getMessage()).isEqualTo("Manufacturer specific CI: 0xA0.");
+        Assertions.assertThatThrownBy(structure::decode).isSameAs(structure.getDecodeError());
+    }
+
+    @Test
+    public void testUnsupportedCi() {
+        Assertions.assertThat(structure("33000000").tryDecode()).isEqualTo(DecodeStatus.UNSUPPORTED_CI);
+        Assertions.assertThat(structure("5B000000").tryDecode()).isEqualTo(DecodeStatus.UNSUPPORTED_CI);
+    }
+
+    @Test
+    public void testMalformed() {
+        VariableDataStructure structure = structure("780C13272F2F");
+
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.MALFORMED);
+        Assertions.assertThat(structure.getDecodeError()).isInstanceOf(DecodingException.class);
+    }
+
+    @Test
+    public void testEncrypted() throws Exception {
+        byte[] frame = modeFiveFrame(KEY);
+        SecondaryAddress address = SecondaryAddress.newFromWMBusHeader(frame, 2);
+        Map<SecondaryAddress, byte[]> keyMap = new HashMap<>();
+
+        VariableDataStructure structure = new VariableDataStructure(frame, 10, frame.length - 10, address, keyMap);
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.NEEDS_KEY);
+
+        keyMap.put(address, OTHER_KEY);
+        structure = new VariableDataStructure(frame, 10, frame.length - 10, address, keyMap);
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.WRONG_KEY);
+        Assertions.assertThat(structure.getDecodeError().getMessage()).contains("Decryption unsuccessful");
+
+        // decoding is repeated when key becomes known
+        keyMap.put(address, KEY);
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.OK);
+        Assertions.assertThat(structure.getDecodeError()).isNull();
+        Assertions.assertThat(structure.getDataRecords()).hasSize(1);
+    }
+}
@@ -0,0 +1,161 @@
+package org.openmuc.jmbus;
+
+import static org.openmuc.jmbus.TestFrames.KEY;
+import static org.openmuc.jmbus.TestFrames.OTHER_KEY;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Test of frames with extended link layer, plain and encrypted with session number.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class ExtendedLinkLayerTest {
+
+    // KAM heat meter link layer header
+    private static final String HEADER = "442D2C785634121B04";
+    // communication control with hop count set, access number
+    private static final String CC_ACC = "3015";
+    // session number, AES-CTR announced in three most significant bits
+    private static final String PLAIN_SN = "78563412";
+    private static final String ENCRYPTED_SN = "7856343F";
+    // manufacturer, identification, version, device type, CC without hop count, session number, frame and block
+    private static final String IV = "2D2C785634121B0420" + ENCRYPTED_SN + "000000";
+    // volume BCD, date type F, fill bytes
+    private static final String RECORDS = "0C1327048502" + "046D0B2C5A23" + "2F2F";
+
+    @Test
+    public void testPlainFrame() throws Exception {
+        byte[] frame = frame("8D" + CC_ACC + PLAIN_SN + withCrc("78" + RECORDS));
+        VariableDataStructure structure = structure(frame, new HashMap<>());
+
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.OK);
+        assertRecords(structure);
+        Assertions.assertThat(structure.getEncryptionMode()).isEqualTo(EncryptionMode.NONE);
+        Assertions.assertThat(structure.getAccessNumber()).isEqualTo(0x15);
+        Assertions.assertThat(structure.getCommunicationControl()).isEqualTo(0x30);
+        Assertions.assertThat(structure.getSessionNumber()).isEqualTo(0x12345678);
+        Assertions.assertThat(structure.getHeader()).isEqualTo(HexUtils.hexToBytes("8D" + CC_ACC + PLAIN_SN));
+        // records are read from received frame
+        Assertions.assertThat(structure.getDecryptedPayload()).isEmpty();
+    }
+
+    @Test
+    public void testFrameWithoutSessionNumber() throws Exception {
+        byte[] frame = frame("8C" + CC_ACC + "78" + RECORDS);
+        VariableDataStructure structure = structure(frame, new HashMap<>());
+
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.OK);
+        assertRecords(structure);
+        Assertions.assertThat(structure.getHeader()).isEqualTo(HexUtils.hexToBytes("8C" + CC_ACC));
+    }
+
+    @Test
+    public void testEncryptedFrame() throws Exception {
+        byte[] frame = frame("8D" + CC_ACC + ENCRYPTED_SN + encrypt(withCrc("78" + RECORDS), KEY));
+        Map<SecondaryAddress, byte[]> keyMap = new HashMap<>();
+        keyMap.put(address(frame), KEY);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            VariableDataStructure structure = structure(frame, keyMap);
+            Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.OK);
+            assertRecords(structure);
+            Assertions.assertThat(structure.getEncryptionMode()).isEqualTo(EncryptionMode.AES_128);
+            Assertions.assertThat(structure.getDecryptedPayload())
+                    .isEqualTo(HexUtils.hexToBytes(withCrc("78" + RECORDS)));
+        }
+    }
+
+    @Test
+    public void testKeyRegisteredLater() throws Exception {
+        byte[] frame = frame("8D" + CC_ACC + ENCRYPTED_SN + encrypt(withCrc("78" + RECORDS), KEY));
+        byte[] received = frame.clone();
+        Map<SecondaryAddress, byte[]> keyMap = new HashMap<>();
+        VariableDataStructure structure = structure(frame, keyMap);
+
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.NEEDS_KEY);
+
+        keyMap.put(address(frame), OTHER_KEY);
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.WRONG_KEY);
+        Assertions.assertThat(structure.getDataRecords()).isEmpty();
+
+        keyMap.put(address(frame), KEY);
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.OK);
+        assertRecords(structure);
+
+        // received frame is left untouched
+        Assertions.assertThat(frame).isEqualTo(received);
+    }
+
+    @Test
+    public void testCorruptedFrame() throws Exception {
+        String payload = withCrc("78" + RECORDS);
+        // first digit of volume changed
+        byte[] frame = frame("8D" + CC_ACC + PLAIN_SN + payload.replace("0C1327", "0C1328"));
+        VariableDataStructure structure = structure(frame, new HashMap<>());
+
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.MALFORMED);
+    }
+
+    @Test
+    public void testEncryptionTakenFromSessionNumber() throws Exception {
+        // payload with valid CRC is not read in plain when session number announces encryption
+        byte[] frame = frame("8D" + CC_ACC + ENCRYPTED_SN + withCrc("78" + RECORDS));
+        VariableDataStructure structure = structure(frame, new HashMap<>());
+
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.NEEDS_KEY);
+        Assertions.assertThat(structure.getEncryptionMode()).isEqualTo(EncryptionMode.AES_128);
+    }
+
+    @Test
+    public void testUnsupportedPayload() throws Exception {
+        byte[] frame = frame("8D" + CC_ACC + PLAIN_SN + withCrc("A0" + RECORDS));
+        VariableDataStructure structure = structure(frame, new HashMap<>());
+
+        Assertions.assertThat(structure.tryDecode()).isEqualTo(DecodeStatus.UNSUPPORTED_CI);
+        Assertions.assertThat(structure.getDecodeError().getMessage()).contains("0xA0");
+    }
+
+    private static void assertRecords(VariableDataStructure structure) {
+        Assertions.assertThat(structure.getDataRecords()).hasSize(2);
+        Number value = (Number) structure.getDataRecords().get(0).getDataValue();
+        Assertions.assertThat(value.longValue()).isEqualTo(2850427L);
+        Assertions.assertThat(structure.getDataRecords().get(1).getDataValueType())
+                .isEqualTo(DataRecord.DataValueType.DATE);
+    }
+
+    private static String withCrc(String payload) {
+        byte[] bytes = HexUtils.hexToBytes(payload);
+        int crc = CRC16.calculateCrc16(bytes, 0, bytes.length);
+        return String.format("%02X%02X", crc & 0xff, crc >> 8) + payload;
+    }
+
+    private static String encrypt(String payload, byte[] key) throws Exception {
+        byte[] bytes = HexUtils.hexToBytes(payload);
+        return HexUtils.bytesToHex(AesCrypt.newAesCtrCrypt(key, HexUtils.hexToBytes(IV)).encrypt(bytes, bytes.length));
+    }
+
+    private static VariableDataStructure structure(byte[] frame, Map<SecondaryAddress, byte[]> keyMap) {
+        return new VariableDataStructure(frame, 10, frame.length - 10, address(frame), keyMap);
+    }
+
+    private static SecondaryAddress address(byte[] frame) {
+        return SecondaryAddress.newFromWMBusHeader(frame, 2);
+    }
+
+    private static byte[] frame(String data) {
+        byte[] header = HexUtils.hexToBytes(HEADER);
+        byte[] body = HexUtils.hexToBytes(data);
+
+        byte[] frame = new byte[1 + header.length + body.length];
+        frame[0] = (byte) (frame.length - 1);
+        System.arraycopy(header, 0, frame, 1, header.length);
+        System.arraycopy(body, 0, frame, 1 + header.length, body.length);
+        return frame;
+    }
+}
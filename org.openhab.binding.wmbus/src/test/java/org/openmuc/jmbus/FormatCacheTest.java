@@ -0,0 +1,138 @@
+package org.openmuc.jmbus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Test of formats learned from full frames and used to decode compact frames.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class FormatCacheTest {
+
+    // meters of each test have own formats
+    private static final int SERIES = 0x88;
+
+    // volume BCD, date type F, string with LVAR, power as float
+    private static final String FORMAT = "0C13" + "046D" + "0DFD11" + "052B";
+    private static final String RECORDS = "0C1327048502" + "046D0B2C5A23" + "0DFD11054142434445" + "052B0000803F";
+    private static final String VALUES = "99999999" + "0C2C5A23" + "055A59585756" + "00000040";
+    private static final String NEXT_RECORDS = "0C1399999999" + "046D0C2C5A23" + "0DFD11055A59585756" + "052B00000040";
+
+    @Test
+    public void testCompactFrame() throws Exception {
+        SecondaryAddress address = address(1);
+        VariableDataStructure full = TestFrames.structure(TestFrames.variableData(RECORDS), address);
+        full.decode();
+
+        VariableDataStructure compact = TestFrames.structure("79" + signature(FORMAT) + "0000" + VALUES, address);
+        compact.decode();
+
+        VariableDataStructure expected = TestFrames.structure(TestFrames.variableData(NEXT_RECORDS), null);
+        expected.decode();
+        assertSameRecords(compact.getDataRecords(), expected.getDataRecords());
+    }
+
+    @Test
+    public void testUnknownFormat() {
+        SecondaryAddress address = address(2);
+        VariableDataStructure compact = TestFrames.structure("79" + signature(FORMAT) + "0000" + VALUES, address);
+
+        Assertions.assertThatThrownBy(compact::decode).isInstanceOf(DecodingException.class);
+    }
+
+    @Test
+    public void testTruncatedCompactFrame() throws Exception {
+        SecondaryAddress address = address(3);
+        TestFrames.structure(TestFrames.variableData(RECORDS), address).decode();
+
+        VariableDataStructure compact = TestFrames.structure("79" + signature(FORMAT) + "0000" + VALUES.substring(2),
+                address);
+        Assertions.assertThatThrownBy(compact::decode).isInstanceOf(DecodingException.class);
+    }
+
+    @Test
+    public void testEviction() {
+        FormatCache cache = new FormatCache(2);
+        byte[] first = HexUtils.hexToBytes("0C13");
+        byte[] second = HexUtils.hexToBytes("0C14");
+        byte[] third = HexUtils.hexToBytes("0C15");
+
+        cache.put(address(1), first);
+        cache.put(address(2), second);
+        // first is used, so second is evicted
+        Assertions.assertThat(cache.get(address(1), FormatCache.signature(first, 0, 2))).isSameAs(first);
+        cache.put(address(3), third);
+
+        Assertions.assertThat(cache.size()).isEqualTo(2);
+        Assertions.assertThat(cache.get(address(1), FormatCache.signature(first, 0, 2))).isSameAs(first);
+        Assertions.assertThat(cache.get(address(2), FormatCache.signature(second, 0, 2))).isNull();
+        Assertions.assertThat(cache.get(address(3), FormatCache.signature(third, 0, 2))).isSameAs(third);
+        // format of other meter is not used
+        Assertions.assertThat(cache.get(address(3), FormatCache.signature(first, 0, 2))).isNull();
+    }
+
+    @Test
+    public void testModifications() {
+        FormatCache cache = new FormatCache(10);
+        byte[] format = HexUtils.hexToBytes(FORMAT);
+
+        cache.put(address(1), format);
+        long modifications = cache.modifications();
+        // same format again is not a change
+        cache.put(address(1), HexUtils.hexToBytes(FORMAT));
+        Assertions.assertThat(cache.modifications()).isEqualTo(modifications);
+
+        cache.put(address(2), format);
+        Assertions.assertThat(cache.modifications()).isGreaterThan(modifications);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        FormatCache cache = new FormatCache(10);
+        byte[] format = HexUtils.hexToBytes(FORMAT);
+        cache.put(address(1), format);
+
+        Path directory = Files.createTempDirectory("formats");
+        Path file = directory.resolve("wmbus").resolve("formats.bin");
+        try {
+            cache.save(file);
+
+            FormatCache loaded = new FormatCache(10);
+            loaded.load(file);
+            Assertions.assertThat(loaded.size()).isEqualTo(1);
+            Assertions.assertThat(loaded.get(address(1), FormatCache.signature(format, 0, format.length)))
+                    .isEqualTo(format);
+
+            // missing file is skipped
+            loaded.load(directory.resolve("missing.bin"));
+            Assertions.assertThat(loaded.size()).isEqualTo(1);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.getParent());
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void assertSameRecords(List<DataRecord> actual, List<DataRecord> expected) {
+        Assertions.assertThat(actual).hasSize(expected.size());
+        for (int index = 0; index < expected.size(); index++) {
+            Assertions.assertThat(actual.get(index).toString()).isEqualTo(expected.get(index).toString());
+        }
+    }
+
+    private static String signature(String format) {
+        byte[] bytes = HexUtils.hexToBytes(format);
+        int signature = FormatCache.signature(bytes, 0, bytes.length);
+        return String.format("%02X%02X", signature & 0xff, signature >> 8);
+    }
+
+    private static SecondaryAddress address(int device) {
+        return TestFrames.address(SERIES, device);
+    }
+}
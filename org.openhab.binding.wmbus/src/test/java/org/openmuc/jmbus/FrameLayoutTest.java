@@ -0,0 +1,130 @@
+package org.openmuc.jmbus;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Test of data records decoded through layout learned from previous frame of the meter.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class FrameLayoutTest {
+
+    // meters of each test have own layout
+    private static final int SERIES = 0x99;
+
+    // volume BCD, date type F, string with LVAR, fill bytes, power as float, user defined VIF
+    private static final String RECORDS = "0C1327048502" + "046D0B2C5A23" + "0DFD11054142434445" + "2F2F"
+            + "052B0000803F" + "017C03434241" + "05";
+    // same layout, other values
+    private static final String NEXT_RECORDS = "0C1399999999" + "046D0C2C5A23" + "0DFD11055A59585756" + "2F2F"
+            + "052B00000040" + "017C03434241" + "07";
+
+    @Test
+    public void testSameLayout() throws Exception {
+        SecondaryAddress address = address(1);
+        decode(RECORDS, address);
+
+        byte[] frame = frame(NEXT_RECORDS);
+        Assertions.assertThat(FrameLayout.lookup(address, frame, 1, frame.length - 1)).isNotNull();
+        VariableDataStructure next = decode(NEXT_RECORDS, address);
+
+        assertSameAsFullDecode(next, NEXT_RECORDS);
+
+        // information blocks are decoded once for all frames of same layout
+        VariableDataStructure third = decode(RECORDS, address);
+        assertSameAsFullDecode(third, RECORDS);
+        for (int index = 0; index < third.getDataRecords().size(); index++) {
+            Assertions.assertThat(third.getDataRecords().get(index).getVib())
+                    .isSameAs(next.getDataRecords().get(index).getVib());
+        }
+    }
+
+    @Test
+    public void testChangedLayout() throws Exception {
+        SecondaryAddress address = address(2);
+        decode(RECORDS, address);
+
+        // volume in other unit
+        String changed = "0C14" + RECORDS.substring(4);
+        VariableDataStructure structure = decode(changed, address);
+        assertSameAsFullDecode(structure, changed);
+        Assertions.assertThat(structure.getDataRecords().get(0).getUnit()).isEqualTo(DlmsUnit.CUBIC_METRE);
+        Assertions.assertThat(structure.getDataRecords().get(0).getMultiplierExponent()).isEqualTo(-2);
+
+        // layout of changed frame replaced previous one
+        byte[] frame = frame(RECORDS);
+        Assertions.assertThat(FrameLayout.lookup(address, frame, 1, frame.length - 1)).isNull();
+    }
+
+    @Test
+    public void testChangedVariableLength() throws Exception {
+        SecondaryAddress address = address(3);
+        decode(RECORDS, address);
+
+        // shorter string moves following records
+        String changed = RECORDS.replace("0DFD11054142434445", "0DFD110441424344") + "2F";
+        VariableDataStructure structure = decode(changed, address);
+        assertSameAsFullDecode(structure, changed);
+    }
+
+    @Test
+    public void testFillByteReplaced() throws Exception {
+        SecondaryAddress address = address(4);
+        decode(RECORDS, address);
+
+        // fill bytes are replaced by record with no data
+        String changed = RECORDS.replace("2F2F", "0013");
+        Assertions.assertThat(changed.length()).isEqualTo(RECORDS.length());
+        VariableDataStructure structure = decode(changed, address);
+        assertSameAsFullDecode(structure, changed);
+        Assertions.assertThat(structure.getDataRecords()).hasSize(6);
+    }
+
+    @Test
+    public void testManufacturerData() throws Exception {
+        SecondaryAddress address = address(5);
+        decode(RECORDS + "0F0102", address);
+
+        VariableDataStructure structure = decode(NEXT_RECORDS + "0F0304", address);
+        assertSameAsFullDecode(structure, NEXT_RECORDS + "0F0304");
+
+        // more records follow
+        structure = decode(NEXT_RECORDS + "1F0304", address);
+        assertSameAsFullDecode(structure, NEXT_RECORDS + "1F0304");
+    }
+
+    private static void assertSameAsFullDecode(VariableDataStructure structure, String records) throws Exception {
+        VariableDataStructure full = structure(records, null);
+        full.decode();
+
+        List<DataRecord> expected = full.getDataRecords();
+        List<DataRecord> actual = structure.getDataRecords();
+        Assertions.assertThat(actual).hasSize(expected.size());
+        for (int index = 0; index < expected.size(); index++) {
+            Assertions.assertThat(actual.get(index).toString()).isEqualTo(expected.get(index).toString());
+        }
+        Assertions.assertThat(structure.getManufacturerData()).isEqualTo(full.getManufacturerData());
+    }
+
+    private static VariableDataStructure decode(String records, SecondaryAddress address) throws Exception {
+        VariableDataStructure structure = structure(records, address);
+        structure.decode();
+        return structure;
+    }
+
+    private static VariableDataStructure structure(String records, SecondaryAddress address) {
+        return TestFrames.structure(TestFrames.variableData(records), address);
+    }
+
+    private static byte[] frame(String records) {
+        return HexUtils.hexToBytes(TestFrames.variableData(records));
+    }
+
+    private static SecondaryAddress address(int device) {
+        return TestFrames.address(SERIES, device);
+    }
+}
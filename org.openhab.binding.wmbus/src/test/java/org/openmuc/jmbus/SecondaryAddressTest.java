@@ -0,0 +1,94 @@
+package org.openmuc.jmbus;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Test of secondary address backed by long value.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class SecondaryAddressTest {
+
+    // KAM cold water meter, device ID 12345678, version 0x1B, water meter
+    private static final String WMBUS_HEADER = "442D2C785634121B16";
+    // same meter in long header of M-Bus frame
+    private static final String LONG_HEADER = "785634122D2C1B16";
+
+    @Test
+    public void testWMBusHeader() {
+        SecondaryAddress address = SecondaryAddress.newFromWMBusHeader(HexUtils.hexToBytes(WMBUS_HEADER), 1);
+
+        Assertions.assertThat(address.getManufacturerId()).isEqualTo("KAM");
+        Assertions.assertThat(address.getDeviceId().toString()).isEqualTo("12345678");
+        Assertions.assertThat(address.getVersion()).isEqualTo(0x1B);
+        Assertions.assertThat(address.getDeviceType()).isEqualTo(DeviceType.COLD_WATER_METER);
+        Assertions.assertThat(address.isLongHeader()).isFalse();
+        Assertions.assertThat(HexUtils.bytesToHex(address.asByteArray())).isEqualTo(WMBUS_HEADER.substring(2));
+        Assertions.assertThat(address.asLong()).isEqualTo(0x2D2C785634121B16L);
+    }
+
+    @Test
+    public void testByteArrayIsCopy() {
+        SecondaryAddress address = SecondaryAddress.newFromWMBusHeader(HexUtils.hexToBytes(WMBUS_HEADER), 1);
+
+        // address is shared by all frames of the meter
+        address.asByteArray()[0] = 0;
+        Assertions.assertThat(HexUtils.bytesToHex(address.asByteArray())).isEqualTo(WMBUS_HEADER.substring(2));
+        Assertions.assertThat(SecondaryAddress.newFromWMBusHeader(HexUtils.hexToBytes(WMBUS_HEADER), 1).asByteArray())
+                .isNotSameAs(address.asByteArray());
+    }
+
+    @Test
+    public void testLongHeader() {
+        SecondaryAddress address = SecondaryAddress.newFromLongHeader(HexUtils.hexToBytes(LONG_HEADER), 0);
+
+        Assertions.assertThat(address.getManufacturerId()).isEqualTo("KAM");
+        Assertions.assertThat(address.getDeviceId().toString()).isEqualTo("12345678");
+        Assertions.assertThat(address.getVersion()).isEqualTo(0x1B);
+        Assertions.assertThat(address.isLongHeader()).isTrue();
+    }
+
+    @Test
+    public void testManufacturerId() {
+        SecondaryAddress address = SecondaryAddress.newFromManufactureId(HexUtils.hexToBytes("78563412"), "KAM",
+                (byte) 0x1B, (byte) 0x16, true);
+
+        Assertions.assertThat(address.getManufacturerId()).isEqualTo("KAM");
+        Assertions.assertThat(address.getDeviceId().toString()).isEqualTo("12345678");
+    }
+
+    @Test
+    public void testInterned() {
+        byte[] frame = HexUtils.hexToBytes(WMBUS_HEADER);
+        SecondaryAddress address = SecondaryAddress.newFromWMBusHeader(frame, 1);
+        SecondaryAddress other = SecondaryAddress.newFromWMBusHeader(frame.clone(), 1);
+
+        Assertions.assertThat(other).isSameAs(address);
+
+        frame[4]++;
+        SecondaryAddress changed = SecondaryAddress.newFromWMBusHeader(frame, 1);
+        Assertions.assertThat(changed).isNotEqualTo(address);
+        Assertions.assertThat(changed.getDeviceId().toString()).isEqualTo("12345778");
+    }
+
+    @Test
+    public void testEquality() {
+        SecondaryAddress address = SecondaryAddress.newFromWMBusHeader(HexUtils.hexToBytes(WMBUS_HEADER), 1);
+        // same bytes in long header are another instance, but equal address
+        SecondaryAddress longHeader = SecondaryAddress.newFromLongHeader(HexUtils.hexToBytes(WMBUS_HEADER), 1);
+
+        Assertions.assertThat(longHeader).isNotSameAs(address);
+        Assertions.assertThat(longHeader).isEqualTo(address);
+        Assertions.assertThat(longHeader.hashCode()).isEqualTo(address.hashCode());
+        Assertions.assertThat(longHeader.compareTo(address)).isZero();
+    }
+
+    @Test
+    public void testShortBuffer() {
+        SecondaryAddress address = SecondaryAddress.newFromWMBusHeader(HexUtils.hexToBytes("2D2C7856"), 0);
+
+        Assertions.assertThat(HexUtils.bytesToHex(address.asByteArray())).isEqualTo("2D2C785600000000");
+    }
+}
@@ -0,0 +1,72 @@
+package org.openmuc.jmbus;
+
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Frames and keys shared by tests of decoding.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+final class TestFrames {
+
+    static final byte[] KEY = HexUtils.hexToBytes("000102030405060708090A0B0C0D0E0F");
+    static final byte[] OTHER_KEY = HexUtils.hexToBytes("0F0E0D0C0B0A09080706050403020100");
+
+    // KAM cold water meter header, short transport header with access number 0x01, one block encrypted in mode 5
+    static final String MODE_5_HEADER = "442D2C785634121B167A01001005";
+    // idle filler, volume record and idle filler up to full block
+    static final String MODE_5_PLAIN = "2F2F0C14270485022F2F2F2F2F2F2F2F";
+    // manufacturer, identification, version, device type, 8 times access number
+    static final String MODE_5_IV = "2D2C785634121B160101010101010101";
+
+    private TestFrames() {
+    }
+
+    /**
+     * Returns frame of KAM cold water meter with one volume record encrypted in mode 5, variable data structure starts
+     * at index 10.
+     */
+    static byte[] modeFiveFrame(byte[] key) throws Exception {
+        byte[] encrypted = AesCrypt.newAesCrypt(key, HexUtils.hexToBytes(MODE_5_IV))
+                .encrypt(HexUtils.hexToBytes(MODE_5_PLAIN), 16);
+        byte[] header = HexUtils.hexToBytes(MODE_5_HEADER);
+
+        byte[] frame = new byte[1 + header.length + encrypted.length];
+        frame[0] = (byte) (frame.length - 1);
+        System.arraycopy(header, 0, frame, 1, header.length);
+        System.arraycopy(encrypted, 0, frame, 1 + header.length, encrypted.length);
+        return frame;
+    }
+
+    /**
+     * Returns structure of given bytes, with no address and keys.
+     */
+    static VariableDataStructure structure(String hex) {
+        byte[] buffer = HexUtils.hexToBytes(hex);
+        return new VariableDataStructure(buffer, 0, buffer.length, null, null);
+    }
+
+    /**
+     * Returns structure of given bytes received from meter with given address, with no keys.
+     */
+    static VariableDataStructure structure(String hex, SecondaryAddress address) {
+        byte[] buffer = HexUtils.hexToBytes(hex);
+        return new VariableDataStructure(buffer, 0, buffer.length, address, null);
+    }
+
+    /**
+     * Returns address of meter. Meters are grouped in series, so tests which remember formats or layouts of meters
+     * do not share them with each other.
+     */
+    static SecondaryAddress address(int series, int device) {
+        byte[] header = HexUtils.hexToBytes(String.format("2D2C%02X%02X00001B16", device, series));
+        return SecondaryAddress.newFromWMBusHeader(header, 0);
+    }
+
+    /**
+     * Returns variable data with given records, no header, two bytes which are not data records follow payload.
+     */
+    static String variableData(String records) {
+        return "78" + records + "2F2F";
+    }
+}
@@ -0,0 +1,76 @@
+package org.openmuc.jmbus;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+/**
+ * Test of VIF lookup tables. Expected values in {@code vif-codes.txt} were recorded with decoder which evaluated VIF
+ * bit by bit for every record, so any difference shows change of meaning of a code.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class ValueInformationTest {
+
+    private static final String[] TABLES = { "VIF", "FD", "FB" };
+
+    @Test
+    public void testAllCodes() throws Exception {
+        List<String> expected = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                ValueInformationTest.class.getResourceAsStream("vif-codes.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                expected.add(line);
+            }
+        }
+
+        Assertions.assertThat(expected).hasSize(TABLES.length * 256);
+        int index = 0;
+        for (String table : TABLES) {
+            for (int code = 0; code < 256; code++) {
+                Assertions.assertThat(describe(table, code)).isEqualTo(expected.get(index++));
+            }
+        }
+    }
+
+    /**
+     * Decodes record with given VIF as 16 and 32 bit value, so date types are visible as type of value.
+     */
+    static String describe(String table, int code) {
+        StringBuilder line = new StringBuilder(String.format("%s %02X", table, code));
+        for (int dif : new int[] { 0x02, 0x04 }) {
+            DataRecord record = new DataRecord();
+            try {
+                record.decode(record(table, code, dif), 0);
+            } catch (Exception e) {
+                return line.append(' ').append(e.getClass().getSimpleName()).toString();
+            }
+            if (dif == 0x02) {
+                line.append(' ').append(record.getDescription()).append(' ').append(record.getUnit()).append(' ')
+                        .append(record.getMultiplierExponent());
+            }
+            line.append(' ').append(record.getDataValueType());
+        }
+        return line.toString();
+    }
+
+    private static byte[] record(String table, int code, int dif) {
+        byte[] buffer = new byte[8];
+        int i = 0;
+        buffer[i++] = (byte) dif;
+        if ("FD".equals(table)) {
+            buffer[i++] = (byte) 0xfd;
+        } else if ("FB".equals(table)) {
+            buffer[i++] = (byte) 0xfb;
+        }
+        buffer[i++] = (byte) code;
+        // VIFE if extension bit is set, length of user defined VIF or data otherwise, all zeros
+        return buffer;
+    }
+}
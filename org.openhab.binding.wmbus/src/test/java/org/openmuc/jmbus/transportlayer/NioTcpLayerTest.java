@@ -0,0 +1,167 @@
+package org.openmuc.jmbus.transportlayer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test of non-blocking TCP transport layer against loopback server.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class NioTcpLayerTest implements ChunkListener {
+
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+    private ServerSocket server;
+    private NioTcpLayer layer;
+    private Socket peer;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        layer = new NioTcpLayer(server.getInetAddress().getHostAddress(), server.getLocalPort(), 1000, 0);
+        layer.open();
+        peer = server.accept();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        layer.close();
+        peer.close();
+        server.close();
+    }
+
+    @Test
+    public void testBlockingExchangeBeforeReading() throws Exception {
+        layer.getOutputStream().write(new byte[] { 0x01, 0x02 });
+        Assertions.assertThat(readFully(peer.getInputStream(), 2)).isEqualTo(new byte[] { 0x01, 0x02 });
+
+        peer.getOutputStream().write(0x3E);
+        Assertions.assertThat(layer.getInputStream().read()).isEqualTo(0x3E);
+    }
+
+    @Test
+    public void testPushedChunks() throws Exception {
+        layer.startReading(this);
+
+        OutputStream out = peer.getOutputStream();
+        byte[] data = new byte[10000];
+        for (int index = 0; index < data.length; index++) {
+            data[index] = (byte) index;
+        }
+        out.write(data);
+        out.flush();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (size() < data.length && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        synchronized (received) {
+            Assertions.assertThat(received.toByteArray()).isEqualTo(data);
+        }
+
+        // writes still work when channel is non-blocking
+        layer.getOutputStream().write(new byte[] { 0x05, 0x06 });
+        Assertions.assertThat(readFully(peer.getInputStream(), 2)).isEqualTo(new byte[] { 0x05, 0x06 });
+    }
+
+    @Test
+    public void testReadTimeout() throws Exception {
+        layer.startReading(this);
+        Assertions.assertThat(events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+        layer.setTimeout(50);
+        Assertions.assertThat(events.poll(2, TimeUnit.SECONDS)).isEqualTo("timeout");
+        Assertions.assertThat(events.poll(2, TimeUnit.SECONDS)).isEqualTo("timeout");
+
+        layer.setTimeout(0);
+        events.clear();
+        Assertions.assertThat(events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void testRemoteClose() throws Exception {
+        layer.startReading(this);
+        peer.close();
+
+        Assertions.assertThat(events.poll(2, TimeUnit.SECONDS)).isEqualTo("failed");
+    }
+
+    @Test
+    public void testSharedSelector() throws Exception {
+        NioTcpLayer other = new NioTcpLayer(server.getInetAddress().getHostAddress(), server.getLocalPort(), 1000, 0);
+        other.open();
+        try (Socket otherPeer = server.accept()) {
+            CountDownLatch latch = new CountDownLatch(1);
+            other.startReading(new ChunkListener() {
+                @Override
+                public void chunkReceived(byte[] buffer, int offset, int length) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void readTimedOut() {
+                }
+
+                @Override
+                public void readFailed(IOException cause) {
+                }
+            });
+            layer.startReading(this);
+
+            otherPeer.getOutputStream().write(0x01);
+            peer.getOutputStream().write(0x02);
+
+            Assertions.assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+            Assertions.assertThat(events.poll(2, TimeUnit.SECONDS)).isEqualTo("chunk");
+        } finally {
+            other.close();
+        }
+    }
+
+    private int size() {
+        synchronized (received) {
+            return received.size();
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] data = new byte[length];
+        new DataInputStream(in).readFully(data);
+        return data;
+    }
+
+    @Override
+    public void chunkReceived(byte[] buffer, int offset, int length) {
+        synchronized (received) {
+            received.write(buffer, offset, length);
+        }
+        events.add("chunk");
+    }
+
+    @Override
+    public void readTimedOut() {
+        events.add("timeout");
+    }
+
+    @Override
+    public void readFailed(IOException cause) {
+        events.add("failed");
+    }
+}
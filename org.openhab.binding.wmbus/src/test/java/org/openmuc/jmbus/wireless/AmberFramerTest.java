@@ -0,0 +1,118 @@
+package org.openmuc.jmbus.wireless;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Test of frame detection in byte stream received from Amber stick.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class AmberFramerTest implements AmberFramer.FrameHandler {
+
+    // KAM cold water meter with RSSI byte appended, length includes RSSI
+    private static final String FRAME = "15442D2C785634121B167A010000000C14270485024A";
+    private static final String OTHER_FRAME = "15442D2C031034121B167A070000000C14270485024B";
+
+    private final List<String> frames = new ArrayList<>();
+    private final List<String> invalid = new ArrayList<>();
+    private final ByteArrayOutputStream discarded = new ByteArrayOutputStream();
+
+    private final AmberFramer framer = new AmberFramer(this);
+
+    @Test
+    public void testPlainFrames() {
+        feed(FRAME + OTHER_FRAME, 64);
+
+        Assertions.assertThat(frames).containsExactly(FRAME, OTHER_FRAME);
+        Assertions.assertThat(discarded.size()).isZero();
+        Assertions.assertThat(framer.isInFrame()).isFalse();
+    }
+
+    @Test
+    public void testFramesWithChecksum() {
+        feed(withChecksum(FRAME) + withChecksum(OTHER_FRAME), 64);
+
+        Assertions.assertThat(frames).containsExactly(FRAME, OTHER_FRAME);
+        Assertions.assertThat(invalid).isEmpty();
+        Assertions.assertThat(discarded.size()).isZero();
+    }
+
+    @Test
+    public void testChecksumMismatch() {
+        String corrupted = withChecksum(FRAME);
+        corrupted = corrupted.substring(0, corrupted.length() - 2) + "00";
+        feed(corrupted + withChecksum(OTHER_FRAME), 64);
+
+        Assertions.assertThat(frames).containsExactly(OTHER_FRAME);
+        Assertions.assertThat(invalid).containsExactly(FRAME);
+    }
+
+    @Test
+    public void testNoiseAndSingleByteReads() {
+        feed("0102030405" + FRAME + "AABB" + withChecksum(OTHER_FRAME), 1);
+
+        Assertions.assertThat(frames).containsExactly(FRAME, OTHER_FRAME);
+        Assertions.assertThat(HexUtils.bytesToHex(discarded.toByteArray())).isEqualTo("0102030405AABB");
+    }
+
+    @Test
+    public void testLongStream() {
+        StringBuilder stream = new StringBuilder();
+        for (int index = 0; index < 100; index++) {
+            stream.append(index % 2 == 0 ? FRAME : withChecksum(OTHER_FRAME));
+        }
+        feed(stream.toString(), 37);
+
+        Assertions.assertThat(frames).hasSize(100);
+        Assertions.assertThat(discarded.size()).isZero();
+    }
+
+    @Test
+    public void testTimeout() {
+        feed(FRAME.substring(0, 20), 64);
+        Assertions.assertThat(framer.isInFrame()).isTrue();
+
+        framer.timeout();
+        feed(OTHER_FRAME, 64);
+
+        Assertions.assertThat(frames).containsExactly(OTHER_FRAME);
+        Assertions.assertThat(HexUtils.bytesToHex(discarded.toByteArray())).isEqualTo(FRAME.substring(0, 20));
+    }
+
+    private void feed(String hex, int chunk) {
+        byte[] data = HexUtils.hexToBytes(hex);
+        for (int offset = 0; offset < data.length; offset += chunk) {
+            framer.feed(data, offset, Math.min(chunk, data.length - offset));
+        }
+    }
+
+    private static String withChecksum(String frame) {
+        byte checksum = (byte) (0xFF ^ 0x03);
+        for (byte element : HexUtils.hexToBytes(frame)) {
+            checksum ^= element;
+        }
+        return "FF03" + frame + HexUtils.bytesToHex(new byte[] { checksum });
+    }
+
+    @Override
+    public void frame(byte[] frame) {
+        frames.add(HexUtils.bytesToHex(frame));
+    }
+
+    @Override
+    public void checksumMismatch(byte[] frame) {
+        invalid.add(HexUtils.bytesToHex(frame));
+    }
+
+    @Override
+    public void discarded(byte[] buffer, int offset, int length) {
+        discarded.write(buffer, offset, length);
+    }
+}
@@ -0,0 +1,147 @@
+package org.openmuc.jmbus.wireless;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.core.util.HexUtils;
+
+/**
+ * Test of incremental decoding of HCI messages received from IMST stick.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class ImstFramerTest implements ImstFramer.MessageHandler {
+
+    // KAM cold water meter frame without length field
+    private static final String PAYLOAD = "442D2C785634121B167A010000000C1427048502";
+    private static final String OTHER_PAYLOAD = "442D2C031034121B167A070000000C1427048502";
+
+    // radio link endpoint, wM-Bus message indication
+    private static final int ENDPOINT = 0x02;
+    private static final int MSG_ID = 0x03;
+
+    // time stamp and rssi attached
+    private static final int CONTROL_TIMESTAMP_RSSI = 0x06;
+    // time stamp, rssi and crc attached
+    private static final int CONTROL_ALL = 0x0E;
+
+    private final List<String> payloads = new ArrayList<>();
+    private final List<Integer> rssis = new ArrayList<>();
+    private final ByteArrayOutputStream discarded = new ByteArrayOutputStream();
+
+    private final ImstFramer framer = new ImstFramer(this);
+
+    @Test
+    public void testMessages() {
+        feed(hci(0, PAYLOAD, 0) + hci(CONTROL_TIMESTAMP_RSSI, OTHER_PAYLOAD, 0x96), 128);
+
+        Assertions.assertThat(payloads).containsExactly(PAYLOAD, OTHER_PAYLOAD);
+        // no rssi attached to first message, 0x96 equals -46 dBm
+        Assertions.assertThat(rssis).containsExactly(0, -46);
+        Assertions.assertThat(discarded.size()).isZero();
+        Assertions.assertThat(framer.isInFrame()).isFalse();
+    }
+
+    @Test
+    public void testSingleByteReads() {
+        feed(hci(CONTROL_ALL, PAYLOAD, 0x80) + hci(CONTROL_TIMESTAMP_RSSI, OTHER_PAYLOAD, 0x80), 1);
+
+        Assertions.assertThat(payloads).containsExactly(PAYLOAD, OTHER_PAYLOAD);
+        Assertions.assertThat(discarded.size()).isZero();
+    }
+
+    @Test
+    public void testNoiseBeforeMessage() {
+        feed("0102" + hci(CONTROL_TIMESTAMP_RSSI, PAYLOAD, 0x80), 7);
+
+        Assertions.assertThat(payloads).containsExactly(PAYLOAD);
+        Assertions.assertThat(HexUtils.bytesToHex(discarded.toByteArray())).isEqualTo("0102");
+    }
+
+    @Test
+    public void testTruncatedMessage() {
+        String truncated = hci(CONTROL_TIMESTAMP_RSSI, PAYLOAD, 0x80).substring(0, 20);
+        feed(truncated, 128);
+        Assertions.assertThat(framer.isInFrame()).isTrue();
+
+        framer.timeout();
+        feed(hci(CONTROL_TIMESTAMP_RSSI, OTHER_PAYLOAD, 0x80), 128);
+
+        Assertions.assertThat(payloads).containsExactly(OTHER_PAYLOAD);
+        Assertions.assertThat(HexUtils.bytesToHex(discarded.toByteArray())).isEqualTo(truncated);
+        Assertions.assertThat(framer.isInFrame()).isFalse();
+    }
+
+    @Test
+    public void testMessageAfterBrokenHeader() {
+        // start of frame followed by length which does not match, real message follows
+        String message = hci(CONTROL_TIMESTAMP_RSSI, PAYLOAD, 0x80);
+        feed("A52303FF" + message, 128);
+        Assertions.assertThat(payloads).isEmpty();
+
+        framer.timeout();
+
+        Assertions.assertThat(payloads).containsExactly(PAYLOAD);
+        Assertions.assertThat(HexUtils.bytesToHex(discarded.toByteArray())).isEqualTo("A52303FF");
+    }
+
+    @Test
+    public void testReplay() {
+        StringBuilder stream = new StringBuilder();
+        for (int index = 0; index < 1000; index++) {
+            stream.append(hci(index % 2 == 0 ? CONTROL_ALL : CONTROL_TIMESTAMP_RSSI, PAYLOAD, index & 0xff));
+        }
+        byte[] data = HexUtils.hexToBytes(stream.toString());
+
+        int[] chunks = { 1, 3, 64, 1000 };
+        for (int chunk : chunks) {
+            payloads.clear();
+            feed(data, chunk);
+            Assertions.assertThat(payloads).hasSize(1000);
+        }
+        Assertions.assertThat(discarded.size()).isZero();
+    }
+
+    private void feed(String hex, int chunk) {
+        feed(HexUtils.hexToBytes(hex), chunk);
+    }
+
+    private void feed(byte[] data, int chunk) {
+        for (int offset = 0; offset < data.length; offset += chunk) {
+            framer.feed(data, offset, Math.min(chunk, data.length - offset));
+        }
+    }
+
+    private static String hci(int controlField, String payload, int rssi) {
+        StringBuilder message = new StringBuilder("A5");
+        message.append(String.format("%02X%02X%02X", (controlField << 4) | ENDPOINT, MSG_ID, payload.length() / 2));
+        message.append(payload);
+        if ((controlField & 0x02) != 0) {
+            message.append("01020304");
+        }
+        if ((controlField & 0x04) != 0) {
+            message.append(String.format("%02X", rssi));
+        }
+        if ((controlField & 0x08) != 0) {
+            message.append("BEEF");
+        }
+        return message.toString();
+    }
+
+    @Override
+    public void message(byte endpointId, byte msgId, byte[] buffer, int offset, int length, int rssi) {
+        Assertions.assertThat(endpointId).isEqualTo((byte) ENDPOINT);
+        Assertions.assertThat(msgId).isEqualTo((byte) MSG_ID);
+        payloads.add(HexUtils.bytesToHex(Arrays.copyOfRange(buffer, offset, offset + length)));
+        rssis.add(rssi);
+    }
+
+    @Override
+    public void discarded(byte[] buffer, int offset, int length) {
+        discarded.write(buffer, offset, length);
+    }
+}
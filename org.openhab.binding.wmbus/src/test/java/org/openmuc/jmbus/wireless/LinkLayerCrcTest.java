@@ -0,0 +1,135 @@
+package org.openmuc.jmbus.wireless;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.openhab.core.util.HexUtils;
+import org.openmuc.jmbus.CRC16;
+import org.openmuc.jmbus.DecodingException;
+
+/**
+ * Test of validation and removal of data link layer CRCs.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class LinkLayerCrcTest {
+
+    // KAM cold water meter frame, L-field does not count CRCs
+    private static final String FRAME = "14442D2C785634121B167A010000000C1427048502";
+
+    @Test
+    public void testCrc() {
+        // check value of CRC-16/EN-13757
+        byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+        Assertions.assertThat(CRC16.calculateCrc16(data, 0, data.length)).isEqualTo(0xC2B7);
+
+        byte[] padded = ("xx" + "123456789" + "x").getBytes(StandardCharsets.US_ASCII);
+        Assertions.assertThat(CRC16.calculateCrc16(padded, 2, data.length)).isEqualTo(0xC2B7);
+    }
+
+    @Test
+    public void testFormatA() throws Exception {
+        byte[] frame = HexUtils.hexToBytes(FRAME);
+        byte[] buffer = formatA(frame);
+        Assertions.assertThat(buffer).hasSize(frame.length + 4);
+
+        int length = LinkLayerCrc.stripFormatA(buffer, 0, buffer.length);
+        Assertions.assertThat(Arrays.copyOf(buffer, length)).isEqualTo(frame);
+    }
+
+    @Test
+    public void testLongFormatA() throws Exception {
+        // three full blocks after first one and one partial
+        byte[] frame = frame(10 + 3 * 16 + 5);
+        byte[] buffer = formatA(frame);
+
+        int length = LinkLayerCrc.strip(buffer, 0, buffer.length);
+        Assertions.assertThat(Arrays.copyOf(buffer, length)).isEqualTo(frame);
+    }
+
+    @Test
+    public void testFormatB() throws Exception {
+        byte[] frame = HexUtils.hexToBytes(FRAME);
+        byte[] buffer = formatB(frame);
+
+        int length = LinkLayerCrc.strip(buffer, 0, buffer.length);
+        Assertions.assertThat(Arrays.copyOf(buffer, length)).isEqualTo(frame);
+    }
+
+    @Test
+    public void testLongFormatB() throws Exception {
+        byte[] frame = frame(200);
+        byte[] buffer = formatB(frame);
+        Assertions.assertThat(buffer).hasSize(204);
+
+        int length = LinkLayerCrc.stripFormatB(buffer, 0, buffer.length);
+        Assertions.assertThat(Arrays.copyOf(buffer, length)).isEqualTo(frame);
+    }
+
+    @Test
+    public void testBrokenCrc() {
+        byte[] buffer = formatA(HexUtils.hexToBytes(FRAME));
+        buffer[buffer.length - 1]++;
+        byte[] copy = buffer.clone();
+
+        Assertions.assertThatThrownBy(() -> LinkLayerCrc.strip(buffer, 0, buffer.length))
+                .isInstanceOf(DecodingException.class);
+        Assertions.assertThatThrownBy(() -> LinkLayerCrc.stripFormatA(buffer, 0, buffer.length))
+                .isInstanceOf(DecodingException.class);
+        // buffer is left untouched
+        Assertions.assertThat(buffer).isEqualTo(copy);
+    }
+
+    @Test
+    public void testTruncatedFrame() {
+        byte[] buffer = formatA(HexUtils.hexToBytes(FRAME));
+
+        Assertions.assertThatThrownBy(() -> LinkLayerCrc.stripFormatA(buffer, 0, buffer.length - 1))
+                .isInstanceOf(DecodingException.class);
+    }
+
+    private static byte[] frame(int length) {
+        byte[] frame = new byte[length];
+        frame[0] = (byte) (length - 1);
+        for (int i = 1; i < length; i++) {
+            frame[i] = (byte) (i * 7);
+        }
+        return frame;
+    }
+
+    private static byte[] formatA(byte[] frame) {
+        byte[] buffer = new byte[frame.length * 2];
+        int target = 0;
+        int blockLength = 10;
+        for (int source = 0; source < frame.length; source += blockLength, blockLength = 16) {
+            int block = Math.min(blockLength, frame.length - source);
+            System.arraycopy(frame, source, buffer, target, block);
+            target = appendCrc(buffer, target, block);
+        }
+        return Arrays.copyOf(buffer, target);
+    }
+
+    private static byte[] formatB(byte[] frame) {
+        byte[] buffer = new byte[frame.length + 4];
+        if (frame.length <= 126) {
+            System.arraycopy(frame, 0, buffer, 0, frame.length);
+            buffer[0] = (byte) (frame.length + 1);
+            return Arrays.copyOf(buffer, appendCrc(buffer, 0, frame.length));
+        }
+
+        System.arraycopy(frame, 0, buffer, 0, 126);
+        System.arraycopy(frame, 126, buffer, 128, frame.length - 126);
+        buffer[0] = (byte) (frame.length + 3);
+        appendCrc(buffer, 0, 126);
+        return Arrays.copyOf(buffer, appendCrc(buffer, 128, frame.length - 126));
+    }
+
+    private static int appendCrc(byte[] buffer, int offset, int length) {
+        int crc = CRC16.calculateCrc16(buffer, offset, length);
+        buffer[offset + length] = (byte) (crc >> 8);
+        buffer[offset + length + 1] = (byte) crc;
+        return offset + length + 2;
+    }
+}
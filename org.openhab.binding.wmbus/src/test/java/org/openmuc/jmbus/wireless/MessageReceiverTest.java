@@ -0,0 +1,127 @@
+package org.openmuc.jmbus.wireless;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+import org.openmuc.jmbus.wireless.WMBusConnection.OverflowPolicy;
+
+/**
+ * Verify behavior of bounded queue between radio reader and listener.
+ *
+ * @author Łukasz Dywicki - Initial contribution.
+ */
+public class MessageReceiverTest {
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final List<Integer> delivered = new CopyOnWriteArrayList<>();
+
+    private TestReceiver receiver;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (receiver != null) {
+            receiver.shutdown();
+        }
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        receiver = new TestReceiver(2, OverflowPolicy.DROP_OLDEST);
+
+        fill(5);
+
+        Assertions.assertThat(delivered).containsExactly(1, 4, 5);
+        Assertions.assertThat(receiver.getStatistics().getDroppedNotifications()).isEqualTo(2);
+        Assertions.assertThat(receiver.getStatistics().getMaxQueueDepth()).isEqualTo(2);
+        Assertions.assertThat(receiver.getStatistics().getQueueCapacity()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        receiver = new TestReceiver(2, OverflowPolicy.DROP_NEWEST);
+
+        fill(5);
+
+        Assertions.assertThat(delivered).containsExactly(1, 2, 3);
+        Assertions.assertThat(receiver.getStatistics().getDroppedNotifications()).isEqualTo(2);
+    }
+
+    @Test(timeout = 10000)
+    public void testNonBlocking() throws Exception {
+        receiver = new TestReceiver(2, OverflowPolicy.BLOCK);
+        receiver.setNonBlocking();
+
+        receiver.notifyDiscarded(new byte[] { 1 });
+        Assertions.assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int index = 2; index <= 5; index++) {
+            receiver.notifyDiscarded(new byte[] { (byte) index });
+        }
+
+        // queue is full, stop notification follows queued ones instead of making caller wait
+        receiver.notifyStoppedListening(new IOException("closed"));
+        receiver.shutdown();
+        Assertions.assertThat(stopped.getCount()).isEqualTo(1);
+
+        release.countDown();
+        Assertions.assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(delivered).containsExactly(1, 2, 3);
+        Assertions.assertThat(receiver.getStatistics().getDroppedNotifications()).isEqualTo(2);
+    }
+
+    private void fill(int count) throws Exception {
+        receiver.notifyDiscarded(new byte[] { 1 });
+        Assertions.assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int index = 2; index <= count; index++) {
+            receiver.notifyDiscarded(new byte[] { (byte) index });
+        }
+        Assertions.assertThat(receiver.getStatistics().getQueueDepth()).isEqualTo(2);
+
+        release.countDown();
+        receiver.notifyStoppedListening(new IOException("closed"));
+        Assertions.assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    class TestReceiver extends MessageReceiver {
+
+        TestReceiver(int queueCapacity, OverflowPolicy overflowPolicy) {
+            super(new RecordingListener(), queueCapacity, overflowPolicy);
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+
+    class RecordingListener implements WMBusListener {
+
+        @Override
+        public void newMessage(WMBusMessage message) {
+        }
+
+        @Override
+        public void discardedBytes(byte[] bytes) {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.add((int) bytes[0]);
+        }
+
+        @Override
+        public void stoppedListening(IOException cause) {
+            stopped.countDown();
+        }
+    }
+}